@@ -0,0 +1,105 @@
+package com.mopub.mobileads;
+
+import android.os.Process;
+import android.util.Log;
+import com.mopub.mobileads.util.AsyncTasks;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * The Executor that ad requests run on. By default this is a small pool owned by the SDK, so ad
+ * latency doesn't depend on the app's own AsyncTasks. Apps can size that pool with configure(), or
+ * hand over an Executor of their own with setExecutor().
+ */
+public class AdFetchExecutor {
+    public static final int DEFAULT_THREAD_COUNT = 2;
+    public static final int DEFAULT_THREAD_PRIORITY = Process.THREAD_PRIORITY_BACKGROUND;
+    public static final int DEFAULT_QUEUE_CAPACITY = 32;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static Executor sExecutor;
+    private static ThreadPoolExecutor sSdkExecutor;
+
+    public static synchronized Executor getExecutor() {
+        if (sExecutor == null) {
+            configure(DEFAULT_THREAD_COUNT, DEFAULT_THREAD_PRIORITY, DEFAULT_QUEUE_CAPACITY);
+        }
+        return sExecutor;
+    }
+
+    /*
+     * Runs ad requests on the given Executor from now on. Passing null goes back to the SDK's pool.
+     */
+    public static synchronized void setExecutor(Executor executor) {
+        shutdownSdkExecutor();
+        sExecutor = executor;
+    }
+
+    /*
+     * Replaces the SDK's pool. Requests that no longer fit in the queue run on the shared AsyncTask
+     * pool instead of being dropped, because a dropped AsyncTask would never report back.
+     */
+    public static synchronized void configure(int threadCount, final int threadPriority, int queueCapacity) {
+        shutdownSdkExecutor();
+
+        threadCount = Math.max(1, threadCount);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threadCount,
+                threadCount,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(Math.max(1, queueCapacity)),
+                new AdFetchThreadFactory(threadPriority),
+                new OverflowPolicy());
+
+        sSdkExecutor = executor;
+        sExecutor = executor;
+    }
+
+    private static void shutdownSdkExecutor() {
+        if (sSdkExecutor != null) {
+            // Let requests that are already queued finish.
+            sSdkExecutor.shutdown();
+            sSdkExecutor = null;
+        }
+        sExecutor = null;
+    }
+
+    private static class OverflowPolicy implements RejectedExecutionHandler {
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            Executor threadPoolExecutor = AsyncTasks.getThreadPoolExecutor();
+            if (threadPoolExecutor != null) {
+                Log.d("MoPub", "Ad fetch queue is full; running request on the AsyncTask pool.");
+                threadPoolExecutor.execute(runnable);
+            } else {
+                new Thread(runnable).start();
+            }
+        }
+    }
+
+    private static class AdFetchThreadFactory implements ThreadFactory {
+        private final AtomicInteger mThreadCount = new AtomicInteger();
+        private final int mThreadPriority;
+
+        AdFetchThreadFactory(int threadPriority) {
+            mThreadPriority = threadPriority;
+        }
+
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    Process.setThreadPriority(mThreadPriority);
+                    runnable.run();
+                }
+            }, "MoPub AdFetch #" + mThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
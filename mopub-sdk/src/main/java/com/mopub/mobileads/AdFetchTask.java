@@ -2,37 +2,97 @@ package com.mopub.mobileads;
 
 import android.os.AsyncTask;
 import android.util.Log;
+import com.mopub.mobileads.factories.HttpClientFactory;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.conn.ClientConnectionManager;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.params.BasicHttpParams;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
 
-import static com.mopub.mobileads.util.HttpResponses.extractHeader;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.mopub.mobileads.util.HttpResponses.consumeContent;
 
 public class AdFetchTask extends AsyncTask<String, Void, AdLoadTask> {
+    private static final AtomicLong sAbortedRequestCount = new AtomicLong();
+    private static final AtomicLong sAbortedResponseBytes = new AtomicLong();
+
     private TaskTracker mTaskTracker;
     private AdViewController mAdViewController;
     private Exception mException;
     private HttpClient mHttpClient;
     private long mTaskId;
     private String mUserAgent;
+    private int mTimeoutMilliseconds;
+    private boolean mIsPrefetch;
+    private String mUrl;
+    private AdResponse mPrefetchedAdResponse;
+    // Set while there is something worth aborting; whoever clears it (abort() or the fetch) owns it.
+    private final AtomicReference<HttpGet> mHttpGet = new AtomicReference<HttpGet>();
+    private volatile long mResponseContentLength = -1;
+    private final AtomicLong mResponseBytesRead = new AtomicLong();
 
     private AdFetcher.FetchStatus mFetchStatus = AdFetcher.FetchStatus.NOT_SET;
-    private static final int MAXIMUM_REFRESH_TIME_MILLISECONDS = 600000;
-    private static final double EXPONENTIAL_BACKOFF_FACTOR = 1.5;
 
     public AdFetchTask(TaskTracker taskTracker, AdViewController adViewController, String userAgent, int timeoutMilliseconds) {
         mTaskTracker = taskTracker;
 
         mAdViewController = adViewController;
-        mHttpClient = getDefaultHttpClient(timeoutMilliseconds);
+        mHttpClient = HttpClientFactory.create();
         mTaskId = mTaskTracker.getCurrentTaskId();
         mUserAgent = userAgent;
+        mTimeoutMilliseconds = timeoutMilliseconds;
+    }
+
+    /*
+     * A prefetch task parses the ad but leaves the AdViewController untouched. The result is put in
+     * the AdPrefetchCache, and the controller applies it on its next refresh.
+     */
+    void setPrefetch(boolean isPrefetch) {
+        mIsPrefetch = isPrefetch;
+    }
+
+    /*
+     * Cancels the task and aborts its request if one is in flight, which closes the connection
+     * rather than downloading the rest of a response nobody will use. Call from the main thread.
+     */
+    void abort() {
+        cancel(true);
+
+        HttpGet httpGet = mHttpGet.getAndSet(null);
+        if (httpGet != null) {
+            httpGet.abort();
+            sAbortedRequestCount.incrementAndGet();
+
+            // Known only once the headers are in; only the part of the body not read yet is saved.
+            long contentLength = mResponseContentLength;
+            if (contentLength > 0) {
+                sAbortedResponseBytes.addAndGet(Math.max(0, contentLength - mResponseBytesRead.get()));
+            }
+        }
+    }
+
+    /*
+     * Number of in-flight requests aborted by abort(), across all tasks.
+     */
+    public static long getAbortedRequestCount() {
+        return sAbortedRequestCount.get();
+    }
+
+    /*
+     * Response bytes that aborted requests did not have to download: their Content-Length less what
+     * had already been read. Requests aborted before their headers arrived don't count towards it.
+     */
+    public static long getAbortedResponseBytes() {
+        return sAbortedResponseBytes.get();
+    }
+
+    @Deprecated // for testing
+    public static void resetAbortMetrics() {
+        sAbortedRequestCount.set(0);
+        sAbortedResponseBytes.set(0);
     }
 
     @Override
@@ -43,31 +103,62 @@ public class AdFetchTask extends AsyncTask<String, Void, AdLoadTask> {
         } catch (Exception exception) {
             mException = exception;
         } finally {
-            shutdownHttpClient();
+            mHttpGet.set(null);
+            mHttpClient = null;
         }
         return result;
     }
 
     private AdLoadTask fetch(String url) throws Exception {
+        mUrl = url;
         HttpGet httpget = new HttpGet(url);
         httpget.addHeader(AdFetcher.USER_AGENT_HEADER, mUserAgent);
+        setTimeouts(httpget);
 
+        // Published before the cancellation check, so abort() either sees the request or the task
+        // sees that it was cancelled.
+        mHttpGet.set(httpget);
         if (!isStateValid()) return null;
 
         HttpResponse response = mHttpClient.execute(httpget);
+        try {
+            if (!isResponseValid(response)) return null;
+            mResponseContentLength = response.getEntity().getContentLength();
+
+            AdResponse adResponse = AdResponse.fromHttpResponse(response, mResponseBytesRead);
+            // The body has been read, so aborting the request now would only waste the connection.
+            if (!mHttpGet.compareAndSet(httpget, null)) {
+                // abort() got there first; the task has been cancelled.
+                return null;
+            }
+            if (mIsPrefetch) {
+                mPrefetchedAdResponse = adResponse;
+            } else {
+                mAdViewController.configureUsingAdResponse(adResponse);
+            }
 
-        if (!isResponseValid(response)) return null;
-
-        mAdViewController.configureUsingHttpResponse(response);
+            if (!responseContainsContent(adResponse)) return null;
 
-        if (!responseContainsContent(response)) return null;
+            return AdLoadTask.fromAdResponse(adResponse, mAdViewController);
+        } finally {
+            // Hand the connection back to the shared pool whether or not the body was read.
+            consumeContent(response);
+        }
+    }
 
-        return AdLoadTask.fromHttpResponse(response, mAdViewController);
+    private void setTimeouts(HttpGet httpget) {
+        if (mTimeoutMilliseconds > 0) {
+            // Set timeouts to wait for connection establishment / receiving data. These override
+            // the defaults of the shared client for this request only.
+            HttpParams requestParameters = httpget.getParams();
+            HttpConnectionParams.setConnectionTimeout(requestParameters, mTimeoutMilliseconds);
+            HttpConnectionParams.setSoTimeout(requestParameters, mTimeoutMilliseconds);
+        }
     }
 
-    private boolean responseContainsContent(HttpResponse response) {
+    private boolean responseContainsContent(AdResponse adResponse) {
         // Ensure that the ad is not warming up.
-        if ("1".equals(extractHeader(response, AdFetcher.WARMUP_HEADER))) {
+        if (adResponse.isWarmingUp()) {
             Log.d("MoPub", "Ad Unit (" + mAdViewController.getAdUnitId() + ") is still warming up. " +
                     "Please try again in a few minutes.");
             mFetchStatus = AdFetcher.FetchStatus.AD_WARMING_UP;
@@ -75,8 +166,7 @@ public class AdFetchTask extends AsyncTask<String, Void, AdLoadTask> {
         }
 
         // Ensure that the ad type header is valid and not "clear".
-        String adType = extractHeader(response, AdFetcher.AD_TYPE_HEADER);
-        if ("clear".equals(adType)) {
+        if ("clear".equals(adResponse.getAdType())) {
             Log.d("MoPub", "No inventory found for adunit (" + mAdViewController.getAdUnitId() + ").");
             mFetchStatus = AdFetcher.FetchStatus.CLEAR_AD_TYPE;
             return false;
@@ -128,6 +218,11 @@ public class AdFetchTask extends AsyncTask<String, Void, AdLoadTask> {
 
     @Override
     protected void onPostExecute(AdLoadTask adLoadTask) {
+        if (mIsPrefetch) {
+            finishPrefetch(adLoadTask);
+            return;
+        }
+
         if (!isMostCurrentTask()) {
             Log.d("MoPub", "Ad response is stale.");
             cleanup();
@@ -170,20 +265,8 @@ public class AdFetchTask extends AsyncTask<String, Void, AdLoadTask> {
                     break;
             }
 
+            // The controller's RefreshScheduler backs off from here.
             mAdViewController.adDidFail(errorCode);
-
-            /*
-             * There are numerous reasons for the ad fetch to fail, but only in the specific
-             * case of actual server failure should we exponentially back off.
-             *
-             * Note: We place the exponential backoff after AdViewController's adDidFail because we only
-             * want to increase refresh times after the first failure refresh timer is
-             * scheduled, and not before.
-             */
-            if (mFetchStatus == AdFetcher.FetchStatus.INVALID_SERVER_RESPONSE_BACKOFF) {
-                exponentialBackoff();
-                mFetchStatus = AdFetcher.FetchStatus.NOT_SET;
-            }
         } else {
             adLoadTask.execute();
             adLoadTask.cleanup();
@@ -209,56 +292,30 @@ public class AdFetchTask extends AsyncTask<String, Void, AdLoadTask> {
         cleanup();
     }
 
-    /* This helper function is called when a 4XX or 5XX error is received during an ad fetch.
-     * It exponentially increases the parent AdViewController's refreshTime up to a specified cap.
-     */
-    private void exponentialBackoff() {
-        if (mAdViewController == null) {
-            return;
-        }
-
-        int refreshTimeMilliseconds = mAdViewController.getRefreshTimeMilliseconds();
-
-        refreshTimeMilliseconds = (int) (refreshTimeMilliseconds * EXPONENTIAL_BACKOFF_FACTOR);
-        if (refreshTimeMilliseconds > MAXIMUM_REFRESH_TIME_MILLISECONDS) {
-            refreshTimeMilliseconds = MAXIMUM_REFRESH_TIME_MILLISECONDS;
+    private void finishPrefetch(AdLoadTask adLoadTask) {
+        if (adLoadTask != null) {
+            if (isMostCurrentTask() && mAdViewController != null && !mAdViewController.isDestroyed()) {
+                AdPrefetchCache.put(mAdViewController.getAdUnitId(), mAdViewController, mUrl,
+                        mPrefetchedAdResponse, adLoadTask);
+            } else {
+                adLoadTask.cleanup();
+            }
+        } else if (mException != null) {
+            // The regular refresh will fetch (and report failures) as usual.
+            Log.d("MoPub", "Exception caught while prefetching ad: " + mException);
         }
 
-        mAdViewController.setRefreshTimeMilliseconds(refreshTimeMilliseconds);
+        mTaskTracker.markTaskCompleted(mTaskId);
+        cleanup();
     }
 
     private void cleanup() {
         mTaskTracker = null;
+        mPrefetchedAdResponse = null;
         mException = null;
         mFetchStatus = AdFetcher.FetchStatus.NOT_SET;
     }
 
-    private DefaultHttpClient getDefaultHttpClient(int timeoutMilliseconds) {
-        HttpParams httpParameters = new BasicHttpParams();
-
-        if (timeoutMilliseconds > 0) {
-            // Set timeouts to wait for connection establishment / receiving data.
-            HttpConnectionParams.setConnectionTimeout(httpParameters, timeoutMilliseconds);
-            HttpConnectionParams.setSoTimeout(httpParameters, timeoutMilliseconds);
-        }
-
-        // Set the buffer size to avoid OutOfMemoryError exceptions on certain HTC devices.
-        // http://stackoverflow.com/questions/5358014/android-httpclient-oom-on-4g-lte-htc-thunderbolt
-        HttpConnectionParams.setSocketBufferSize(httpParameters, 8192);
-
-        return new DefaultHttpClient(httpParameters);
-    }
-
-    private void shutdownHttpClient() {
-        if (mHttpClient != null) {
-            ClientConnectionManager manager = mHttpClient.getConnectionManager();
-            if (manager != null) {
-                manager.shutdown();
-            }
-            mHttpClient = null;
-        }
-    }
-
     private boolean isMostCurrentTask() {
         return mTaskTracker.isMostCurrentTask(mTaskId);
     }
@@ -36,22 +36,16 @@ package com.mopub.mobileads;
 
 import android.util.Log;
 import com.mopub.mobileads.factories.AdFetchTaskFactory;
-import com.mopub.mobileads.util.VersionCode;
-
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.concurrent.Executor;
-
-import static com.mopub.mobileads.util.VersionCode.ICE_CREAM_SANDWICH;
+import com.mopub.mobileads.util.AsyncTasks;
 
 /*
  * AdFetcher is a delegate of an AdViewController that handles loading ad data over a
  * network connection. The ad is fetched in a background thread by executing
- * AdFetchTask, which is an AsyncTask subclass. This class gracefully handles
- * the changes to AsyncTask in Android 4.0.1 (we continue to run parallel to
- * the app developer's background tasks). Further, AdFetcher keeps track of
- * the last completed task to prevent out-of-order execution.
+ * AdFetchTask, which is an AsyncTask subclass. On Honeycomb and up the task runs
+ * on AdFetchExecutor, so ads load in parallel to (and independently of) the app
+ * developer's background tasks. Further, AdFetcher keeps track of the last
+ * completed task to prevent out-of-order execution, and aborts the request of a
+ * task it supersedes instead of letting it download to completion.
  */
 public class AdFetcher {
     public static final String USER_AGENT_HEADER = "User-Agent";
@@ -77,8 +71,10 @@ public class AdFetcher {
     private AdViewController mAdViewController;
 
     private AdFetchTask mCurrentTask;
+    private AdFetchTask mPrefetchTask;
     private String mUserAgent;
     private final TaskTracker mTaskTracker;
+    private final TaskTracker mPrefetchTaskTracker;
 
     enum FetchStatus {
         NOT_SET,
@@ -93,6 +89,7 @@ public class AdFetcher {
         mAdViewController = adview;
         mUserAgent = userAgent;
         mTaskTracker = new TaskTracker();
+        mPrefetchTaskTracker = new TaskTracker();
     }
 
     public void fetchAdForUrl(String url) {
@@ -100,43 +97,48 @@ public class AdFetcher {
         Log.i("MoPub", "Fetching ad for task #" + getCurrentTaskId());
 
         if (mCurrentTask != null) {
-            mCurrentTask.cancel(true);
+            mCurrentTask.abort();
         }
 
         mCurrentTask = AdFetchTaskFactory.create(mTaskTracker, mAdViewController, mUserAgent, mTimeoutMilliseconds);
+        executeTask(mCurrentTask, url);
+    }
 
-        if (VersionCode.currentApiLevel().isAtLeast(ICE_CREAM_SANDWICH)) {
-            Class<?> cls = AdFetchTask.class;
-            Class<?>[] parameterTypes = {Executor.class, Object[].class};
-
-            String[] parameters = {url};
-
-            try {
-                Method method = cls.getMethod("executeOnExecutor", parameterTypes);
-                Field field = cls.getField("THREAD_POOL_EXECUTOR");
-                method.invoke(mCurrentTask, field.get(cls), parameters);
-            } catch (NoSuchMethodException exception) {
-                Log.d("MoPub", "Error executing AdFetchTask on ICS+, method not found.");
-            } catch (InvocationTargetException exception) {
-                Log.d("MoPub", "Error executing AdFetchTask on ICS+, thrown by executeOnExecutor.");
-            } catch (Exception exception) {
-                Log.d("MoPub", "Error executing AdFetchTask on ICS+: " + exception.toString());
-            }
-        } else {
-            mCurrentTask.execute(url);
+    /*
+     * Fetches the next ad ahead of time. Prefetches are tracked separately from regular fetches, so
+     * a prefetch never makes a regular fetch look stale (or vice versa).
+     */
+    public void prefetchAdForUrl(String url) {
+        mPrefetchTaskTracker.newTaskStarted();
+        Log.i("MoPub", "Prefetching ad for task #" + mPrefetchTaskTracker.getCurrentTaskId());
+
+        if (mPrefetchTask != null) {
+            mPrefetchTask.abort();
         }
+
+        mPrefetchTask = AdFetchTaskFactory.create(mPrefetchTaskTracker, mAdViewController, mUserAgent, mTimeoutMilliseconds);
+        mPrefetchTask.setPrefetch(true);
+        executeTask(mPrefetchTask, url);
+    }
+
+    private void executeTask(AdFetchTask task, String url) {
+        AsyncTasks.safeExecuteOnExecutor(task, AdFetchExecutor.getExecutor(), url);
     }
 
     public void cancelFetch() {
         if (mCurrentTask != null) {
             Log.i("MoPub", "Canceling fetch ad for task #" + getCurrentTaskId());
-            mCurrentTask.cancel(true);
+            mCurrentTask.abort();
         }
     }
 
     void cleanup() {
         cancelFetch();
 
+        if (mPrefetchTask != null) {
+            mPrefetchTask.abort();
+        }
+
         mAdViewController = null;
         mUserAgent = "";
     }
@@ -1,22 +1,14 @@
 package com.mopub.mobileads;
 
 import android.app.Activity;
-import android.net.Uri;
 import android.util.Log;
-import com.mopub.mobileads.util.Strings;
-import org.apache.http.Header;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
 
-import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
 
 import static com.mopub.mobileads.AdFetcher.*;
-import static com.mopub.mobileads.util.HttpResponses.extractBooleanHeader;
-import static com.mopub.mobileads.util.HttpResponses.extractHeader;
 
 abstract class AdLoadTask {
     WeakReference<AdViewController> mWeakAdViewController;
@@ -33,25 +25,38 @@ abstract class AdLoadTask {
      */
     abstract void cleanup();
 
-    static AdLoadTask fromHttpResponse(HttpResponse response, AdViewController adViewController) throws IOException {
-        return new TaskExtractor(response, adViewController).extract();
+    static AdLoadTask fromAdResponse(AdResponse adResponse, AdViewController adViewController) {
+        return new TaskExtractor(adResponse, adViewController).extract();
+    }
+
+    /*
+     * Entries of paramsMap other than the custom event class name and data are added to the server
+     * extras unchanged. This is how the custom event adapters receive HTML and MRAID creatives.
+     */
+    static void addResponseBodyExtras(Map<String, String> serverExtras, Map<String, String> paramsMap) {
+        for (Map.Entry<String, String> entry : paramsMap.entrySet()) {
+            String key = entry.getKey();
+            if (!CUSTOM_EVENT_NAME_HEADER.equals(key) && !CUSTOM_EVENT_DATA_HEADER.equals(key)) {
+                serverExtras.put(key, entry.getValue());
+            }
+        }
     }
 
     private static class TaskExtractor {
-        private final HttpResponse response;
+        private final AdResponse adResponse;
         private final AdViewController adViewController;
         private String adType;
         private String adTypeCustomEventName;
         private String fullAdType;
 
-        TaskExtractor(HttpResponse response, AdViewController adViewController){
-            this.response = response;
+        TaskExtractor(AdResponse adResponse, AdViewController adViewController){
+            this.adResponse = adResponse;
             this.adViewController = adViewController;
         }
 
-        AdLoadTask extract() throws IOException {
-            adType = extractHeader(response, AD_TYPE_HEADER);
-            fullAdType = extractHeader(response, FULL_AD_TYPE_HEADER);
+        AdLoadTask extract() {
+            adType = adResponse.getAdType();
+            fullAdType = adResponse.getFullAdType();
 
             adTypeCustomEventName = AdTypeTranslator.getCustomEventNameForAdType(
                     adViewController.getMoPubView(), adType, fullAdType);
@@ -69,40 +74,43 @@ abstract class AdLoadTask {
             Log.i("MoPub", "Performing custom event.");
 
             // If applicable, try to invoke the new custom event system (which uses custom classes)
-            adTypeCustomEventName = extractHeader(response, CUSTOM_EVENT_NAME_HEADER);
+            adTypeCustomEventName = adResponse.getCustomEventName();
             if (adTypeCustomEventName != null) {
-                String customEventData = extractHeader(response, CUSTOM_EVENT_DATA_HEADER);
+                String customEventData = adResponse.getCustomEventData();
                 return createCustomEventAdLoadTask(customEventData);
             }
 
             // Otherwise, use the (deprecated) legacy custom event system for older clients
-            Header oldCustomEventHeader = response.getFirstHeader(CUSTOM_SELECTOR_HEADER);
-            return new AdLoadTask.LegacyCustomEventAdLoadTask(adViewController, oldCustomEventHeader);
+            return new AdLoadTask.LegacyCustomEventAdLoadTask(adViewController, adResponse.getCustomSelector());
         }
 
-        private AdLoadTask extractCustomEventAdLoadTaskFromResponseBody() throws IOException {
-            HttpEntity entity = response.getEntity();
-            String htmlData = entity != null ? Strings.fromStream(entity.getContent()) : "";
-            String redirectUrl = extractHeader(response, REDIRECT_URL_HEADER);
-            String clickthroughUrl = extractHeader(response, CLICKTHROUGH_URL_HEADER);
-            boolean scrollingEnabled = extractBooleanHeader(response, SCROLLABLE_HEADER, false);
-
-            Map<String, String> eventDataMap = new HashMap<String, String>();
-            eventDataMap.put(HTML_RESPONSE_BODY_KEY, Uri.encode(htmlData));
-            eventDataMap.put(SCROLLABLE_KEY, Boolean.toString(scrollingEnabled));
+        private AdLoadTask extractCustomEventAdLoadTaskFromResponseBody() {
+            String htmlData = adResponse.getResponseBody();
+            String redirectUrl = adResponse.getRedirectUrl();
+            String clickthroughUrl = adResponse.getClickthroughUrl();
+            boolean scrollingEnabled = adResponse.isScrollable();
+
+            /*
+             * The creative goes into the params map as is, rather than being encoded into the JSON
+             * custom event data, so it isn't copied, encoded and parsed again on its way to the
+             * custom event. The adapters pass these entries straight through as server extras.
+             */
+            Map<String, String> paramsMap = new HashMap<String, String>();
+            paramsMap.put(CUSTOM_EVENT_NAME_HEADER, adTypeCustomEventName);
+            paramsMap.put(HTML_RESPONSE_BODY_KEY, htmlData);
+            paramsMap.put(SCROLLABLE_KEY, Boolean.toString(scrollingEnabled));
             if (redirectUrl != null) {
-                eventDataMap.put(REDIRECT_URL_KEY, redirectUrl);
+                paramsMap.put(REDIRECT_URL_KEY, redirectUrl);
             }
             if (clickthroughUrl != null) {
-                eventDataMap.put(CLICKTHROUGH_URL_KEY, clickthroughUrl);
+                paramsMap.put(CLICKTHROUGH_URL_KEY, clickthroughUrl);
             }
 
-            String eventData = Utils.mapToJsonString(eventDataMap);
-            return createCustomEventAdLoadTask(eventData);
+            return new AdLoadTask.CustomEventAdLoadTask(adViewController, paramsMap);
         }
 
-        private AdLoadTask extractCustomEventAdLoadTaskFromNativeParams() throws IOException {
-            String eventData = extractHeader(response, AdFetcher.NATIVE_PARAMS_HEADER);
+        private AdLoadTask extractCustomEventAdLoadTaskFromNativeParams() {
+            String eventData = adResponse.getNativeParams();
 
             return createCustomEventAdLoadTask(eventData);
         }
@@ -165,11 +173,11 @@ abstract class AdLoadTask {
      */
     @Deprecated
     static class LegacyCustomEventAdLoadTask extends AdLoadTask {
-        private Header mHeader;
+        private String mMethodName;
 
-        public LegacyCustomEventAdLoadTask(AdViewController adViewController, Header header) {
+        public LegacyCustomEventAdLoadTask(AdViewController adViewController, String methodName) {
             super(adViewController);
-            mHeader = header;
+            mMethodName = methodName;
         }
 
         @Override
@@ -182,13 +190,13 @@ abstract class AdLoadTask {
             adViewController.setNotLoading();
             MoPubView mpv = adViewController.getMoPubView();
 
-            if (mHeader == null) {
+            if (mMethodName == null) {
                 Log.i("MoPub", "Couldn't call custom method because the server did not specify one.");
                 mpv.loadFailUrl(MoPubErrorCode.ADAPTER_NOT_FOUND);
                 return;
             }
 
-            String methodName = mHeader.getValue();
+            String methodName = mMethodName;
             Log.i("MoPub", "Trying to call method named " + methodName);
 
             Class<? extends Activity> c;
@@ -210,12 +218,12 @@ abstract class AdLoadTask {
 
         @Override
         void cleanup() {
-            mHeader = null;
+            mMethodName = null;
         }
 
         @Deprecated // for testing
-        Header getHeader() {
-            return mHeader;
+        String getMethodName() {
+            return mMethodName;
         }
     }
 }
@@ -0,0 +1,136 @@
+package com.mopub.mobileads;
+
+import com.mopub.mobileads.util.DateAndTime;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/*
+ * Holds ads that were fetched ahead of their refresh deadline, one per ad unit id and owning
+ * AdViewController, so views that share an ad unit (e.g. in a feed) don't displace each other's ads.
+ * An entry can only be taken by the AdViewController that prefetched it, and it expires after the
+ * response's X-Refreshtime (or MAXIMUM_TIME_TO_LIVE_MILLISECONDS, whichever is sooner).
+ */
+public class AdPrefetchCache {
+    static final long MAXIMUM_TIME_TO_LIVE_MILLISECONDS = 5 * 60 * 1000;
+    static final int MAXIMUM_ENTRIES = 8;
+
+    // Oldest first. Owners are only weakly held, so entries are matched by scanning the few there are.
+    private static final List<PrefetchedAd> sPrefetchedAds = new LinkedList<PrefetchedAd>();
+
+    static synchronized void put(String adUnitId, AdViewController owner, String url,
+            AdResponse adResponse, AdLoadTask adLoadTask) {
+        if (adUnitId == null || owner == null) {
+            adLoadTask.cleanup();
+            return;
+        }
+
+        long now = DateAndTime.now().getTime();
+        evictExpired(now);
+
+        PrefetchedAd replaced = removeEntry(adUnitId, owner);
+        if (replaced != null) {
+            replaced.mAdLoadTask.cleanup();
+        }
+
+        if (sPrefetchedAds.size() >= MAXIMUM_ENTRIES) {
+            sPrefetchedAds.remove(0).mAdLoadTask.cleanup();
+        }
+
+        sPrefetchedAds.add(new PrefetchedAd(adUnitId, owner, url, adResponse, adLoadTask,
+                now + getTimeToLive(adResponse)));
+    }
+
+    static synchronized PrefetchedAd take(String adUnitId, AdViewController owner) {
+        PrefetchedAd prefetchedAd = removeEntry(adUnitId, owner);
+        if (prefetchedAd == null) {
+            return null;
+        }
+
+        if (prefetchedAd.isExpired(DateAndTime.now().getTime())) {
+            prefetchedAd.mAdLoadTask.cleanup();
+            return null;
+        }
+        return prefetchedAd;
+    }
+
+    static synchronized void remove(AdViewController owner) {
+        Iterator<PrefetchedAd> iterator = sPrefetchedAds.iterator();
+        while (iterator.hasNext()) {
+            PrefetchedAd prefetchedAd = iterator.next();
+            AdViewController entryOwner = prefetchedAd.mOwner.get();
+            if (entryOwner == null || entryOwner == owner) {
+                prefetchedAd.mAdLoadTask.cleanup();
+                iterator.remove();
+            }
+        }
+    }
+
+    public static synchronized void clear() {
+        for (PrefetchedAd prefetchedAd : sPrefetchedAds) {
+            prefetchedAd.mAdLoadTask.cleanup();
+        }
+        sPrefetchedAds.clear();
+    }
+
+    static synchronized int size() {
+        return sPrefetchedAds.size();
+    }
+
+    private static PrefetchedAd removeEntry(String adUnitId, AdViewController owner) {
+        Iterator<PrefetchedAd> iterator = sPrefetchedAds.iterator();
+        while (iterator.hasNext()) {
+            PrefetchedAd prefetchedAd = iterator.next();
+            if (prefetchedAd.mAdUnitId.equals(adUnitId) && prefetchedAd.mOwner.get() == owner) {
+                iterator.remove();
+                return prefetchedAd;
+            }
+        }
+        return null;
+    }
+
+    private static void evictExpired(long now) {
+        Iterator<PrefetchedAd> iterator = sPrefetchedAds.iterator();
+        while (iterator.hasNext()) {
+            PrefetchedAd prefetchedAd = iterator.next();
+            if (prefetchedAd.isExpired(now) || prefetchedAd.mOwner.get() == null) {
+                prefetchedAd.mAdLoadTask.cleanup();
+                iterator.remove();
+            }
+        }
+    }
+
+    private static long getTimeToLive(AdResponse adResponse) {
+        if (!adResponse.hasRefreshTime()) {
+            return MAXIMUM_TIME_TO_LIVE_MILLISECONDS;
+        }
+
+        long refreshTimeMilliseconds = adResponse.getRefreshTimeSeconds() * 1000L;
+        return Math.min(refreshTimeMilliseconds, MAXIMUM_TIME_TO_LIVE_MILLISECONDS);
+    }
+
+    static class PrefetchedAd {
+        private final String mAdUnitId;
+        private final WeakReference<AdViewController> mOwner;
+        final String mUrl;
+        final AdResponse mAdResponse;
+        final AdLoadTask mAdLoadTask;
+        private final long mExpirationTime;
+
+        PrefetchedAd(String adUnitId, AdViewController owner, String url, AdResponse adResponse,
+                AdLoadTask adLoadTask, long expirationTime) {
+            mAdUnitId = adUnitId;
+            mOwner = new WeakReference<AdViewController>(owner);
+            mUrl = url;
+            mAdResponse = adResponse;
+            mAdLoadTask = adLoadTask;
+            mExpirationTime = expirationTime;
+        }
+
+        boolean isExpired(long now) {
+            return now >= mExpirationTime;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.mopub.mobileads;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.mopub.mobileads.AdFetcher.AD_TYPE_HEADER;
+import static com.mopub.mobileads.AdFetcher.CLICKTHROUGH_URL_HEADER;
+import static com.mopub.mobileads.AdFetcher.CUSTOM_EVENT_DATA_HEADER;
+import static com.mopub.mobileads.AdFetcher.CUSTOM_EVENT_NAME_HEADER;
+import static com.mopub.mobileads.AdFetcher.CUSTOM_SELECTOR_HEADER;
+import static com.mopub.mobileads.AdFetcher.FULL_AD_TYPE_HEADER;
+import static com.mopub.mobileads.AdFetcher.NATIVE_PARAMS_HEADER;
+import static com.mopub.mobileads.AdFetcher.REDIRECT_URL_HEADER;
+import static com.mopub.mobileads.AdFetcher.SCROLLABLE_HEADER;
+import static com.mopub.mobileads.AdFetcher.WARMUP_HEADER;
+import static com.mopub.mobileads.util.HttpResponses.asResponseString;
+
+/*
+ * Everything the SDK reads from an ad server response, parsed once. The headers are walked a single
+ * time (the first occurrence of each wins, as with getFirstHeader()), and the body is only read for
+ * ad types that carry their creative in it. Once built, an AdResponse no longer depends on the
+ * HttpResponse or its connection, so it can be cached and handed between threads.
+ */
+class AdResponse {
+    static final String NETWORK_TYPE_HEADER = "X-Networktype";
+    static final String FAIL_URL_HEADER = "X-Failurl";
+    static final String IMPRESSION_URL_HEADER = "X-Imptracker";
+    static final String WIDTH_HEADER = "X-Width";
+    static final String HEIGHT_HEADER = "X-Height";
+    static final String REFRESH_TIME_HEADER = "X-Refreshtime";
+
+    private static final int AD_TYPE = 0;
+    private static final int FULL_AD_TYPE = 1;
+    private static final int NETWORK_TYPE = 2;
+    private static final int WARMUP = 3;
+    private static final int REDIRECT_URL = 4;
+    private static final int CLICKTHROUGH_URL = 5;
+    private static final int FAIL_URL = 6;
+    private static final int IMPRESSION_URL = 7;
+    private static final int WIDTH = 8;
+    private static final int HEIGHT = 9;
+    private static final int REFRESH_TIME = 10;
+    private static final int SCROLLABLE = 11;
+    private static final int CUSTOM_EVENT_NAME = 12;
+    private static final int CUSTOM_EVENT_DATA = 13;
+    private static final int CUSTOM_SELECTOR = 14;
+    private static final int NATIVE_PARAMS = 15;
+    private static final int HEADER_COUNT = 16;
+
+    /* Header names are case-insensitive; looking them up this way needs no lower-cased copies. */
+    private static final Map<String, Integer> sHeaderIndices = new TreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        sHeaderIndices.put(AD_TYPE_HEADER, AD_TYPE);
+        sHeaderIndices.put(FULL_AD_TYPE_HEADER, FULL_AD_TYPE);
+        sHeaderIndices.put(NETWORK_TYPE_HEADER, NETWORK_TYPE);
+        sHeaderIndices.put(WARMUP_HEADER, WARMUP);
+        sHeaderIndices.put(REDIRECT_URL_HEADER, REDIRECT_URL);
+        sHeaderIndices.put(CLICKTHROUGH_URL_HEADER, CLICKTHROUGH_URL);
+        sHeaderIndices.put(FAIL_URL_HEADER, FAIL_URL);
+        sHeaderIndices.put(IMPRESSION_URL_HEADER, IMPRESSION_URL);
+        sHeaderIndices.put(WIDTH_HEADER, WIDTH);
+        sHeaderIndices.put(HEIGHT_HEADER, HEIGHT);
+        sHeaderIndices.put(REFRESH_TIME_HEADER, REFRESH_TIME);
+        sHeaderIndices.put(SCROLLABLE_HEADER, SCROLLABLE);
+        sHeaderIndices.put(CUSTOM_EVENT_NAME_HEADER, CUSTOM_EVENT_NAME);
+        sHeaderIndices.put(CUSTOM_EVENT_DATA_HEADER, CUSTOM_EVENT_DATA);
+        sHeaderIndices.put(CUSTOM_SELECTOR_HEADER, CUSTOM_SELECTOR);
+        sHeaderIndices.put(NATIVE_PARAMS_HEADER, NATIVE_PARAMS);
+    }
+
+    private final String mAdType;
+    private final String mFullAdType;
+    private final String mNetworkType;
+    private final boolean mIsWarmingUp;
+    private final String mRedirectUrl;
+    private final String mClickthroughUrl;
+    private final String mFailUrl;
+    private final String mImpressionUrl;
+    private final int mWidth;
+    private final int mHeight;
+    private final boolean mHasRefreshTime;
+    private final int mRefreshTimeSeconds;
+    private final boolean mIsScrollable;
+    private final String mCustomEventName;
+    private final String mCustomEventData;
+    private final String mCustomSelector;
+    private final String mNativeParams;
+    private final String mResponseBody;
+
+    /*
+     * Throws NumberFormatException if a numeric header is malformed.
+     */
+    static AdResponse fromHttpResponse(HttpResponse response) throws IOException {
+        return fromHttpResponse(response, null);
+    }
+
+    /*
+     * bytesRead, if not null, is kept up to date with the body bytes read so far.
+     */
+    static AdResponse fromHttpResponse(HttpResponse response, AtomicLong bytesRead) throws IOException {
+        String[] values = new String[HEADER_COUNT];
+
+        for (Header header : response.getAllHeaders()) {
+            Integer index = sHeaderIndices.get(header.getName());
+            if (index != null && values[index] == null) {
+                values[index] = header.getValue();
+            }
+        }
+
+        String adType = values[AD_TYPE];
+        String responseBody = ("html".equals(adType) || "mraid".equals(adType))
+                ? asResponseString(response, bytesRead)
+                : null;
+
+        return new AdResponse(values, responseBody);
+    }
+
+    private AdResponse(String[] values, String responseBody) {
+        mAdType = values[AD_TYPE];
+        mFullAdType = values[FULL_AD_TYPE];
+        mNetworkType = values[NETWORK_TYPE];
+        mIsWarmingUp = "1".equals(values[WARMUP]);
+        mRedirectUrl = values[REDIRECT_URL];
+        mClickthroughUrl = values[CLICKTHROUGH_URL];
+        mFailUrl = values[FAIL_URL];
+        mImpressionUrl = values[IMPRESSION_URL];
+        mWidth = parseInt(values[WIDTH]);
+        mHeight = parseInt(values[HEIGHT]);
+        mHasRefreshTime = values[REFRESH_TIME] != null;
+        mRefreshTimeSeconds = parseInt(values[REFRESH_TIME]);
+        mIsScrollable = "1".equals(values[SCROLLABLE]);
+        mCustomEventName = values[CUSTOM_EVENT_NAME];
+        mCustomEventData = values[CUSTOM_EVENT_DATA];
+        mCustomSelector = values[CUSTOM_SELECTOR];
+        mNativeParams = values[NATIVE_PARAMS];
+        mResponseBody = responseBody;
+    }
+
+    String getAdType() {
+        return mAdType;
+    }
+
+    String getFullAdType() {
+        return mFullAdType;
+    }
+
+    String getNetworkType() {
+        return mNetworkType;
+    }
+
+    boolean isWarmingUp() {
+        return mIsWarmingUp;
+    }
+
+    String getRedirectUrl() {
+        return mRedirectUrl;
+    }
+
+    String getClickthroughUrl() {
+        return mClickthroughUrl;
+    }
+
+    String getFailUrl() {
+        return mFailUrl;
+    }
+
+    String getImpressionUrl() {
+        return mImpressionUrl;
+    }
+
+    int getWidth() {
+        return mWidth;
+    }
+
+    int getHeight() {
+        return mHeight;
+    }
+
+    boolean hasRefreshTime() {
+        return mHasRefreshTime;
+    }
+
+    int getRefreshTimeSeconds() {
+        return mRefreshTimeSeconds;
+    }
+
+    boolean isScrollable() {
+        return mIsScrollable;
+    }
+
+    String getCustomEventName() {
+        return mCustomEventName;
+    }
+
+    String getCustomEventData() {
+        return mCustomEventData;
+    }
+
+    String getCustomSelector() {
+        return mCustomSelector;
+    }
+
+    String getNativeParams() {
+        return mNativeParams;
+    }
+
+    /*
+     * The creative of an html or mraid ad ("" if the response had no body); null for other ad types.
+     */
+    String getResponseBody() {
+        return mResponseBody;
+    }
+
+    private static int parseInt(String value) {
+        return (value != null) ? Integer.parseInt(value.trim()) : 0;
+    }
+}
@@ -3,16 +3,12 @@ package com.mopub.mobileads;
 import android.content.Context;
 import android.content.res.Configuration;
 import android.location.Location;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.telephony.TelephonyManager;
 import com.mopub.mobileads.util.DateAndTime;
 
 import java.lang.reflect.Method;
 import java.text.SimpleDateFormat;
 
-import static android.Manifest.permission.ACCESS_NETWORK_STATE;
-import static android.content.pm.PackageManager.PERMISSION_GRANTED;
 import static android.net.ConnectivityManager.*;
 import static com.mopub.mobileads.AdUrlGenerator.MoPubNetworkType.ETHERNET;
 import static com.mopub.mobileads.AdUrlGenerator.MoPubNetworkType.MOBILE;
@@ -27,10 +23,13 @@ public class AdUrlGenerator extends BaseUrlGenerator {
     public static final int UNKNOWN_NETWORK_TYPE = 0x00000008; // Equivalent to TYPE_DUMMY introduced in API level 14. Will generate the "unknown" code
     private Context mContext;
     private TelephonyManager mTelephonyManager;
-    private ConnectivityManager mConnectivityManager;
+    private ConnectivityMonitor mConnectivityMonitor;
     private String mAdUnitId;
     private String mKeywords;
     private Location mLocation;
+    private SimpleDateFormat mTimeZoneFormat;
+
+    private static DeviceInfo sDeviceInfo;
 
     public static enum MoPubNetworkType {
         UNKNOWN,
@@ -47,7 +46,7 @@ public class AdUrlGenerator extends BaseUrlGenerator {
     public AdUrlGenerator(Context context) {
         mContext = context;
         mTelephonyManager = (TelephonyManager) mContext.getSystemService(Context.TELEPHONY_SERVICE);
-        mConnectivityManager = (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        mConnectivityMonitor = ConnectivityMonitor.getInstance(context);
     }
 
     public AdUrlGenerator withAdUnitId(String adUnitId) {
@@ -65,8 +64,15 @@ public class AdUrlGenerator extends BaseUrlGenerator {
         return this;
     }
 
+    /*
+     * Runs before every ad request. Everything that can't change while the process is alive comes
+     * from the shared DeviceInfo; only the keywords, location, time zone, orientation, carrier and
+     * network type are read each time.
+     */
     @Override
     public String generateUrlString(String serverHostname) {
+        DeviceInfo deviceInfo = getDeviceInfo();
+
         initUrlString(serverHostname, MoPubView.AD_HANDLER);
 
         setApiVersion("6");
@@ -75,35 +81,56 @@ public class AdUrlGenerator extends BaseUrlGenerator {
 
         setSdkVersion(MoPub.SDK_VERSION);
 
-        setUdid(getUdidFromContext(mContext));
+        setUdidDigest(deviceInfo.mUdidDigest);
 
-        String keywords = AdUrlGenerator.addKeyword(mKeywords, AdUrlGenerator.getFacebookKeyword(mContext));
+        String keywords = AdUrlGenerator.addKeyword(mKeywords, deviceInfo.mFacebookKeyword);
         setKeywords(keywords);
 
         setLocation(mLocation);
 
-        setTimezone(AdUrlGenerator.getTimeZoneOffsetString());
+        setTimezone(getTimeZoneOffsetString());
 
         setOrientation(mContext.getResources().getConfiguration().orientation);
 
-        setDensity(mContext.getResources().getDisplayMetrics().density);
+        setDensity(deviceInfo.mDensity);
 
-        setMraidFlag(detectIsMraidSupported());
+        setMraidFlag(deviceInfo.mIsMraidSupported);
 
-        String networkOperator = getNetworkOperator();
+        String networkOperator = getNetworkOperator(deviceInfo.mPhoneType);
         setMccCode(networkOperator);
         setMncCode(networkOperator);
 
         setIsoCountryCode(mTelephonyManager.getNetworkCountryIso());
         setCarrierName(mTelephonyManager.getNetworkOperatorName());
 
-        setNetworkType(getActiveNetworkType());
+        setNetworkType(mConnectivityMonitor.getNetworkType());
 
-        setAppVersion(getAppVersionFromContext(mContext));
+        setAppVersion(deviceInfo.mAppVersion);
 
         return getFinalUrlString();
     }
 
+    @Deprecated // for testing
+    public static synchronized void clearDeviceInfo() {
+        sDeviceInfo = null;
+    }
+
+    private DeviceInfo getDeviceInfo() {
+        synchronized (AdUrlGenerator.class) {
+            if (sDeviceInfo == null) {
+                String udid = getUdidFromContext(mContext);
+                sDeviceInfo = new DeviceInfo(
+                        (udid == null) ? "" : Utils.sha1(udid),
+                        getAppVersionFromContext(mContext),
+                        detectIsMraidSupported(),
+                        AdUrlGenerator.getFacebookKeyword(mContext),
+                        "" + mContext.getResources().getDisplayMetrics().density,
+                        mTelephonyManager.getPhoneType());
+            }
+            return sDeviceInfo;
+        }
+    }
+
     private void setAdUnitId(String adUnitId) {
         addParam("id", adUnitId);
     }
@@ -139,8 +166,8 @@ public class AdUrlGenerator extends BaseUrlGenerator {
         addParam("o", orString);
     }
 
-    private void setDensity(float density) {
-        addParam("sc_a", "" + density);
+    private void setDensity(String density) {
+        addParam("sc_a", density);
     }
 
     private void setMraidFlag(boolean mraid) {
@@ -199,9 +226,9 @@ public class AdUrlGenerator extends BaseUrlGenerator {
         return mraid;
     }
 
-    private String getNetworkOperator() {
+    private String getNetworkOperator(int phoneType) {
         String networkOperator = mTelephonyManager.getNetworkOperator();
-        if (mTelephonyManager.getPhoneType() == TelephonyManager.PHONE_TYPE_CDMA &&
+        if (phoneType == TelephonyManager.PHONE_TYPE_CDMA &&
                 mTelephonyManager.getSimState() == TelephonyManager.SIM_STATE_READY) {
             networkOperator = mTelephonyManager.getSimOperator();
         }
@@ -212,10 +239,12 @@ public class AdUrlGenerator extends BaseUrlGenerator {
         return Math.min(3, networkOperator.length());
     }
 
-    private static String getTimeZoneOffsetString() {
-        SimpleDateFormat format = new SimpleDateFormat("Z");
-        format.setTimeZone(DateAndTime.localTimeZone());
-        return format.format(DateAndTime.now());
+    private String getTimeZoneOffsetString() {
+        if (mTimeZoneFormat == null) {
+            mTimeZoneFormat = new SimpleDateFormat("Z");
+        }
+        mTimeZoneFormat.setTimeZone(DateAndTime.localTimeZone());
+        return mTimeZoneFormat.format(DateAndTime.now());
     }
 
     private static String getFacebookKeyword(Context context) {
@@ -229,14 +258,6 @@ public class AdUrlGenerator extends BaseUrlGenerator {
         }
     }
 
-    private int getActiveNetworkType() {
-        if (mContext.checkCallingOrSelfPermission(ACCESS_NETWORK_STATE) == PERMISSION_GRANTED) {
-            NetworkInfo activeNetworkInfo = mConnectivityManager.getActiveNetworkInfo();
-            return activeNetworkInfo != null ? activeNetworkInfo.getType() : UNKNOWN_NETWORK_TYPE;
-        }
-        return UNKNOWN_NETWORK_TYPE;
-    }
-
     private static String addKeyword(String keywords, String addition) {
         if (addition == null || addition.length() == 0) {
             return keywords;
@@ -246,4 +267,25 @@ public class AdUrlGenerator extends BaseUrlGenerator {
             return keywords + "," + addition;
         }
     }
+
+    /*
+     * Request parameters that stay the same for the life of the process.
+     */
+    private static class DeviceInfo {
+        final String mUdidDigest;
+        final String mAppVersion;
+        final boolean mIsMraidSupported;
+        final String mFacebookKeyword;
+        final String mDensity;
+        final int mPhoneType;
+
+        DeviceInfo(String udidDigest, String appVersion, boolean isMraidSupported, String facebookKeyword, String density, int phoneType) {
+            mUdidDigest = udidDigest;
+            mAppVersion = appVersion;
+            mIsMraidSupported = isMraidSupported;
+            mFacebookKeyword = facebookKeyword;
+            mDensity = density;
+            mPhoneType = phoneType;
+        }
+    }
 }
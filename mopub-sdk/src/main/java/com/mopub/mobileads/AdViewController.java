@@ -33,16 +33,12 @@
 package com.mopub.mobileads;
 
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.location.Location;
 import android.location.LocationManager;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.os.Handler;
 import android.util.Log;
 import android.view.Gravity;
 import android.view.View;
-import android.webkit.WebView;
 import android.widget.FrameLayout;
 import com.mopub.mobileads.MoPubView.LocationAwareness;
 import com.mopub.mobileads.factories.AdFetcherFactory;
@@ -59,14 +55,11 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.WeakHashMap;
 
-import static android.Manifest.permission.ACCESS_NETWORK_STATE;
-import static com.mopub.mobileads.AdFetcher.CLICKTHROUGH_URL_HEADER;
-import static com.mopub.mobileads.AdFetcher.REDIRECT_URL_HEADER;
-import static com.mopub.mobileads.util.HttpResponses.extractHeader;
-import static com.mopub.mobileads.util.HttpResponses.extractIntHeader;
+import static com.mopub.mobileads.util.HttpResponses.consumeContent;
 
 public class AdViewController {
     private static final int MINIMUM_REFRESH_TIME_MILLISECONDS = 10000;
+    static final int PREFETCH_LEAD_TIME_MILLISECONDS = 5000;
     private static final FrameLayout.LayoutParams WRAP_AND_CENTER_LAYOUT_PARAMS =
             new FrameLayout.LayoutParams(
                     FrameLayout.LayoutParams.WRAP_CONTENT,
@@ -83,6 +76,8 @@ public class AdViewController {
     private AdFetcher mAdFetcher;
 
     private final Runnable mRefreshRunnable;
+    private final Runnable mPrefetchRunnable;
+    private boolean mPrefetchEnabled;
     private String mRedirectUrl;
     private String mClickthroughUrl;
     private String mImpressionUrl;
@@ -97,6 +92,17 @@ public class AdViewController {
     private String mResponseString;
     private boolean mIsDestroyed;
     private Handler mHandler;
+    private final RefreshScheduler mRefreshScheduler;
+    private final ConnectivityMonitor mConnectivityMonitor;
+    private boolean mIsWaitingForConnectivity;
+    private final ConnectivityMonitor.ConnectivityListener mConnectivityListener =
+            new ConnectivityMonitor.ConnectivityListener() {
+                public void onConnected() {
+                    Log.d("MoPub", "Network connectivity is back, refreshing the ad now.");
+                    stopListeningForConnectivity();
+                    mRefreshScheduler.expedite();
+                }
+            };
 
     private boolean mIsLoading;
     private String mFailUrl;
@@ -123,17 +129,25 @@ public class AdViewController {
                 loadAd();
             }
         };
+        mPrefetchRunnable = new Runnable() {
+            public void run() {
+                prefetchAd();
+            }
+        };
 
         /* Store user agent string at beginning to prevent NPE during background
          * thread operations.
          */
-        mUserAgent = new WebView(context).getSettings().getUserAgentString();
+        mUserAgent = UserAgentProvider.getUserAgent(context);
         mAdFetcher = AdFetcherFactory.create(this, mUserAgent);
 
         HtmlBannerWebViewFactory.initialize(context);
         HtmlInterstitialWebViewFactory.initialize(context);
 
+        mConnectivityMonitor = ConnectivityMonitor.getInstance(context);
         mHandler = new Handler();
+        mRefreshScheduler = new RefreshScheduler(mHandler, mRefreshRunnable, mPrefetchRunnable,
+                PREFETCH_LEAD_TIME_MILLISECONDS);
     }
 
     public MoPubView getMoPubView() {
@@ -147,18 +161,114 @@ public class AdViewController {
             return;
         }
 
-        if (!isNetworkAvailable()) {
+        prepareAdRequest(false);
+    }
+
+    void prefetchAd() {
+        if (!mPrefetchEnabled || mAdUnitId == null || mAdFetcher == null) {
+            return;
+        }
+
+        prepareAdRequest(true);
+    }
+
+    /*
+     * The connectivity check, location lookup and URL assembly all run on the ad fetch executor.
+     * Everything they need from this controller and its MoPubView is read here, on the UI thread,
+     * and the result is handed back to the UI thread before any of this controller's state changes.
+     */
+    private void prepareAdRequest(final boolean isPrefetch) {
+        if (mIsDestroyed) return;
+
+        final String adUnitId = mAdUnitId;
+        final String keywords = mKeywords;
+        final Location knownLocation = mLocation;
+        final LocationAwareness locationAwareness = getMoPubView().getLocationAwareness();
+        final int locationPrecision = getMoPubView().getLocationPrecision();
+        final String serverHostname = getServerHostname();
+
+        AdFetchExecutor.getExecutor().execute(new Runnable() {
+            public void run() {
+                final boolean isNetworkAvailable = mConnectivityMonitor.isConnected();
+                String adUrl = null;
+                Location location = knownLocation;
+
+                if (isNetworkAvailable) {
+                    if (location == null) {
+                        location = getLastKnownLocation(locationAwareness, locationPrecision);
+                    }
+                    adUrl = generateAdUrl(adUnitId, keywords, location, serverHostname);
+                }
+
+                final String preparedAdUrl = adUrl;
+                final Location preparedLocation = location;
+                mHandler.post(new Runnable() {
+                    public void run() {
+                        if (mIsDestroyed) return;
+
+                        if (mLocation == null) mLocation = preparedLocation;
+
+                        if (isPrefetch) {
+                            onPrefetchRequestPrepared(isNetworkAvailable, preparedAdUrl);
+                        } else {
+                            onAdRequestPrepared(isNetworkAvailable, preparedAdUrl);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void onAdRequestPrepared(boolean isNetworkAvailable, String adUrl) {
+        if (!isNetworkAvailable) {
             Log.d("MoPub", "Can't load an ad because there is no network connectivity.");
+            mRefreshScheduler.onFailure();
             scheduleRefreshTimerIfEnabled();
+            listenForConnectivity();
             return;
         }
 
-        if (mLocation == null) mLocation = getLastKnownLocation();
+        stopListeningForConnectivity();
+
+        // We're back online, so retry any beacons that failed while we were offline.
+        TrackingJournal.getInstance(mContext).flush();
+
+        if (loadPrefetchedAd()) return;
 
-        String adUrl = generateAdUrl();
         loadNonJavascript(adUrl);
     }
 
+    private void onPrefetchRequestPrepared(boolean isNetworkAvailable, String adUrl) {
+        if (isNetworkAvailable && mAdFetcher != null) {
+            mAdFetcher.prefetchAdForUrl(adUrl);
+        }
+    }
+
+    /*
+     * Shows an ad prefetched for this controller, if one is still fresh. The prefetched response's
+     * headers are applied exactly as if the ad had just been fetched.
+     */
+    private boolean loadPrefetchedAd() {
+        if (!mPrefetchEnabled || mIsLoading) {
+            return false;
+        }
+
+        AdPrefetchCache.PrefetchedAd prefetchedAd = AdPrefetchCache.take(mAdUnitId, this);
+        if (prefetchedAd == null) {
+            return false;
+        }
+
+        Log.d("MoPub", "Loading prefetched ad for " + mAdUnitId + ".");
+        mUrl = prefetchedAd.mUrl;
+        mFailUrl = null;
+        mIsLoading = true;
+
+        configureUsingAdResponse(prefetchedAd.mAdResponse);
+        prefetchedAd.mAdLoadTask.execute();
+        prefetchedAd.mAdLoadTask.cleanup();
+        return true;
+    }
+
     void loadNonJavascript(String url) {
         if (url == null) return;
 
@@ -248,6 +358,10 @@ public class AdViewController {
         mClickthroughUrl = url;
     }
 
+    String getImpressionUrl() {
+        return mImpressionUrl;
+    }
+
     public String getRedirectUrl() {
         return mRedirectUrl;
     }
@@ -273,6 +387,19 @@ public class AdViewController {
         return mTesting;
     }
 
+    public boolean getPrefetchEnabled() {
+        return mPrefetchEnabled;
+    }
+
+    public void setPrefetchEnabled(boolean enabled) {
+        mPrefetchEnabled = enabled;
+
+        if (!mPrefetchEnabled) {
+            mHandler.removeCallbacks(mPrefetchRunnable);
+            AdPrefetchCache.remove(this);
+        }
+    }
+
     public void setTesting(boolean testing) {
         mTesting = testing;
     }
@@ -291,6 +418,7 @@ public class AdViewController {
 
         setAutorefreshEnabled(false);
         cancelRefreshTimer();
+        stopListeningForConnectivity();
 
         // WebView subclasses are not garbage-collected in a timely fashion on Froyo and below,
         // thanks to some persistent references in WebViewCore. We manually release some resources
@@ -299,6 +427,8 @@ public class AdViewController {
         mAdFetcher.cleanup();
         mAdFetcher = null;
 
+        AdPrefetchCache.remove(this);
+
         HtmlBannerWebViewFactory.cleanup();
         HtmlInterstitialWebViewFactory.cleanup();
 
@@ -312,28 +442,28 @@ public class AdViewController {
         mIsDestroyed = true;
     }
 
-    void configureUsingHttpResponse(final HttpResponse response) {
+    void configureUsingAdResponse(final AdResponse adResponse) {
         // Print the ad network type to the console.
-        String networkType = extractHeader(response, "X-Networktype");
+        String networkType = adResponse.getNetworkType();
         if (networkType != null) Log.i("MoPub", "Fetching ad network type: " + networkType);
 
         // Set the redirect URL prefix: navigating to any matching URLs will send us to the browser.
-        mRedirectUrl = extractHeader(response, REDIRECT_URL_HEADER);
+        mRedirectUrl = adResponse.getRedirectUrl();
         // Set the URL that is prepended to links for click-tracking purposes.
-        mClickthroughUrl = extractHeader(response, CLICKTHROUGH_URL_HEADER);
+        mClickthroughUrl = adResponse.getClickthroughUrl();
         // Set the fall-back URL to be used if the current request fails.
-        setFailUrl(extractHeader(response, "X-Failurl"));
+        setFailUrl(adResponse.getFailUrl());
         // Set the URL to be used for impression tracking.
-        mImpressionUrl = extractHeader(response, "X-Imptracker");
+        mImpressionUrl = adResponse.getImpressionUrl();
         // Set the width and height.
-        mWidth = extractIntHeader(response, "X-Width");
-        mHeight = extractIntHeader(response, "X-Height");
+        mWidth = adResponse.getWidth();
+        mHeight = adResponse.getHeight();
 
         // Set the auto-refresh time. A timer will be scheduled upon ad success or failure.
-        if (!response.containsHeader("X-Refreshtime")) {
+        if (!adResponse.hasRefreshTime()) {
             mRefreshTimeMilliseconds = 0;
         } else {
-            mRefreshTimeMilliseconds = extractIntHeader(response, "X-Refreshtime") * 1000;
+            mRefreshTimeMilliseconds = adResponse.getRefreshTimeSeconds() * 1000;
             mRefreshTimeMilliseconds = Math.max(
                     mRefreshTimeMilliseconds,
                     MINIMUM_REFRESH_TIME_MILLISECONDS);
@@ -344,47 +474,64 @@ public class AdViewController {
         return mRefreshTimeMilliseconds;
     }
 
-    void setRefreshTimeMilliseconds(int refreshTimeMilliseconds) {
-        mRefreshTimeMilliseconds = refreshTimeMilliseconds;
+    void trackImpression() {
+        trackImpression(mImpressionUrl);
     }
 
-    void trackImpression() {
-        new Thread(new Runnable() {
-            public void run () {
-                if (mImpressionUrl == null) return;
+    void trackImpression(final String impressionUrl) {
+        if (impressionUrl == null) return;
 
+        Runnable beacon = new Runnable() {
+            public void run () {
                 DefaultHttpClient httpClient = HttpClientFactory.create();
+                HttpResponse response = null;
                 try {
-                    HttpGet httpget = new HttpGet(mImpressionUrl);
+                    HttpGet httpget = new HttpGet(impressionUrl);
                     httpget.addHeader("User-Agent", mUserAgent);
-                    httpClient.execute(httpget);
+                    response = httpClient.execute(httpget);
                 } catch (Exception e) {
-                    Log.d("MoPub", "Impression tracking failed : " + mImpressionUrl, e);
+                    Log.d("MoPub", "Impression tracking failed : " + impressionUrl, e);
+                    TrackingJournal.getInstance(mContext).add(impressionUrl, mUserAgent);
                 } finally {
-                    httpClient.getConnectionManager().shutdown();
+                    consumeContent(response);
                 }
             }
-        }).start();
+        };
+
+        if (!TrackingDispatcher.dispatch(beacon)) {
+            // No room in the tracking queue; journal the beacon so it is retried rather than lost.
+            TrackingJournal.getInstance(mContext).addInBackground(impressionUrl, mUserAgent);
+        }
     }
 
     void registerClick() {
-        new Thread(new Runnable() {
-            public void run () {
-                if (mClickthroughUrl == null) return;
+        registerClick(mClickthroughUrl);
+    }
+
+    void registerClick(final String clickthroughUrl) {
+        if (clickthroughUrl == null) return;
 
+        Runnable beacon = new Runnable() {
+            public void run () {
                 DefaultHttpClient httpClient = HttpClientFactory.create();
+                HttpResponse response = null;
                 try {
-                    Log.d("MoPub", "Tracking click for: " + mClickthroughUrl);
-                    HttpGet httpget = new HttpGet(mClickthroughUrl);
+                    Log.d("MoPub", "Tracking click for: " + clickthroughUrl);
+                    HttpGet httpget = new HttpGet(clickthroughUrl);
                     httpget.addHeader("User-Agent", mUserAgent);
-                    httpClient.execute(httpget);
+                    response = httpClient.execute(httpget);
                 } catch (Exception e) {
-                    Log.d("MoPub", "Click tracking failed: " + mClickthroughUrl, e);
+                    Log.d("MoPub", "Click tracking failed: " + clickthroughUrl, e);
+                    TrackingJournal.getInstance(mContext).add(clickthroughUrl, mUserAgent);
                 } finally {
-                    httpClient.getConnectionManager().shutdown();
+                    consumeContent(response);
                 }
             }
-        }).start();
+        };
+
+        if (!TrackingDispatcher.dispatch(beacon)) {
+            TrackingJournal.getInstance(mContext).addInBackground(clickthroughUrl, mUserAgent);
+        }
     }
 
     void fetchAd(String mUrl) {
@@ -399,16 +546,34 @@ public class AdViewController {
     }
 
     String generateAdUrl() {
-        return mUrlGenerator
-                .withAdUnitId(mAdUnitId)
-                .withKeywords(mKeywords)
-                .withLocation(mLocation)
-                .generateUrlString(getServerHostname());
+        return generateAdUrl(mAdUnitId, mKeywords, mLocation, getServerHostname());
+    }
+
+    /*
+     * Called from the ad fetch executor as well as the UI thread; the generator is only ever used
+     * by one thread at a time.
+     */
+    private String generateAdUrl(String adUnitId, String keywords, Location location, String serverHostname) {
+        synchronized (mUrlGenerator) {
+            return mUrlGenerator
+                    .withAdUnitId(adUnitId)
+                    .withKeywords(keywords)
+                    .withLocation(location)
+                    .generateUrlString(serverHostname);
+        }
+    }
+
+    void adDidLoad() {
+        mRefreshScheduler.onSuccess();
+        scheduleRefreshTimerIfEnabled();
     }
 
     void adDidFail(MoPubErrorCode errorCode) {
         Log.i("MoPub", "Ad failed to load.");
         setNotLoading();
+        if (errorCode != MoPubErrorCode.CANCELLED) {
+            mRefreshScheduler.onFailure();
+        }
         scheduleRefreshTimerIfEnabled();
         getMoPubView().adFailed(errorCode);
     }
@@ -416,9 +581,24 @@ public class AdViewController {
     void scheduleRefreshTimerIfEnabled() {
         cancelRefreshTimer();
         if (mAutorefreshEnabled && mRefreshTimeMilliseconds > 0) {
-            mHandler.postDelayed(mRefreshRunnable, mRefreshTimeMilliseconds);
+            mRefreshScheduler.schedule(mRefreshTimeMilliseconds, mPrefetchEnabled);
         }
+    }
+
+    /*
+     * Called while the ad can't be seen (its window is hidden or the screen is off). Unlike turning
+     * autorefresh off, this keeps the pending refresh, which resumeRefresh() picks up again.
+     */
+    void pauseRefresh() {
+        mRefreshScheduler.pause();
+    }
+
+    void resumeRefresh() {
+        mRefreshScheduler.resume();
+    }
 
+    RefreshScheduler getRefreshScheduler() {
+        return mRefreshScheduler;
     }
 
     void setLocalExtras(Map<String, Object> localExtras) {
@@ -434,23 +614,29 @@ public class AdViewController {
     }
 
     private void cancelRefreshTimer() {
-        mHandler.removeCallbacks(mRefreshRunnable);
+        mRefreshScheduler.cancel();
     }
 
-    private String getServerHostname() {
-        return mTesting ? MoPubView.HOST_FOR_TESTING : MoPubView.HOST;
+    /*
+     * While offline, waits for the network to come back and then refreshes right away instead of
+     * at the end of the (backed-off) refresh interval.
+     */
+    private void listenForConnectivity() {
+        if (!mIsWaitingForConnectivity) {
+            mIsWaitingForConnectivity = true;
+            mConnectivityMonitor.addListener(mConnectivityListener);
+        }
     }
 
-    private boolean isNetworkAvailable() {
-        // If we don't have network state access, just assume the network is up.
-        int result = mContext.checkCallingPermission(ACCESS_NETWORK_STATE);
-        if (result == PackageManager.PERMISSION_DENIED) return true;
+    private void stopListeningForConnectivity() {
+        if (mIsWaitingForConnectivity) {
+            mIsWaitingForConnectivity = false;
+            mConnectivityMonitor.removeListener(mConnectivityListener);
+        }
+    }
 
-        // Otherwise, perform the connectivity check.
-        ConnectivityManager cm
-                = (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo networkInfo = cm.getActiveNetworkInfo();
-        return networkInfo != null && networkInfo.isConnected();
+    private String getServerHostname() {
+        return mTesting ? MoPubView.HOST_FOR_TESTING : MoPubView.HOST;
     }
 
     void setAdContentView(final View view) {
@@ -484,9 +670,7 @@ public class AdViewController {
      * - The location providers don't exist
      * - Location awareness is disabled in the parent MoPubView
      */
-    private Location getLastKnownLocation() {
-        LocationAwareness locationAwareness = getMoPubView().getLocationAwareness();
-        int locationPrecision = getMoPubView().getLocationPrecision();
+    private Location getLastKnownLocation(LocationAwareness locationAwareness, int locationPrecision) {
         Location result;
 
         if (locationAwareness == LocationAwareness.LOCATION_AWARENESS_DISABLED) {
@@ -552,7 +736,7 @@ public class AdViewController {
     public void customEventDidLoadAd() {
         setNotLoading();
         trackImpression();
-        scheduleRefreshTimerIfEnabled();
+        adDidLoad();
     }
 
     @Deprecated
@@ -5,11 +5,14 @@ import android.graphics.Color;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
+import android.webkit.WebViewClient;
 
 import static com.mopub.mobileads.util.VersionCode.ICE_CREAM_SANDWICH;
 import static com.mopub.mobileads.util.VersionCode.currentApiLevel;
 
 public class BaseHtmlWebView extends BaseWebView {
+    static final String BLANK_PAGE_URL = "about:blank";
+
     public BaseHtmlWebView(Context context) {
         super(context);
 
@@ -23,9 +26,23 @@ public class BaseHtmlWebView extends BaseWebView {
     }
 
     public void init(boolean isScrollable) {
+        // A recycled WebView may still list the blank page it was reset to.
+        clearHistory();
         setWebViewScrollingEnabled(isScrollable);
     }
 
+    /*
+     * Returns the WebView to the state it was constructed in, so that it can show another ad: the
+     * previous ad's client and touch listener are dropped and its content is replaced by a blank page.
+     */
+    public void reset() {
+        stopLoading();
+        setWebViewClient(new WebViewClient());
+        setWebViewScrollingEnabled(true);
+        super.loadUrl(BLANK_PAGE_URL);
+        clearHistory();
+    }
+
     @Override
     public void loadUrl(String url) {
         if (url == null) return;
@@ -17,6 +17,7 @@ import com.mopub.mobileads.util.Dips;
 
 import static android.view.View.INVISIBLE;
 import static android.view.View.VISIBLE;
+import static com.mopub.mobileads.InterstitialCreativeStore.CREATIVE_TOKEN_KEY;
 import static com.mopub.mobileads.resource.Drawables.INTERSTITIAL_CLOSE_BUTTON_NORMAL;
 import static com.mopub.mobileads.resource.Drawables.INTERSTITIAL_CLOSE_BUTTON_PRESSED;
 
@@ -33,6 +34,7 @@ public abstract class BaseInterstitialActivity extends Activity {
     private RelativeLayout mLayout;
     private int mButtonSize;
     private int mButtonPadding;
+    private String mCreative;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
@@ -62,6 +64,27 @@ public abstract class BaseInterstitialActivity extends Activity {
 
     public abstract View getAdView();
 
+    @Override
+    public Object onRetainNonConfigurationInstance() {
+        return mCreative;
+    }
+
+    /*
+     * Takes the creative out of InterstitialCreativeStore, so that it is freed once this activity is
+     * done with it. It is kept across configuration changes, since the recreated activity can no
+     * longer find it in the store. Returns null if the creative is gone, e.g. because the process was
+     * restarted since the ad was shown.
+     */
+    protected String takeCreative() {
+        if (mCreative == null) {
+            mCreative = (String) getLastNonConfigurationInstance();
+        }
+        if (mCreative == null) {
+            mCreative = InterstitialCreativeStore.take(getIntent().getStringExtra(CREATIVE_TOKEN_KEY));
+        }
+        return mCreative;
+    }
+
     protected void showInterstitialCloseButton() {
         mCloseButton.setVisibility(VISIBLE);
     }
@@ -2,19 +2,23 @@ package com.mopub.mobileads;
 
 import android.content.Context;
 import android.content.pm.PackageInfo;
-import android.net.Uri;
 import android.provider.Settings;
+import com.mopub.mobileads.util.Uris;
 
 import static com.mopub.mobileads.util.Strings.isEmpty;
 
 public abstract class BaseUrlGenerator {
-    private StringBuilder mStringBuilder;
+    private static final int INITIAL_URL_CAPACITY = 512;
+
+    /* Reused by every URL this generator builds, so it only grows the first time. */
+    private final StringBuilder mStringBuilder = new StringBuilder(INITIAL_URL_CAPACITY);
     private boolean mFirstParam;
 
     public abstract String generateUrlString(String serverHostname);
 
     protected void initUrlString(String serverHostname, String handlerType) {
-        mStringBuilder = new StringBuilder("http://" + serverHostname + handlerType);
+        mStringBuilder.setLength(0);
+        mStringBuilder.append("http://").append(serverHostname).append(handlerType);
         mFirstParam = true;
     }
 
@@ -29,16 +33,16 @@ public abstract class BaseUrlGenerator {
 
         mStringBuilder.append(getParamDelimiter());
         mStringBuilder.append(key);
-        mStringBuilder.append("=");
-        mStringBuilder.append(Uri.encode(value));
+        mStringBuilder.append('=');
+        Uris.appendEncoded(mStringBuilder, value);
     }
 
-    private String getParamDelimiter() {
+    private char getParamDelimiter() {
         if (mFirstParam) {
             mFirstParam = false;
-            return "?";
+            return '?';
         }
-        return "&";
+        return '&';
     }
 
     protected void setApiVersion(String apiVersion) {
@@ -50,7 +54,10 @@ public abstract class BaseUrlGenerator {
     }
 
     protected void setUdid(String udid) {
-        String udidDigest = (udid == null) ? "" : Utils.sha1(udid);
+        setUdidDigest((udid == null) ? "" : Utils.sha1(udid));
+    }
+
+    protected void setUdidDigest(String udidDigest) {
         addParam("udid", "sha:" + udidDigest);
     }
 
@@ -0,0 +1,116 @@
+package com.mopub.mobileads;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static android.Manifest.permission.ACCESS_NETWORK_STATE;
+import static android.content.pm.PackageManager.PERMISSION_GRANTED;
+import static com.mopub.mobileads.AdUrlGenerator.UNKNOWN_NETWORK_TYPE;
+
+/*
+ * Keeps the device's network state for the whole SDK, so that ad requests read a cached value
+ * instead of each asking the ConnectivityManager. The state is read once up front and again on every
+ * CONNECTIVITY_ACTION broadcast, and listeners (ad views waiting to reload) are told when the network
+ * comes back. Without the ACCESS_NETWORK_STATE permission the network is assumed to be up, with an
+ * unknown type.
+ */
+public class ConnectivityMonitor {
+    interface ConnectivityListener {
+        void onConnected();
+    }
+
+    private static ConnectivityMonitor instance;
+
+    private final Context mContext;
+    private final boolean mHasNetworkStatePermission;
+    private final List<ConnectivityListener> mListeners = new ArrayList<ConnectivityListener>();
+    private volatile boolean mIsConnected = true;
+    private volatile int mNetworkType = UNKNOWN_NETWORK_TYPE;
+
+    private final SystemBroadcastHub.BroadcastListener mConnectivityListener = new SystemBroadcastHub.BroadcastListener() {
+        public void onBroadcast(Intent intent) {
+            boolean wasConnected = mIsConnected;
+            updateNetworkState();
+
+            if (mIsConnected && !wasConnected) {
+                Log.d("MoPub", "Network connectivity is back.");
+                notifyConnected();
+            }
+        }
+    };
+
+    public static synchronized ConnectivityMonitor getInstance(Context context) {
+        if (instance == null) {
+            Context applicationContext = context.getApplicationContext();
+            instance = new ConnectivityMonitor((applicationContext != null) ? applicationContext : context);
+        }
+        return instance;
+    }
+
+    @Deprecated // for testing
+    public static synchronized void setInstance(ConnectivityMonitor connectivityMonitor) {
+        instance = connectivityMonitor;
+    }
+
+    ConnectivityMonitor(Context context) {
+        mContext = context;
+        mHasNetworkStatePermission =
+                context.checkCallingOrSelfPermission(ACCESS_NETWORK_STATE) == PERMISSION_GRANTED;
+
+        if (mHasNetworkStatePermission) {
+            updateNetworkState();
+            SystemBroadcastHub.getInstance(context)
+                    .subscribe(ConnectivityManager.CONNECTIVITY_ACTION, mConnectivityListener);
+        }
+    }
+
+    /*
+     * Safe to call from any thread.
+     */
+    boolean isConnected() {
+        return mIsConnected;
+    }
+
+    /*
+     * One of the ConnectivityManager TYPE_ constants, or AdUrlGenerator.UNKNOWN_NETWORK_TYPE. Safe to
+     * call from any thread.
+     */
+    int getNetworkType() {
+        return mNetworkType;
+    }
+
+    /*
+     * Listeners are called on the main thread, and must remove themselves when no longer interested.
+     */
+    void addListener(ConnectivityListener listener) {
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+    }
+
+    void removeListener(ConnectivityListener listener) {
+        mListeners.remove(listener);
+    }
+
+    private void updateNetworkState() {
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo networkInfo = (connectivityManager != null) ? connectivityManager.getActiveNetworkInfo() : null;
+
+        mNetworkType = (networkInfo != null) ? networkInfo.getType() : UNKNOWN_NETWORK_TYPE;
+        mIsConnected = networkInfo != null && networkInfo.isConnected();
+    }
+
+    private void notifyConnected() {
+        // Listeners usually remove themselves when called.
+        for (ConnectivityListener listener : new ArrayList<ConnectivityListener>(mListeners)) {
+            listener.onConnected();
+        }
+    }
+}
@@ -28,6 +28,10 @@ public class CustomEventBannerAdapter implements CustomEventBannerListener {
     private boolean mStoredAutorefresh;
 
     public CustomEventBannerAdapter(MoPubView moPubView, String className, String classData) {
+        this(moPubView, className, classData, null);
+    }
+
+    public CustomEventBannerAdapter(MoPubView moPubView, String className, String classData, Map<String, String> paramsMap) {
         mHandler = new Handler();
         mMoPubView = moPubView;
         mContext = moPubView.getContext();
@@ -58,6 +62,10 @@ public class CustomEventBannerAdapter implements CustomEventBannerListener {
             Log.d("MoPub", "Failed to create Map from JSON: " + classData + exception.toString());
         }
 
+        if (paramsMap != null) {
+            AdLoadTask.addResponseBodyExtras(mServerExtras, paramsMap);
+        }
+
         mLocalExtras = mMoPubView.getLocalExtras();
         if (mMoPubView.getLocation() != null) {
             mLocalExtras.put("location", mMoPubView.getLocation());
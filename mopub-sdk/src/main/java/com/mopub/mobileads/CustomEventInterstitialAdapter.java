@@ -26,6 +26,10 @@ public class CustomEventInterstitialAdapter implements CustomEventInterstitialLi
     private final Runnable mTimeout;
 
     public CustomEventInterstitialAdapter(MoPubInterstitial moPubInterstitial, String className, String jsonParams) {
+        this(moPubInterstitial, className, jsonParams, null);
+    }
+
+    public CustomEventInterstitialAdapter(MoPubInterstitial moPubInterstitial, String className, String jsonParams, Map<String, String> paramsMap) {
         mHandler = new Handler();
         mServerExtras = new HashMap<String, String>();
         mLocalExtras = new HashMap<String, Object>();
@@ -54,6 +58,10 @@ public class CustomEventInterstitialAdapter implements CustomEventInterstitialLi
             Log.d("MoPub", "Failed to create Map from JSON: " + jsonParams);
         }
         
+        if (paramsMap != null) {
+            AdLoadTask.addResponseBodyExtras(mServerExtras, paramsMap);
+        }
+
         mLocalExtras = moPubInterstitial.getLocalExtras();
         if (moPubInterstitial.getLocation() != null) mLocalExtras.put("location", moPubInterstitial.getLocation());
     }
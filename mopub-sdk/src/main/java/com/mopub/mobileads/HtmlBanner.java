@@ -1,7 +1,6 @@
 package com.mopub.mobileads;
 
 import android.content.Context;
-import android.net.Uri;
 import android.view.ViewGroup;
 import com.mopub.mobileads.factories.HtmlBannerWebViewFactory;
 
@@ -29,7 +28,7 @@ public class HtmlBanner extends CustomEventBanner {
         String clickthroughUrl;
         Boolean isScrollable;
         if (extrasAreValid(serverExtras)) {
-            htmlData = Uri.decode(serverExtras.get(HTML_RESPONSE_BODY_KEY));
+            htmlData = serverExtras.get(HTML_RESPONSE_BODY_KEY);
             redirectUrl = serverExtras.get(REDIRECT_URL_KEY);
             clickthroughUrl = serverExtras.get(CLICKTHROUGH_URL_KEY);
             isScrollable = Boolean.valueOf(serverExtras.get(SCROLLABLE_KEY));
@@ -49,7 +48,8 @@ public class HtmlBanner extends CustomEventBanner {
             if (mHtmlBannerWebView.getParent() instanceof ViewGroup) {
                 ((ViewGroup) mHtmlBannerWebView.getParent()).removeView(mHtmlBannerWebView);
             }
-            mHtmlBannerWebView.destroy();
+            HtmlBannerWebViewFactory.recycle(mHtmlBannerWebView);
+            mHtmlBannerWebView = null;
         }
     }
 
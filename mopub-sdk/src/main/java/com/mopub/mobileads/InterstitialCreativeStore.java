@@ -0,0 +1,74 @@
+package com.mopub.mobileads;
+
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Holds interstitial creatives in memory so that only a short token needs to go into the Intent that
+ * launches MoPubActivity or MraidActivity. Large creatives would otherwise be parcelled through Binder
+ * (and copied again on the activity side), and can fail with TransactionTooLargeException.
+ *
+ * The activity takes its creative out of the store when it builds its ad view. A creative that was
+ * never handed to an activity is removed when the interstitial that stored it is invalidated.
+ * MAXIMUM_CREATIVES is only a safety net for creatives whose activity never starts; it is well above
+ * what several MoPubInterstitials with full preload pools hold, so a loaded ad's creative is not
+ * evicted before it is shown.
+ */
+public class InterstitialCreativeStore {
+    static final String CREATIVE_TOKEN_KEY = "Creative-Token";
+    static final int MAXIMUM_CREATIVES = 64;
+
+    private static final Map<String, String> sCreatives = new LinkedHashMap<String, String>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            if (size() <= MAXIMUM_CREATIVES) {
+                return false;
+            }
+            Log.d("MoPub", "Interstitial creative store is full; evicting creative " + eldest.getKey() + ".");
+            return true;
+        }
+    };
+    private static long sNextToken;
+
+    static synchronized String put(String htmlData) {
+        String token = Long.toString(++sNextToken);
+        sCreatives.put(token, htmlData);
+        return token;
+    }
+
+    /*
+     * Returns the creative for the token, or null if it has been removed or evicted.
+     */
+    static synchronized String get(String token) {
+        if (token == null) {
+            return null;
+        }
+        return sCreatives.get(token);
+    }
+
+    /*
+     * Returns the creative for the token and removes it from the store.
+     */
+    static synchronized String take(String token) {
+        if (token == null) {
+            return null;
+        }
+        return sCreatives.remove(token);
+    }
+
+    static synchronized void remove(String token) {
+        if (token != null) {
+            sCreatives.remove(token);
+        }
+    }
+
+    static synchronized int size() {
+        return sCreatives.size();
+    }
+
+    public static synchronized void clear() {
+        sCreatives.clear();
+    }
+}
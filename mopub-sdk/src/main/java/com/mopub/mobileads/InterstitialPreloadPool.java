@@ -0,0 +1,119 @@
+package com.mopub.mobileads;
+
+import com.mopub.mobileads.util.DateAndTime;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/*
+ * Loaded interstitials waiting to be shown by a single MoPubInterstitial (and so a single ad unit).
+ * The pool size is capped by MAXIMUM_POOL_SIZE and by the heap available to the app, and ads that
+ * sit unshown for longer than AD_EXPIRATION_MILLISECONDS are thrown away.
+ */
+class InterstitialPreloadPool {
+    static final int MAXIMUM_POOL_SIZE = 5;
+    static final long AD_EXPIRATION_MILLISECONDS = 15 * 60 * 1000;
+    static final long HEAP_BYTES_PER_INTERSTITIAL = 16 * 1024 * 1024;
+
+    private final LinkedList<PooledInterstitial> mReadyInterstitials = new LinkedList<PooledInterstitial>();
+    private final int mTargetSize;
+    private int mHitCount;
+    private int mMissCount;
+    private int mExpiredCount;
+
+    InterstitialPreloadPool(int requestedSize) {
+        this(requestedSize, Runtime.getRuntime().maxMemory());
+    }
+
+    InterstitialPreloadPool(int requestedSize, long maximumHeapBytes) {
+        int heapLimitedSize = (int) Math.max(1, maximumHeapBytes / HEAP_BYTES_PER_INTERSTITIAL);
+        mTargetSize = Math.max(1, Math.min(requestedSize, Math.min(MAXIMUM_POOL_SIZE, heapLimitedSize)));
+    }
+
+    void add(PooledInterstitial interstitial) {
+        interstitial.mLoadedTime = DateAndTime.now().getTime();
+        mReadyInterstitials.addLast(interstitial);
+    }
+
+    /*
+     * Returns the oldest unexpired interstitial, or null (a miss) if there is none.
+     */
+    PooledInterstitial take() {
+        removeExpired();
+
+        if (mReadyInterstitials.isEmpty()) {
+            mMissCount++;
+            return null;
+        }
+
+        mHitCount++;
+        return mReadyInterstitials.removeFirst();
+    }
+
+    boolean hasReadyInterstitial() {
+        removeExpired();
+        return !mReadyInterstitials.isEmpty();
+    }
+
+    boolean needsRefill() {
+        removeExpired();
+        return mReadyInterstitials.size() < mTargetSize;
+    }
+
+    void clear() {
+        for (PooledInterstitial interstitial : mReadyInterstitials) {
+            interstitial.mAdapter.invalidate();
+        }
+        mReadyInterstitials.clear();
+    }
+
+    int getTargetSize() {
+        return mTargetSize;
+    }
+
+    int getReadyCount() {
+        return mReadyInterstitials.size();
+    }
+
+    int getHitCount() {
+        return mHitCount;
+    }
+
+    int getMissCount() {
+        return mMissCount;
+    }
+
+    int getExpiredCount() {
+        return mExpiredCount;
+    }
+
+    private void removeExpired() {
+        long now = DateAndTime.now().getTime();
+        Iterator<PooledInterstitial> iterator = mReadyInterstitials.iterator();
+        while (iterator.hasNext()) {
+            PooledInterstitial interstitial = iterator.next();
+            if (now - interstitial.mLoadedTime >= AD_EXPIRATION_MILLISECONDS) {
+                interstitial.mAdapter.invalidate();
+                iterator.remove();
+                mExpiredCount++;
+            }
+        }
+    }
+
+    /*
+     * A loaded adapter together with the tracking urls of the response that produced it, since the
+     * AdViewController only remembers the urls of its most recent response.
+     */
+    static class PooledInterstitial {
+        final CustomEventInterstitialAdapter mAdapter;
+        final String mImpressionUrl;
+        final String mClickthroughUrl;
+        private long mLoadedTime;
+
+        PooledInterstitial(CustomEventInterstitialAdapter adapter, String impressionUrl, String clickthroughUrl) {
+            mAdapter = adapter;
+            mImpressionUrl = impressionUrl;
+            mClickthroughUrl = clickthroughUrl;
+        }
+    }
+}
@@ -40,26 +40,47 @@ import android.view.View;
 import com.mopub.mobileads.factories.HtmlInterstitialWebViewFactory;
 
 import static com.mopub.mobileads.AdFetcher.CLICKTHROUGH_URL_KEY;
-import static com.mopub.mobileads.AdFetcher.HTML_RESPONSE_BODY_KEY;
 import static com.mopub.mobileads.AdFetcher.REDIRECT_URL_KEY;
 import static com.mopub.mobileads.AdFetcher.SCROLLABLE_KEY;
 import static com.mopub.mobileads.CustomEventInterstitial.CustomEventInterstitialListener;
+import static com.mopub.mobileads.InterstitialCreativeStore.CREATIVE_TOKEN_KEY;
 
 public class MoPubActivity extends BaseInterstitialActivity {
     private HtmlInterstitialWebView htmlInterstitialWebView;
 
     public static void start(Context context, String htmlData, boolean isScrollable, String redirectUrl, String clickthroughUrl) {
         Intent intent = createIntent(context, htmlData, isScrollable, redirectUrl, clickthroughUrl);
+        if (!startActivity(context, intent)) {
+            InterstitialCreativeStore.remove(intent.getStringExtra(CREATIVE_TOKEN_KEY));
+        }
+    }
+
+    static boolean startForCreative(Context context, String creativeToken, boolean isScrollable, String redirectUrl, String clickthroughUrl) {
+        return startActivity(context, createIntentForCreative(context, creativeToken, isScrollable, redirectUrl, clickthroughUrl));
+    }
+
+    private static boolean startActivity(Context context, Intent intent) {
         try {
             context.startActivity(intent);
+            return true;
         } catch (ActivityNotFoundException anfe) {
             Log.d("MoPubActivity", "MoPubActivity not found - did you declare it in AndroidManifest.xml?");
+            return false;
         }
     }
 
     public static Intent createIntent(Context context, String htmlData, boolean isScrollable, String redirectUrl, String clickthroughUrl) {
+        String creativeToken = InterstitialCreativeStore.put(htmlData);
+        return createIntentForCreative(context, creativeToken, isScrollable, redirectUrl, clickthroughUrl);
+    }
+
+    /*
+     * The creative itself stays in InterstitialCreativeStore until the activity takes it; only its token
+     * goes into the Intent.
+     */
+    static Intent createIntentForCreative(Context context, String creativeToken, boolean isScrollable, String redirectUrl, String clickthroughUrl) {
         Intent intent = new Intent(context, MoPubActivity.class);
-        intent.putExtra(HTML_RESPONSE_BODY_KEY, htmlData);
+        intent.putExtra(CREATIVE_TOKEN_KEY, creativeToken);
         intent.putExtra(SCROLLABLE_KEY, isScrollable);
         intent.putExtra(CLICKTHROUGH_URL_KEY, clickthroughUrl);
         intent.putExtra(REDIRECT_URL_KEY, redirectUrl);
@@ -73,10 +94,15 @@ public class MoPubActivity extends BaseInterstitialActivity {
         boolean isScrollable = intent.getBooleanExtra(SCROLLABLE_KEY, false);
         String redirectUrl = intent.getStringExtra(REDIRECT_URL_KEY);
         String clickthroughUrl = intent.getStringExtra(CLICKTHROUGH_URL_KEY);
-        String htmlResponse = intent.getStringExtra(HTML_RESPONSE_BODY_KEY);
+        String htmlResponse = takeCreative();
 
         htmlInterstitialWebView = HtmlInterstitialWebViewFactory.create(new BroadcastingInterstitialListener(), isScrollable, redirectUrl, clickthroughUrl);
-        htmlInterstitialWebView.loadHtmlResponse(htmlResponse);
+        if (htmlResponse != null) {
+            htmlInterstitialWebView.loadHtmlResponse(htmlResponse);
+        } else {
+            Log.d("MoPub", "Interstitial creative is no longer available.");
+            finish();
+        }
 
         return htmlInterstitialWebView;
     }
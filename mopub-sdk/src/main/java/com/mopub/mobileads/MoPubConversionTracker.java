@@ -35,6 +35,7 @@ package com.mopub.mobileads;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.util.Log;
+import com.mopub.mobileads.factories.HttpClientFactory;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
@@ -42,6 +43,7 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.DefaultHttpClient;
 
 import static android.content.Context.MODE_PRIVATE;
+import static com.mopub.mobileads.util.HttpResponses.consumeContent;
 
 public class MoPubConversionTracker {
     private static final String TRACK_HOST = "ads.mopub.com";
@@ -52,6 +54,7 @@ public class MoPubConversionTracker {
     private String mIsTrackedKey;
     private SharedPreferences mSharedPreferences;
     private String mPackageName;
+    private String mUserAgent;
 
     public void reportAppOpen(Context context) {
         if (context == null) {
@@ -64,7 +67,9 @@ public class MoPubConversionTracker {
         mSharedPreferences = mContext.getSharedPreferences(PREFERENCE_NAME, MODE_PRIVATE);
 
         if (!isAlreadyTracked()) {
-            new Thread(new TrackOpen()).start();
+            // Resolved here rather than in TrackOpen, as the first lookup may need a WebView.
+            mUserAgent = UserAgentProvider.getUserAgent(mContext);
+            TrackingDispatcher.dispatch(new TrackOpen());
         } else {
             Log.d("MoPub", "Conversion already tracked");
         }
@@ -96,25 +101,30 @@ public class MoPubConversionTracker {
             String url = new ConversionUrlGenerator().generateUrlString(TRACK_HOST);
             Log.d("MoPub", "Conversion track: " + url);
 
-            DefaultHttpClient httpClient = new DefaultHttpClient();
+            DefaultHttpClient httpClient = HttpClientFactory.create();
             HttpResponse response;
             try {
                 HttpGet httpget = new HttpGet(url);
+                httpget.addHeader(AdFetcher.USER_AGENT_HEADER, mUserAgent);
                 response = httpClient.execute(httpget);
             } catch (Exception e) {
                 Log.d("MoPub", "Conversion track failed [" + e.getClass().getSimpleName() + "]: " + url);
                 return;
             }
 
-            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
-                Log.d("MoPub", "Conversion track failed: Status code != 200.");
-                return;
-            }
-
-            HttpEntity entity = response.getEntity();
-            if (entity == null || entity.getContentLength() == 0) {
-                Log.d("MoPub", "Conversion track failed: Response was empty.");
-                return;
+            try {
+                if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                    Log.d("MoPub", "Conversion track failed: Status code != 200.");
+                    return;
+                }
+
+                HttpEntity entity = response.getEntity();
+                if (entity == null || entity.getContentLength() == 0) {
+                    Log.d("MoPub", "Conversion track failed: Response was empty.");
+                    return;
+                }
+            } finally {
+                consumeContent(response);
             }
 
             // If we made it here, the request has been tracked
@@ -36,6 +36,7 @@ import android.app.Activity;
 import android.content.Context;
 import android.location.Location;
 import android.util.Log;
+import com.mopub.mobileads.InterstitialPreloadPool.PooledInterstitial;
 import com.mopub.mobileads.MoPubView.LocationAwareness;
 import com.mopub.mobileads.factories.CustomEventInterstitialAdapterFactory;
 
@@ -63,6 +64,8 @@ public class MoPubInterstitial implements CustomEventInterstitialAdapter.CustomE
     private String mAdUnitId;
     private InterstitialState mCurrentInterstitialState;
     private boolean mIsDestroyed;
+    private InterstitialPreloadPool mPreloadPool;
+    private PooledInterstitial mLoadingPooledInterstitial;
 
     public interface InterstitialAdListener {
         public void onInterstitialLoaded(MoPubInterstitial interstitial);
@@ -92,6 +95,15 @@ public class MoPubInterstitial implements CustomEventInterstitialAdapter.CustomE
     }
 
     public void load() {
+        if (mPreloadPool != null) {
+            mIsDestroyed = false;
+            if (mPreloadPool.hasReadyInterstitial()) {
+                notifyInterstitialLoaded();
+            }
+            refillPreloadPool();
+            return;
+        }
+
         resetCurrentInterstitial();
         mInterstitialView.loadAd();
     }
@@ -101,9 +113,54 @@ public class MoPubInterstitial implements CustomEventInterstitialAdapter.CustomE
         mInterstitialView.forceRefresh();
     }
 
+    /*
+     * Keeps up to count interstitials loaded and ready to show, refilling in the background after
+     * each show(). The count is capped by the heap size of the device. Pass 0 to turn preloading
+     * off and go back to loading one interstitial at a time.
+     */
+    public void setPreloadCount(int count) {
+        discardPreloadedInterstitials();
+        mPreloadPool = (count > 0) ? new InterstitialPreloadPool(count) : null;
+    }
+
+    public int getPreloadedCount() {
+        return (mPreloadPool != null) ? mPreloadPool.getReadyCount() : 0;
+    }
+
+    public int getPreloadHitCount() {
+        return (mPreloadPool != null) ? mPreloadPool.getHitCount() : 0;
+    }
+
+    public int getPreloadMissCount() {
+        return (mPreloadPool != null) ? mPreloadPool.getMissCount() : 0;
+    }
+
+    private void refillPreloadPool() {
+        if (mPreloadPool == null || mIsDestroyed || mLoadingPooledInterstitial != null) {
+            return;
+        }
+
+        if (mPreloadPool.needsRefill()) {
+            mInterstitialView.loadAd();
+        }
+    }
+
+    private void discardPreloadedInterstitials() {
+        if (mPreloadPool != null) {
+            mPreloadPool.clear();
+        }
+
+        if (mLoadingPooledInterstitial != null) {
+            mLoadingPooledInterstitial.mAdapter.invalidate();
+            mLoadingPooledInterstitial = null;
+        }
+    }
+
     private void resetCurrentInterstitial() {
         mCurrentInterstitialState = InterstitialState.NOT_READY;
 
+        discardPreloadedInterstitials();
+
         if (mCustomEventInterstitialAdapter != null) {
             mCustomEventInterstitialAdapter.invalidate();
             mCustomEventInterstitialAdapter = null;
@@ -113,6 +170,9 @@ public class MoPubInterstitial implements CustomEventInterstitialAdapter.CustomE
     }
 
     public boolean isReady() {
+        if (mPreloadPool != null) {
+            return mPreloadPool.hasReadyInterstitial();
+        }
         return mCurrentInterstitialState.isReady();
     }
 
@@ -121,6 +181,10 @@ public class MoPubInterstitial implements CustomEventInterstitialAdapter.CustomE
     }
 
     public boolean show() {
+        if (mPreloadPool != null) {
+            return showPooledInterstitial();
+        }
+
         switch (mCurrentInterstitialState) {
             case CUSTOM_EVENT_AD_READY:
                 showCustomEventInterstitial();
@@ -133,6 +197,26 @@ public class MoPubInterstitial implements CustomEventInterstitialAdapter.CustomE
         if (mCustomEventInterstitialAdapter != null) mCustomEventInterstitialAdapter.showInterstitial();
     }
 
+    private boolean showPooledInterstitial() {
+        PooledInterstitial interstitial = mPreloadPool.take();
+        if (interstitial != null) {
+            interstitial.mAdapter.showInterstitial();
+        } else {
+            Log.d("MoPub", "No preloaded interstitial is ready for " + mAdUnitId + ".");
+        }
+
+        refillPreloadPool();
+        return interstitial != null;
+    }
+
+    private void notifyInterstitialLoaded() {
+        if (mInterstitialAdListener != null) {
+            mInterstitialAdListener.onInterstitialLoaded(this);
+        } else if (mListener != null) {
+            mListener.OnInterstitialLoaded();
+        }
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////////////
 
     public void setKeywords(String keywords) {
@@ -154,6 +238,8 @@ public class MoPubInterstitial implements CustomEventInterstitialAdapter.CustomE
     public void destroy() {
         mIsDestroyed = true;
 
+        discardPreloadedInterstitials();
+
         if (mCustomEventInterstitialAdapter != null) {
             mCustomEventInterstitialAdapter.invalidate();
             mCustomEventInterstitialAdapter = null;
@@ -213,11 +299,7 @@ public class MoPubInterstitial implements CustomEventInterstitialAdapter.CustomE
 
         mCurrentInterstitialState = InterstitialState.CUSTOM_EVENT_AD_READY;
 
-        if (mInterstitialAdListener != null) {
-            mInterstitialAdListener.onInterstitialLoaded(this);
-        } else if (mListener != null) {
-            mListener.OnInterstitialLoaded();
-        }
+        notifyInterstitialLoaded();
     }
 
     @Override
@@ -263,6 +345,76 @@ public class MoPubInterstitial implements CustomEventInterstitialAdapter.CustomE
         }
     }
 
+    /*
+     * Receives the callbacks of one preloaded adapter, so that its impression and click are tracked
+     * with the urls of the response that loaded it.
+     */
+    private class PooledInterstitialListener implements CustomEventInterstitialAdapter.CustomEventInterstitialAdapterListener {
+        private final PooledInterstitial mInterstitial;
+
+        PooledInterstitialListener(PooledInterstitial interstitial) {
+            mInterstitial = interstitial;
+        }
+
+        @Override
+        public void onCustomEventInterstitialLoaded() {
+            if (isDestroyed() || mPreloadPool == null) return;
+
+            boolean wasReady = mPreloadPool.hasReadyInterstitial();
+            mLoadingPooledInterstitial = null;
+            mPreloadPool.add(mInterstitial);
+
+            if (!wasReady) {
+                notifyInterstitialLoaded();
+            }
+            refillPreloadPool();
+        }
+
+        @Override
+        public void onCustomEventInterstitialFailed(MoPubErrorCode errorCode) {
+            if (isDestroyed()) return;
+
+            mLoadingPooledInterstitial = null;
+            mInterstitial.mAdapter.invalidate();
+            mInterstitialView.loadFailUrl(errorCode);
+        }
+
+        @Override
+        public void onCustomEventInterstitialShown(boolean shouldTrackImpressions) {
+            if (isDestroyed()) return;
+
+            if (shouldTrackImpressions) {
+                mInterstitialView.trackImpression(mInterstitial.mImpressionUrl);
+            }
+
+            if (mInterstitialAdListener != null) {
+                mInterstitialAdListener.onInterstitialShown(MoPubInterstitial.this);
+            }
+        }
+
+        @Override
+        public void onCustomEventInterstitialClicked() {
+            if (isDestroyed()) return;
+
+            mInterstitialView.registerClick(mInterstitial.mClickthroughUrl);
+
+            if (mInterstitialAdListener != null) {
+                mInterstitialAdListener.onInterstitialClicked(MoPubInterstitial.this);
+            }
+        }
+
+        @Override
+        public void onCustomEventInterstitialDismissed() {
+            if (isDestroyed()) return;
+
+            mInterstitial.mAdapter.invalidate();
+
+            if (mInterstitialAdListener != null) {
+                mInterstitialAdListener.onInterstitialDismissed(MoPubInterstitial.this);
+            }
+        }
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////////////
 
     public class MoPubInterstitialView extends MoPubView {
@@ -280,6 +432,11 @@ public class MoPubInterstitial implements CustomEventInterstitialAdapter.CustomE
                 return;
             }
 
+            if (mPreloadPool != null) {
+                loadPooledCustomEvent(paramsMap);
+                return;
+            }
+
             if (mCustomEventInterstitialAdapter != null) {
                 mCustomEventInterstitialAdapter.invalidate();
             }
@@ -289,18 +446,52 @@ public class MoPubInterstitial implements CustomEventInterstitialAdapter.CustomE
             mCustomEventInterstitialAdapter = CustomEventInterstitialAdapterFactory.create(
                     MoPubInterstitial.this,
                     paramsMap.get(CUSTOM_EVENT_NAME_HEADER),
-                    paramsMap.get(CUSTOM_EVENT_DATA_HEADER));
+                    paramsMap.get(CUSTOM_EVENT_DATA_HEADER),
+                    paramsMap);
             mCustomEventInterstitialAdapter.setAdapterListener(MoPubInterstitial.this);
             mCustomEventInterstitialAdapter.loadInterstitial();
         }
 
+        private void loadPooledCustomEvent(Map<String, String> paramsMap) {
+            if (mLoadingPooledInterstitial != null) {
+                mLoadingPooledInterstitial.mAdapter.invalidate();
+            }
+
+            Log.d("MoPub", "Preloading custom event interstitial adapter.");
+
+            CustomEventInterstitialAdapter adapter = CustomEventInterstitialAdapterFactory.create(
+                    MoPubInterstitial.this,
+                    paramsMap.get(CUSTOM_EVENT_NAME_HEADER),
+                    paramsMap.get(CUSTOM_EVENT_DATA_HEADER),
+                    paramsMap);
+            mLoadingPooledInterstitial = (mAdViewController != null)
+                    ? new PooledInterstitial(adapter, mAdViewController.getImpressionUrl(), mAdViewController.getClickthroughUrl())
+                    : new PooledInterstitial(adapter, null, null);
+            adapter.setAdapterListener(new PooledInterstitialListener(mLoadingPooledInterstitial));
+            adapter.loadInterstitial();
+        }
+
         protected void trackImpression() {
             Log.d("MoPub", "Tracking impression for interstitial.");
             if (mAdViewController != null) mAdViewController.trackImpression();
         }
 
+        protected void trackImpression(String impressionUrl) {
+            Log.d("MoPub", "Tracking impression for interstitial.");
+            if (mAdViewController != null) mAdViewController.trackImpression(impressionUrl);
+        }
+
+        protected void registerClick(String clickthroughUrl) {
+            if (mAdViewController != null) mAdViewController.registerClick(clickthroughUrl);
+        }
+
         @Override
         protected void adFailed(MoPubErrorCode errorCode) {
+            // A failed refill doesn't matter to the app while preloaded interstitials are ready.
+            if (mPreloadPool != null && mPreloadPool.hasReadyInterstitial()) {
+                return;
+            }
+
             if (mInterstitialAdListener != null) {
                 mInterstitialAdListener.onInterstitialFailed(MoPubInterstitial.this, errorCode);
             }
@@ -33,10 +33,8 @@
 package com.mopub.mobileads;
 
 import android.app.Activity;
-import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.location.Location;
 import android.util.AttributeSet;
 import android.util.Log;
@@ -76,11 +74,10 @@ public class MoPubView extends FrameLayout {
     protected CustomEventBannerAdapter mCustomEventBannerAdapter;
 
     private Context mContext;
-    private BroadcastReceiver mScreenStateReceiver;
+    private SystemBroadcastHub.BroadcastListener mScreenStateListener;
     private boolean mIsInForeground;
     private LocationAwareness mLocationAwareness;
     private int mLocationPrecision;
-    private boolean mPreviousAutorefreshSetting = false;
     
     private BannerAdListener mBannerAdListener;
     
@@ -119,48 +116,48 @@ public class MoPubView extends FrameLayout {
         }
 
         mAdViewController = AdViewControllerFactory.create(context, this);
-        registerScreenStateBroadcastReceiver();
+        registerScreenStateListener();
     }
 
-    private void registerScreenStateBroadcastReceiver() {
+    private void registerScreenStateListener() {
         if (mAdViewController == null) return;
 
-        mScreenStateReceiver = new BroadcastReceiver() {
-            public void onReceive(Context context, Intent intent) {
+        mScreenStateListener = new SystemBroadcastHub.BroadcastListener() {
+            public void onBroadcast(Intent intent) {
                 if (intent.getAction().equals(Intent.ACTION_SCREEN_OFF)) {
                     if (mIsInForeground) {
-                        Log.d("MoPub", "Screen sleep with ad in foreground, disable refresh");
+                        Log.d("MoPub", "Screen sleep with ad in foreground, pause refresh");
                         if (mAdViewController != null) {
-                            mPreviousAutorefreshSetting = mAdViewController.getAutorefreshEnabled();
-                            mAdViewController.setAutorefreshEnabled(false);
+                            mAdViewController.pauseRefresh();
                         }
                     } else {
                         Log.d("MoPub", "Screen sleep but ad in background; " +
-                                "refresh should already be disabled");
+                                "refresh should already be paused");
                     }
                 } else if (intent.getAction().equals(Intent.ACTION_USER_PRESENT)) {
                     if (mIsInForeground) {
-                        Log.d("MoPub", "Screen wake / ad in foreground, reset refresh");
+                        Log.d("MoPub", "Screen wake / ad in foreground, resume refresh");
                         if (mAdViewController != null) {
-                            mAdViewController.setAutorefreshEnabled(mPreviousAutorefreshSetting);
+                            mAdViewController.resumeRefresh();
                         }
                     } else {
-                        Log.d("MoPub", "Screen wake but ad in background; don't enable refresh");
+                        Log.d("MoPub", "Screen wake but ad in background; don't resume refresh");
                     }
                 }
             }
         };
-        IntentFilter filter = new IntentFilter(Intent.ACTION_SCREEN_OFF);
-        filter.addAction(Intent.ACTION_USER_PRESENT);
-        mContext.registerReceiver(mScreenStateReceiver, filter);
+        SystemBroadcastHub systemBroadcastHub = SystemBroadcastHub.getInstance(mContext);
+        systemBroadcastHub.subscribe(Intent.ACTION_SCREEN_OFF, mScreenStateListener);
+        systemBroadcastHub.subscribe(Intent.ACTION_USER_PRESENT, mScreenStateListener);
     }
 
-    private void unregisterScreenStateBroadcastReceiver() {
-        try {
-            mContext.unregisterReceiver(mScreenStateReceiver);
-        } catch (Exception IllegalArgumentException) {
-            Log.d("MoPub", "Failed to unregister screen state broadcast receiver (never registered).");
-        }
+    private void unregisterScreenStateListener() {
+        if (mScreenStateListener == null) return;
+
+        SystemBroadcastHub systemBroadcastHub = SystemBroadcastHub.getInstance(mContext);
+        systemBroadcastHub.unsubscribe(Intent.ACTION_SCREEN_OFF, mScreenStateListener);
+        systemBroadcastHub.unsubscribe(Intent.ACTION_USER_PRESENT, mScreenStateListener);
+        mScreenStateListener = null;
     }
 
     public void loadAd() {
@@ -172,7 +169,7 @@ public class MoPubView extends FrameLayout {
      * Activity's onDestroy implementation must include a call to this method.
      */
     public void destroy() {
-        unregisterScreenStateBroadcastReceiver();
+        unregisterScreenStateListener();
         removeAllViews();
 
         if (mAdViewController != null) {
@@ -206,7 +203,8 @@ public class MoPubView extends FrameLayout {
         mCustomEventBannerAdapter = CustomEventBannerAdapterFactory.create(
                 this,
                 paramsMap.get(CUSTOM_EVENT_NAME_HEADER),
-                paramsMap.get(CUSTOM_EVENT_DATA_HEADER));
+                paramsMap.get(CUSTOM_EVENT_DATA_HEADER),
+                paramsMap);
         mCustomEventBannerAdapter.loadAd();
     }
 
@@ -229,14 +227,14 @@ public class MoPubView extends FrameLayout {
         if (mAdViewController == null) return;
 
         if (visibility == VISIBLE) {
-            Log.d("MoPub", "Ad Unit ("+ mAdViewController.getAdUnitId()+") going visible: enabling refresh");
+            Log.d("MoPub", "Ad Unit ("+ mAdViewController.getAdUnitId()+") going visible: resuming refresh");
             mIsInForeground = true;
-            mAdViewController.setAutorefreshEnabled(true);
+            mAdViewController.resumeRefresh();
         }
         else {
-            Log.d("MoPub", "Ad Unit ("+ mAdViewController.getAdUnitId()+") going invisible: disabling refresh");
+            Log.d("MoPub", "Ad Unit ("+ mAdViewController.getAdUnitId()+") going invisible: pausing refresh");
             mIsInForeground = false;
-            mAdViewController.setAutorefreshEnabled(false);
+            mAdViewController.pauseRefresh();
         }
     }
 
@@ -283,7 +281,7 @@ public class MoPubView extends FrameLayout {
     }
 
     protected void nativeAdLoaded() {
-        if (mAdViewController != null) mAdViewController.scheduleRefreshTimerIfEnabled();
+        if (mAdViewController != null) mAdViewController.adDidLoad();
         adLoaded();
     }
 
@@ -383,6 +381,18 @@ public class MoPubView extends FrameLayout {
         }
     }
 
+    /*
+     * When enabled, the next ad is fetched shortly before each refresh so that it can be shown
+     * without waiting on the network.
+     */
+    public void setPrefetchEnabled(boolean enabled) {
+        if (mAdViewController != null) mAdViewController.setPrefetchEnabled(enabled);
+    }
+
+    public boolean getPrefetchEnabled() {
+        return (mAdViewController != null) && mAdViewController.getPrefetchEnabled();
+    }
+
     public void setAdContentView(View view) {
         if (mAdViewController != null) mAdViewController.setAdContentView(view);
     }
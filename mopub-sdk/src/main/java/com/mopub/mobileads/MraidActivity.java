@@ -1,6 +1,9 @@
 package com.mopub.mobileads;
 
+import android.content.Context;
+import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.view.WindowManager;
 import com.mopub.mobileads.MraidView.ExpansionStyle;
@@ -10,13 +13,20 @@ import com.mopub.mobileads.MraidView.ViewState;
 import com.mopub.mobileads.factories.MraidViewFactory;
 import com.mopub.mobileads.util.WebViews;
 
-import static com.mopub.mobileads.AdFetcher.HTML_RESPONSE_BODY_KEY;
+import static com.mopub.mobileads.InterstitialCreativeStore.CREATIVE_TOKEN_KEY;
 import static com.mopub.mobileads.util.VersionCode.ICE_CREAM_SANDWICH;
 import static com.mopub.mobileads.util.VersionCode.currentApiLevel;
 
 public class MraidActivity extends BaseInterstitialActivity {
     private MraidView mMraidView;
 
+    static Intent createIntent(Context context, String creativeToken) {
+        Intent intent = new Intent(context, MraidActivity.class);
+        intent.putExtra(CREATIVE_TOKEN_KEY, creativeToken);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        return intent;
+    }
+
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -53,8 +63,13 @@ public class MraidActivity extends BaseInterstitialActivity {
             }
         });
 
-        String source = getIntent().getStringExtra(HTML_RESPONSE_BODY_KEY);
-        mMraidView.loadHtmlData(source);
+        String source = takeCreative();
+        if (source != null) {
+            mMraidView.loadHtmlData(source);
+        } else {
+            Log.d("MoPub", "Interstitial creative is no longer available.");
+            finish();
+        }
 
         return mMraidView;
     }
@@ -33,7 +33,6 @@
 package com.mopub.mobileads;
 
 import android.content.Context;
-import android.net.Uri;
 import com.mopub.mobileads.MraidView.ViewState;
 import com.mopub.mobileads.factories.MraidViewFactory;
 
@@ -56,7 +55,7 @@ class MraidBanner extends CustomEventBanner {
 
         String htmlData;
         if (extrasAreValid(serverExtras)) {
-            htmlData = Uri.decode(serverExtras.get(HTML_RESPONSE_BODY_KEY));
+            htmlData = serverExtras.get(HTML_RESPONSE_BODY_KEY);
         } else {
             mBannerListener.onBannerFailed(MRAID_LOAD_ERROR);
             return;
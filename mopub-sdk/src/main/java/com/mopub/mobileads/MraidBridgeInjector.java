@@ -0,0 +1,77 @@
+package com.mopub.mobileads;
+
+import com.mopub.mobileads.resource.MraidJavascript;
+
+/*
+ * Inserts the MRAID JavaScript bridge into a creative in a single pass. The bridge goes right after
+ * the opening head tag (which may carry attributes or differ in case); creatives without a head get
+ * one, and fragments without an html tag are wrapped in the usual boilerplate.
+ */
+class MraidBridgeInjector {
+    static final String BRIDGE_SCRIPT = "<script>" + MraidJavascript.JAVASCRIPT_SOURCE + "</script>";
+
+    private static final String BODY_PREFIX = "<body style='margin:0;padding:0;'>";
+    private static final String BODY_SUFFIX = "</body></html>";
+
+    static String inject(String creative) {
+        int htmlTagStart = indexOfTag(creative, "html", 0);
+        if (htmlTagStart == -1) {
+            return new StringBuilder(creative.length() + BRIDGE_SCRIPT.length() + 64)
+                    .append("<html><head>")
+                    .append(BRIDGE_SCRIPT)
+                    .append("</head>")
+                    .append(BODY_PREFIX)
+                    .append(creative)
+                    .append(BODY_SUFFIX)
+                    .toString();
+        }
+
+        int headTagStart = indexOfTag(creative, "head", htmlTagStart);
+        if (headTagStart != -1) {
+            int insertionPoint = endOfTag(creative, headTagStart);
+            return new StringBuilder(creative.length() + BRIDGE_SCRIPT.length())
+                    .append(creative, 0, insertionPoint)
+                    .append(BRIDGE_SCRIPT)
+                    .append(creative, insertionPoint, creative.length())
+                    .toString();
+        }
+
+        int insertionPoint = endOfTag(creative, htmlTagStart);
+        return new StringBuilder(creative.length() + BRIDGE_SCRIPT.length() + 16)
+                .append(creative, 0, insertionPoint)
+                .append("<head>")
+                .append(BRIDGE_SCRIPT)
+                .append("</head>")
+                .append(creative, insertionPoint, creative.length())
+                .toString();
+    }
+
+    /*
+     * Returns the index of the '<' that opens the first tag with this name (in any case) at or after
+     * fromIndex, or -1. "<header" doesn't count as a "<head" tag.
+     */
+    static int indexOfTag(String creative, String tagName, int fromIndex) {
+        int nameLength = tagName.length();
+        int index = creative.indexOf('<', fromIndex);
+
+        while (index != -1) {
+            int nameEnd = index + 1 + nameLength;
+            if (creative.regionMatches(true, index + 1, tagName, 0, nameLength)
+                    && (nameEnd == creative.length() || isTagNameTerminator(creative.charAt(nameEnd)))) {
+                return index;
+            }
+            index = creative.indexOf('<', index + 1);
+        }
+
+        return -1;
+    }
+
+    private static boolean isTagNameTerminator(char character) {
+        return character == '>' || character == '/' || Character.isWhitespace(character);
+    }
+
+    private static int endOfTag(String creative, int tagStart) {
+        int tagEnd = creative.indexOf('>', tagStart);
+        return (tagEnd == -1) ? creative.length() : tagEnd + 1;
+    }
+}
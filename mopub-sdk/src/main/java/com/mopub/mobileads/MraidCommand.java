@@ -7,20 +7,17 @@ import java.util.Map;
 import static com.mopub.mobileads.MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_PLAY_VIDEO;
 import static com.mopub.mobileads.MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_STORE_PICTURE;
 
+/*
+ * Commands hold no state; one instance of each is shared by every MraidView, and the parameters
+ * of each call are passed to execute().
+ */
 abstract class MraidCommand {
     protected static final String URI_KEY = "uri";
-    protected Map<String, String> mParams;
-    protected MraidView mView;
-    
-    MraidCommand(Map<String, String> params, MraidView view) {
-        mParams = params;
-        mView = view;
-    }
-    
-    abstract void execute();
-    
-    protected int getIntFromParamsForKey(String key) {
-        String s = mParams.get(key);
+
+    abstract void execute(Map<String, String> params, MraidView view);
+
+    protected static int getIntFromParamsForKey(Map<String, String> params, String key) {
+        String s = params.get(key);
         if (s == null) return -1;
         else {
             try {
@@ -30,41 +27,36 @@ abstract class MraidCommand {
             }
         }
     }
-    
-    protected String getStringFromParamsForKey(String key) {
-        return mParams.get(key);
+
+    protected static String getStringFromParamsForKey(Map<String, String> params, String key) {
+        return params.get(key);
     }
-    
-    protected float getFloatFromParamsForKey(String key) {
-        String s = mParams.get(key);
+
+    protected static float getFloatFromParamsForKey(Map<String, String> params, String key) {
+        String s = params.get(key);
         if (s == null) return 0.0f;
         else {
             try {
-                return Float.parseFloat(key);
+                return Float.parseFloat(s);
             } catch (NumberFormatException e) {
                 return 0.0f;
             }
         }
     }
-    
-    protected boolean getBooleanFromParamsForKey(String key) {
-        return "true".equals(mParams.get(key));
-    }
 
+    protected static boolean getBooleanFromParamsForKey(Map<String, String> params, String key) {
+        return "true".equals(params.get(key));
+    }
 }
 
 class MraidCommandPlayVideo extends MraidCommand {
-    public MraidCommandPlayVideo(Map<String,String> params, MraidView view) {
-        super(params, view);
-    }
-
     @Override
-    void execute() {
-        String url = getStringFromParamsForKey(URI_KEY);
+    void execute(Map<String, String> params, MraidView view) {
+        String url = getStringFromParamsForKey(params, URI_KEY);
         if (url != null && !url.equals("")){
-            mView.getDisplayController().showVideo(url);
+            view.getDisplayController().showVideo(url);
         } else {
-            mView.fireErrorEvent(MRAID_JAVASCRIPT_COMMAND_PLAY_VIDEO, "Video can't be played with null or empty URL");
+            view.fireErrorEvent(MRAID_JAVASCRIPT_COMMAND_PLAY_VIDEO, "Video can't be played with null or empty URL");
         }
     }
 }
@@ -72,18 +64,14 @@ class MraidCommandPlayVideo extends MraidCommand {
 class MraidCommandStorePicture extends MraidCommand {
     public static final String MIME_TYPE_HEADER = "Content-Type";
 
-    public MraidCommandStorePicture(Map<String,String> params, MraidView view) {
-        super(params, view);
-    }
-
     @Override
-    void execute() {
-        String url = getStringFromParamsForKey(URI_KEY);
+    void execute(Map<String, String> params, MraidView view) {
+        String url = getStringFromParamsForKey(params, URI_KEY);
 
         if (url != null && !url.equals("")) {
-            mView.getDisplayController().showUserDownloadImageAlert(url);
+            view.getDisplayController().showUserDownloadImageAlert(url);
         } else {
-            mView.fireErrorEvent(MRAID_JAVASCRIPT_COMMAND_STORE_PICTURE, "Image can't be stored with null or empty URL");
+            view.fireErrorEvent(MRAID_JAVASCRIPT_COMMAND_STORE_PICTURE, "Image can't be stored with null or empty URL");
             Log.d("MoPub", "Invalid URI for Mraid Store Picture.");
             return;
         }
@@ -91,136 +79,88 @@ class MraidCommandStorePicture extends MraidCommand {
 }
 
 class MraidCommandClose extends MraidCommand {
-    MraidCommandClose(Map<String, String> params, MraidView view) {
-        super(params, view);
-    }
-
-    void execute() {
-        mView.getDisplayController().close();
+    void execute(Map<String, String> params, MraidView view) {
+        view.getDisplayController().close();
     }
 }
 
 class MraidCommandExpand extends MraidCommand {
-    MraidCommandExpand(Map<String, String> params, MraidView view) {
-        super(params, view);
-    }
-
-    void execute() {
-        int width = getIntFromParamsForKey("w");
-        int height = getIntFromParamsForKey("h");
-        String url = getStringFromParamsForKey("url");
-        boolean shouldUseCustomClose = getBooleanFromParamsForKey("shouldUseCustomClose");
-        boolean shouldLockOrientation = getBooleanFromParamsForKey("lockOrientation");
+    void execute(Map<String, String> params, MraidView view) {
+        int width = getIntFromParamsForKey(params, "w");
+        int height = getIntFromParamsForKey(params, "h");
+        String url = getStringFromParamsForKey(params, "url");
+        boolean shouldUseCustomClose = getBooleanFromParamsForKey(params, "shouldUseCustomClose");
+        boolean shouldLockOrientation = getBooleanFromParamsForKey(params, "lockOrientation");
         
-        if (width <= 0) width = mView.getDisplayController().mScreenWidth;
-        if (height <= 0) height = mView.getDisplayController().mScreenHeight;
+        if (width <= 0) width = view.getDisplayController().mScreenWidth;
+        if (height <= 0) height = view.getDisplayController().mScreenHeight;
         
-        mView.getDisplayController().expand(url, width, height, shouldUseCustomClose,
+        view.getDisplayController().expand(url, width, height, shouldUseCustomClose,
                 shouldLockOrientation);
     }
 }
 
 class MraidCommandUseCustomClose extends MraidCommand {
-    MraidCommandUseCustomClose(Map<String, String> params, MraidView view) {
-        super(params, view);
-    }
-
-    void execute() {
-        boolean shouldUseCustomClose = getBooleanFromParamsForKey("shouldUseCustomClose");
-        mView.getDisplayController().useCustomClose(shouldUseCustomClose);
+    void execute(Map<String, String> params, MraidView view) {
+        boolean shouldUseCustomClose = getBooleanFromParamsForKey(params, "shouldUseCustomClose");
+        view.getDisplayController().useCustomClose(shouldUseCustomClose);
     }
 }
 
 class MraidCommandOpen extends MraidCommand {
-    MraidCommandOpen(Map<String, String> params, MraidView view) {
-        super(params, view);
-    }
-
-    void execute() {
-        String url = getStringFromParamsForKey("url");
-        mView.getBrowserController().open(url);
+    void execute(Map<String, String> params, MraidView view) {
+        String url = getStringFromParamsForKey(params, "url");
+        view.getBrowserController().open(url);
     }
 }
 
 //As of version 1.15, we've decided to stub the resize command. However, this should be implemented in future versions
 class MraidCommandResize extends MraidCommand {
-    MraidCommandResize(Map<String, String> params, MraidView view) {
-        super(params, view);
-    }
-
-    void execute() {
-        mView.fireErrorEvent(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_RESIZE, "Unsupported action resize.");
+    void execute(Map<String, String> params, MraidView view) {
+        view.fireErrorEvent(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_RESIZE, "Unsupported action resize.");
     }
 }
 
 class MraidCommandGetResizeProperties extends MraidCommand {
-    MraidCommandGetResizeProperties(Map<String, String> params, MraidView view) {
-        super(params, view);
-    }
-
-    void execute() {
-        mView.fireErrorEvent(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_GET_RESIZE_PROPERTIES, "Unsupported action getResizeProperties.");
+    void execute(Map<String, String> params, MraidView view) {
+        view.fireErrorEvent(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_GET_RESIZE_PROPERTIES, "Unsupported action getResizeProperties.");
     }
 }
 
 class MraidCommandSetResizeProperties extends MraidCommand {
-    MraidCommandSetResizeProperties(Map<String, String> params, MraidView view) {
-        super(params, view);
-    }
-
-    void execute() {
-        mView.fireErrorEvent(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_SET_RESIZE_PROPERTIES, "Unsupported action setResizeProperties.");
+    void execute(Map<String, String> params, MraidView view) {
+        view.fireErrorEvent(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_SET_RESIZE_PROPERTIES, "Unsupported action setResizeProperties.");
     }
 }
 
 class MraidCommandGetCurrentPosition extends MraidCommand {
-    MraidCommandGetCurrentPosition(Map<String, String> params, MraidView view) {
-        super(params, view);
-    }
-
-    void execute() {
-        mView.getDisplayController().getCurrentPosition();
+    void execute(Map<String, String> params, MraidView view) {
+        view.getDisplayController().getCurrentPosition();
     }
 }
 
 
 class MraidCommandGetDefaultPosition extends MraidCommand {
-    MraidCommandGetDefaultPosition(Map<String, String> params, MraidView view) {
-        super(params, view);
-    }
-
-    void execute() {
-        mView.getDisplayController().getDefaultPosition();
+    void execute(Map<String, String> params, MraidView view) {
+        view.getDisplayController().getDefaultPosition();
     }
 }
 
 class MraidCommandGetMaxSize extends MraidCommand {
-    MraidCommandGetMaxSize(Map<String, String> params, MraidView view) {
-        super(params, view);
-    }
-
-    void execute() {
-        mView.getDisplayController().getMaxSize();
+    void execute(Map<String, String> params, MraidView view) {
+        view.getDisplayController().getMaxSize();
     }
 }
 
 class MraidCommandGetScreenSize extends MraidCommand {
-    MraidCommandGetScreenSize(Map<String, String> params, MraidView view) {
-        super(params, view);
-    }
-
-    void execute() {
-        mView.getDisplayController().getScreenSize();
+    void execute(Map<String, String> params, MraidView view) {
+        view.getDisplayController().getScreenSize();
     }
 }
 
 class MraidCommandCreateCalendarEvent extends MraidCommand {
-    MraidCommandCreateCalendarEvent(Map<String, String> params, MraidView view) {
-        super(params, view);
-    }
-
-    void execute() {
-        mView.getDisplayController().createCalendarEvent(mParams);
+    void execute(Map<String, String> params, MraidView view) {
+        view.getDisplayController().createCalendarEvent(params);
     }
 }
 
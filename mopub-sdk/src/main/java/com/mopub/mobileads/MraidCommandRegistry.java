@@ -1,5 +1,11 @@
 package com.mopub.mobileads;
 
+import android.util.Log;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 class MraidCommandRegistry {
@@ -19,50 +25,80 @@ class MraidCommandRegistry {
     public static final String MRAID_JAVASCRIPT_COMMAND_GET_SCREEN_SIZE = "getScreenSize";
     public static final String MRAID_JAVASCRIPT_COMMAND_CREATE_CALENDAR_EVENT = "createCalendarEvent";
 
-    static MraidCommand createCommand(String command, Map<String, String> params, MraidView view) {
-        if (MRAID_JAVASCRIPT_COMMAND_CLOSE.equals(command)) {
-            return new MraidCommandClose(params, view);
-        }
-        if (MRAID_JAVASCRIPT_COMMAND_EXPAND.equals(command)) {
-            return new MraidCommandExpand(params, view);
-        }
-        if (MRAID_JAVASCRIPT_COMMAND_USECUSTOMCLOSE.equals(command)) {
-            return new MraidCommandUseCustomClose(params, view);
-        }
-        if (MRAID_JAVASCRIPT_COMMAND_OPEN.equals(command)) {
-            return new MraidCommandOpen(params, view);
-        }
-        if (MRAID_JAVASCRIPT_COMMAND_RESIZE.equals(command)) {
-            return new MraidCommandResize(params, view);
-        }
-        if (MRAID_JAVASCRIPT_COMMAND_GET_RESIZE_PROPERTIES.equals(command)) {
-            return new MraidCommandGetResizeProperties(params, view);
-        }
-        if (MRAID_JAVASCRIPT_COMMAND_SET_RESIZE_PROPERTIES.equals(command)) {
-            return new MraidCommandSetResizeProperties(params, view);
-        }
-        if (MRAID_JAVASCRIPT_COMMAND_PLAY_VIDEO.equals(command)) {
-            return new MraidCommandPlayVideo(params, view);
-        }
-        if (MRAID_JAVASCRIPT_COMMAND_STORE_PICTURE.equals(command)) {
-            return new MraidCommandStorePicture(params, view);
-        }
-        if (MRAID_JAVASCRIPT_COMMAND_GET_CURRENT_POSITION.equals(command)) {
-            return new MraidCommandGetCurrentPosition(params, view);
-        }
-        if (MRAID_JAVASCRIPT_COMMAND_GET_DEFAULT_POSITION.equals(command)) {
-            return new MraidCommandGetDefaultPosition(params, view);
-        }
-        if (MRAID_JAVASCRIPT_COMMAND_GET_MAX_SIZE.equals(command)) {
-            return new MraidCommandGetMaxSize(params, view);
+    private static final Map<String, MraidCommand> sCommands = new HashMap<String, MraidCommand>();
+
+    static {
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_CLOSE, new MraidCommandClose());
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_EXPAND, new MraidCommandExpand());
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_USECUSTOMCLOSE, new MraidCommandUseCustomClose());
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_OPEN, new MraidCommandOpen());
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_RESIZE, new MraidCommandResize());
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_GET_RESIZE_PROPERTIES, new MraidCommandGetResizeProperties());
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_SET_RESIZE_PROPERTIES, new MraidCommandSetResizeProperties());
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_PLAY_VIDEO, new MraidCommandPlayVideo());
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_STORE_PICTURE, new MraidCommandStorePicture());
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_GET_CURRENT_POSITION, new MraidCommandGetCurrentPosition());
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_GET_DEFAULT_POSITION, new MraidCommandGetDefaultPosition());
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_GET_MAX_SIZE, new MraidCommandGetMaxSize());
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_GET_SCREEN_SIZE, new MraidCommandGetScreenSize());
+        sCommands.put(MRAID_JAVASCRIPT_COMMAND_CREATE_CALENDAR_EVENT, new MraidCommandCreateCalendarEvent());
+    }
+
+    /*
+     * Returns the shared handler for the command, or null if the command isn't supported.
+     */
+    static MraidCommand getCommand(String command) {
+        return sCommands.get(command);
+    }
+
+    /*
+     * Parses the raw query of an mraid:// URL into its decoded parameters. Most calls (getMaxSize,
+     * getCurrentPosition, ...) carry no parameters and share an empty map, and only the names and
+     * values that are actually escaped are decoded.
+     */
+    static Map<String, String> parseParams(String rawQuery) {
+        if (rawQuery == null || rawQuery.length() == 0) {
+            return Collections.emptyMap();
         }
-        if (MRAID_JAVASCRIPT_COMMAND_GET_SCREEN_SIZE.equals(command)) {
-            return new MraidCommandGetScreenSize(params, view);
+
+        Map<String, String> params = new HashMap<String, String>();
+        int length = rawQuery.length();
+        int start = 0;
+
+        while (start < length) {
+            int end = rawQuery.indexOf('&', start);
+            if (end == -1) {
+                end = length;
+            }
+
+            if (end > start) {
+                int separator = rawQuery.indexOf('=', start);
+                if (separator == -1 || separator > end) {
+                    params.put(decode(rawQuery.substring(start, end)), null);
+                } else {
+                    params.put(decode(rawQuery.substring(start, separator)),
+                            decode(rawQuery.substring(separator + 1, end)));
+                }
+            }
+
+            start = end + 1;
         }
-        if (MRAID_JAVASCRIPT_COMMAND_CREATE_CALENDAR_EVENT.equals(command)) {
-            return new MraidCommandCreateCalendarEvent(params, view);
+
+        return params;
+    }
+
+    private static String decode(String component) {
+        if (component.indexOf('%') == -1 && component.indexOf('+') == -1) {
+            return component;
         }
 
-        return null;
+        try {
+            return URLDecoder.decode(component, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return component;
+        } catch (IllegalArgumentException e) {
+            Log.d("MoPub", "Malformed MRAID command parameter: " + component);
+            return component;
+        }
     }
 }
@@ -12,7 +12,6 @@ import android.graphics.drawable.StateListDrawable;
 import android.media.MediaScannerConnection;
 import android.net.Uri;
 import android.os.Environment;
-import android.os.Handler;
 import android.provider.CalendarContract;
 import android.util.DisplayMetrics;
 import android.util.Log;
@@ -36,6 +35,7 @@ import org.apache.http.client.methods.HttpGet;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
@@ -55,7 +55,6 @@ import static com.mopub.mobileads.resource.Drawables.INTERSTITIAL_CLOSE_BUTTON_P
 
 class MraidDisplayController extends MraidAbstractController {
     private static final String LOGTAG = "MraidDisplayController";
-    private static final long VIEWABILITY_TIMER_MILLIS = 3000;
     private static final int CLOSE_BUTTON_SIZE_DP = 50;
     private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ssZZZZZ";
     private static final int MAX_NUMBER_DAYS_IN_MONTH = 31;
@@ -72,34 +71,43 @@ class MraidDisplayController extends MraidAbstractController {
     // Separate instance of MraidView, for displaying "two-part" creatives via the expand(URL) API.
     private MraidView mTwoPartExpansionView;
 
+    // Shown over the two-part expansion view until its creative has been downloaded and rendered.
+    private ProgressBar mTwoPartProgressBar;
+
     // A reference to the root view.
     private FrameLayout mRootView;
 
     // Tracks whether this controller's view is currently on-screen.
     private boolean mIsViewable;
 
-    // Task that periodically checks whether this controller's view is on-screen.
-    private Runnable mCheckViewabilityTask = new Runnable() {
-        public void run() {
-            boolean currentViewable = checkViewable();
-            if (mIsViewable != currentViewable) {
-                mIsViewable = currentViewable;
+    // Told by the ViewabilityTracker whenever this controller's view goes on or off screen.
+    private final ViewabilityTracker.ViewabilityListener mViewabilityListener =
+            new ViewabilityTracker.ViewabilityListener() {
+        public void onViewabilityChanged(boolean isViewable, int visiblePercent) {
+            if (mIsViewable != isViewable) {
+                mIsViewable = isViewable;
                 getMraidView().fireChangeEventForProperty(
                         MraidViewableProperty.createWithViewable(mIsViewable));
             }
-            mHandler.postDelayed(this, VIEWABILITY_TIMER_MILLIS);
         }
     };
 
-    // Handler for scheduling viewability checks.
-    private Handler mHandler = new Handler();
-
     // Stores the requested orientation for the Activity to which this controller's view belongs.
     // This is needed to restore the Activity's requested orientation in the event that the view
     // itself requires an orientation lock.
     private final int mOriginalRequestedOrientation;
 
-    private OrientationBroadcastReceiver mOrientationBroadcastReceiver = new OrientationBroadcastReceiver();
+    private int mLastRotation;
+    private final SystemBroadcastHub.BroadcastListener mConfigurationChangedListener =
+            new SystemBroadcastHub.BroadcastListener() {
+        public void onBroadcast(Intent intent) {
+            int rotation = getDisplayRotation();
+            if (rotation != mLastRotation) {
+                mLastRotation = rotation;
+                onOrientationChanged(mLastRotation);
+            }
+        }
+    };
 
     // Native close button, used for expanded content.
     private ImageView mCloseButton;
@@ -146,8 +154,9 @@ class MraidDisplayController extends MraidAbstractController {
     private void initialize() {
         mViewState = ViewState.LOADING;
         initializeScreenMetrics();
-        initializeViewabilityTimer();
-        mOrientationBroadcastReceiver.register(getContext());
+        initializeViewabilityTracking();
+        SystemBroadcastHub.getInstance(getContext())
+                .subscribe(Intent.ACTION_CONFIGURATION_CHANGED, mConfigurationChangedListener);
     }
 
     private void initializeScreenMetrics() {
@@ -174,9 +183,8 @@ class MraidDisplayController extends MraidAbstractController {
         mScreenHeight = (int) (heightPixels * (160.0 / metrics.densityDpi));
     }
 
-    private void initializeViewabilityTimer() {
-        mHandler.removeCallbacks(mCheckViewabilityTask);
-        mHandler.post(mCheckViewabilityTask);
+    private void initializeViewabilityTracking() {
+        ViewabilityTracker.getInstance().track(getMraidView(), mViewabilityListener);
     }
 
     private int getDisplayRotation() {
@@ -192,14 +200,12 @@ class MraidDisplayController extends MraidAbstractController {
     }
 
     public void destroy() {
-        mHandler.removeCallbacks(mCheckViewabilityTask);
-        try {
-            mOrientationBroadcastReceiver.unregister();
-        } catch (IllegalArgumentException e) {
-            if (!e.getMessage().contains("Receiver not registered")) {
-                throw e;
-            } // Else ignore this exception.
+        if (mTwoPartExpansionView != null) {
+            mTwoPartExpansionView.cancelUrlLoad();
         }
+        ViewabilityTracker.getInstance().untrack(getMraidView());
+        SystemBroadcastHub.getInstance(getContext())
+                .unsubscribe(Intent.ACTION_CONFIGURATION_CHANGED, mConfigurationChangedListener);
     }
 
     protected void initializeJavaScriptState() {
@@ -218,6 +224,13 @@ class MraidDisplayController extends MraidAbstractController {
     }
 
     protected void close() {
+        if (mTwoPartExpansionView != null) {
+            // Closed before the two-part creative arrived: no need to finish downloading it.
+            mTwoPartExpansionView.cancelUrlLoad();
+            mTwoPartExpansionView = null;
+            mTwoPartProgressBar = null;
+        }
+
         if (mViewState == ViewState.EXPANDED) {
             resetViewToDefaultState();
             setOrientationLockEnabled(false);
@@ -271,15 +284,29 @@ class MraidDisplayController extends MraidAbstractController {
             mTwoPartExpansionView = new MraidView(getContext(), ExpansionStyle.DISABLED,
                     NativeCloseButtonStyle.AD_CONTROLLED, PlacementType.INLINE);
             mTwoPartExpansionView.setMraidListener(new BaseMraidListener() {
+                public void onReady(MraidView view) {
+                    hideTwoPartProgressBar();
+                }
+
+                public void onFailure(MraidView view) {
+                    getMraidView().fireErrorEvent(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_EXPAND,
+                            "Could not load the URL passed to expand().");
+                    close();
+                }
+
                 public void onClose(MraidView view, ViewState newViewState) {
                     close();
                 }
             });
+            // Downloads off the UI thread; the expanded layout shows a progress bar until it renders.
             mTwoPartExpansionView.loadUrl(url);
             expansionContentView = mTwoPartExpansionView;
         }
 
         expandLayouts(expansionContentView, (int) (width * mDensity), (int) (height * mDensity));
+        if (mTwoPartExpansionView != null) {
+            showTwoPartProgressBar();
+        }
         mRootView.addView(mExpansionLayout, new RelativeLayout.LayoutParams(
                 RelativeLayout.LayoutParams.FILL_PARENT, RelativeLayout.LayoutParams.FILL_PARENT));
 
@@ -321,12 +348,13 @@ class MraidDisplayController extends MraidAbstractController {
             @Override
             public void run() {
                 uri = URI.create(uriString);
+                HttpResponse httpResponse = null;
 
                 try {
                     HttpClient httpClient = HttpClientFactory.create();
                     HttpGet httpGet = new HttpGet(uri);
 
-                    HttpResponse httpResponse = httpClient.execute(httpGet);
+                    httpResponse = httpClient.execute(httpGet);
                     pictureInputStream = httpResponse.getEntity().getContent();
 
                     String redirectLocation = HttpResponses.extractHeader(httpResponse, "Location");
@@ -345,6 +373,21 @@ class MraidDisplayController extends MraidAbstractController {
                 } catch (Exception exception) {
                     getMraidView().fireErrorEvent(MRAID_JAVASCRIPT_COMMAND_STORE_PICTURE, "Error downloading and saving image file.");
                     Log.d("MoPub", "Error downloading and saving image file.");
+                } finally {
+                    closeOutputStream();
+                    HttpResponses.consumeContent(httpResponse);
+                }
+            }
+
+            private void closeOutputStream() {
+                if (pictureOutputStream == null) {
+                    return;
+                }
+
+                try {
+                    pictureOutputStream.close();
+                } catch (IOException exception) {
+                    // Nothing more we can do here.
                 }
             }
 
@@ -618,6 +661,20 @@ class MraidDisplayController extends MraidAbstractController {
         mExpansionLayout.addView(mAdContainerLayout, lp);
     }
 
+    private void showTwoPartProgressBar() {
+        mTwoPartProgressBar = new ProgressBar(getContext());
+        mTwoPartProgressBar.setIndeterminate(true);
+        mAdContainerLayout.addView(mTwoPartProgressBar, new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.WRAP_CONTENT, FrameLayout.LayoutParams.WRAP_CONTENT, Gravity.CENTER));
+    }
+
+    private void hideTwoPartProgressBar() {
+        if (mTwoPartProgressBar != null) {
+            mAdContainerLayout.removeView(mTwoPartProgressBar);
+            mTwoPartProgressBar = null;
+        }
+    }
+
     private void setOrientationLockEnabled(boolean enabled) {
         Context context = getContext();
         Activity activity = null;
@@ -674,8 +731,12 @@ class MraidDisplayController extends MraidAbstractController {
         }
     }
 
-    protected boolean checkViewable() {
-        return true;
+    int getVisiblePercent() {
+        return ViewabilityTracker.getInstance().getVisiblePercent(getMraidView());
+    }
+
+    long getTimeInViewMilliseconds() {
+        return ViewabilityTracker.getInstance().getTimeInViewMilliseconds(getMraidView());
     }
 
     FrameLayout createAdContainerLayout() {
@@ -783,38 +844,4 @@ class MraidDisplayController extends MraidAbstractController {
             }
         }
     }
-
-    class OrientationBroadcastReceiver extends BroadcastReceiver {
-        private int mLastRotation;
-        private Context mContext;
-
-        public void onReceive(Context context, Intent intent) {
-            if(!isRegistered()) {
-                return;
-            }
-            String action = intent.getAction();
-            if (action.equals(Intent.ACTION_CONFIGURATION_CHANGED)) {
-                int orientation = MraidDisplayController.this.getDisplayRotation();
-                if (orientation != mLastRotation) {
-                    mLastRotation = orientation;
-                    MraidDisplayController.this.onOrientationChanged(mLastRotation);
-                }
-            }
-        }
-
-        private boolean isRegistered() {
-            return mContext != null;
-        }
-
-        public void register(Context context) {
-            mContext = context;
-            context.registerReceiver(this,
-                    new IntentFilter(Intent.ACTION_CONFIGURATION_CHANGED));
-        }
-
-        public void unregister() {
-            mContext.unregisterReceiver(this);
-            mContext = null;
-        }
-    }
 }
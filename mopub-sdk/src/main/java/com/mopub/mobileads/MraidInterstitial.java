@@ -3,30 +3,25 @@ package com.mopub.mobileads;
 
 import android.content.ActivityNotFoundException;
 import android.content.Intent;
-import android.net.Uri;
 import android.util.Log;
 
 import java.util.Map;
 
-import static com.mopub.mobileads.AdFetcher.HTML_RESPONSE_BODY_KEY;
-
 class MraidInterstitial extends ResponseBodyInterstitial {
-    private String mHtmlData;
-
     @Override
     protected void extractExtras(Map<String, String> serverExtras) {
-        mHtmlData = Uri.decode(serverExtras.get(HTML_RESPONSE_BODY_KEY));
+        // The creative is all MraidActivity needs, and ResponseBodyInterstitial stores it.
     }
 
     @Override
-    protected void showInterstitial() {
-        Intent intent = new Intent(mContext, MraidActivity.class);
-        intent.putExtra(HTML_RESPONSE_BODY_KEY, mHtmlData);
-        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+    protected boolean startInterstitialActivity(String creativeToken) {
+        Intent intent = MraidActivity.createIntent(mContext, creativeToken);
         try {
             mContext.startActivity(intent);
+            return true;
         } catch (ActivityNotFoundException anfe) {
             Log.d("MraidInterstitial", "MraidActivity.class not found. Did you declare MraidActivity in your manifest?");
+            return false;
         }
     }
 }
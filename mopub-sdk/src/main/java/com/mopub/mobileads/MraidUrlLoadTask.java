@@ -0,0 +1,63 @@
+package com.mopub.mobileads;
+
+import android.os.AsyncTask;
+import android.util.Log;
+import com.mopub.mobileads.factories.HttpClientFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+
+import static com.mopub.mobileads.util.HttpResponses.asResponseString;
+import static com.mopub.mobileads.util.HttpResponses.consumeContent;
+
+/*
+ * Downloads the page an MraidView was asked to load (the second part of a two-part expansion) off
+ * the UI thread, and hands it back to the view on the main thread. abort() drops the result and
+ * closes the connection if the download is still in flight.
+ */
+class MraidUrlLoadTask extends AsyncTask<String, Void, String> {
+    private final MraidView mMraidView;
+    private volatile HttpGet mHttpGet;
+
+    MraidUrlLoadTask(MraidView mraidView) {
+        mMraidView = mraidView;
+    }
+
+    void abort() {
+        cancel(true);
+
+        HttpGet httpGet = mHttpGet;
+        if (httpGet != null) {
+            httpGet.abort();
+        }
+    }
+
+    @Override
+    protected String doInBackground(String... urls) {
+        HttpResponse response = null;
+        try {
+            HttpGet httpGet = new HttpGet(urls[0]);
+
+            // Published before the cancellation check, so abort() either sees the request or this
+            // task sees that it was cancelled.
+            mHttpGet = httpGet;
+            if (isCancelled()) return null;
+
+            HttpClient httpClient = HttpClientFactory.create();
+            response = httpClient.execute(httpGet);
+            return asResponseString(response);
+        } catch (Exception exception) {
+            // IllegalArgumentException for a malformed URL, IOException for network errors.
+            Log.d("MoPub", "Mraid loadUrl failed: " + exception);
+            return null;
+        } finally {
+            consumeContent(response);
+            mHttpGet = null;
+        }
+    }
+
+    @Override
+    protected void onPostExecute(String html) {
+        mMraidView.onUrlLoaded(this, html);
+    }
+}
@@ -5,6 +5,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.graphics.Color;
 import android.net.Uri;
+import android.os.Handler;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
@@ -12,22 +13,12 @@ import android.webkit.JsResult;
 import android.webkit.WebChromeClient;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
-import com.mopub.mobileads.resource.MraidJavascript;
-import com.mopub.mobileads.util.Strings;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.utils.URLEncodedUtils;
-import org.apache.http.impl.client.DefaultHttpClient;
-
-import java.io.IOException;
+import com.mopub.mobileads.util.AsyncTasks;
+
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class MraidView extends BaseWebView {
@@ -40,7 +31,17 @@ public class MraidView extends BaseWebView {
     private WebChromeClient mWebChromeClient;
     
     private boolean mHasFiredReadyEvent;
+    private final Handler mChangeEventHandler = new Handler();
+    private final Map<Class<?>, MraidProperty> mPendingChangeEvents =
+            new LinkedHashMap<Class<?>, MraidProperty>();
+    private final Map<Class<?>, String> mFiredChangeEvents = new HashMap<Class<?>, String>();
+    private final Runnable mFlushChangeEventsRunnable = new Runnable() {
+        public void run() {
+            flushChangeEvents();
+        }
+    };
     private final PlacementType mPlacementType;
+    private MraidUrlLoadTask mUrlLoadTask;
 
     static class MraidListenerInfo {
         private MraidListener mMraidListener;
@@ -121,6 +122,9 @@ public class MraidView extends BaseWebView {
 
     @Override
     public void destroy() {
+        cancelUrlLoad();
+        mChangeEventHandler.removeCallbacks(mFlushChangeEventsRunnable);
+        mPendingChangeEvents.clear();
         mDisplayController.destroy();
         super.destroy();
     }
@@ -128,46 +132,49 @@ public class MraidView extends BaseWebView {
     public void loadHtmlData(String data) {
         if (data == null) return;
 
-        // If the string data lacks the HTML boilerplate, add it.
-        if (data.indexOf("<html>") == -1) {
-            data = "<html><head></head><body style='margin:0;padding:0;'>" + data + 
-                    "</body></html>";
-        }
-        
-        // Inject the MRAID JavaScript bridge.
-        data = data.replace("<head>", "<head><script>" + MraidJavascript.JAVASCRIPT_SOURCE + "</script>");
+        // Inject the MRAID JavaScript bridge, adding the HTML boilerplate if the data lacks it.
+        data = MraidBridgeInjector.inject(data);
+
+        // A new page starts with a fresh bridge, which hasn't been given any properties yet.
+        mFiredChangeEvents.clear();
 
         loadDataWithBaseURL(null, data, "text/html", "UTF-8", null);
     }
 
+    /*
+     * Downloads the page off the UI thread and renders it, with the MRAID bridge injected, once it
+     * arrives. A later loadUrl() or destroy() cancels a download that is still in flight.
+     */
     @Override
     public void loadUrl(String url) {
-        HttpClient httpClient = new DefaultHttpClient();
-        String outString = "";
-        
-        try {
-            HttpGet httpGet = new HttpGet(url);
-            HttpResponse response = httpClient.execute(httpGet);
-            HttpEntity entity = response.getEntity();
-    
-            if (entity != null) {
-                outString = Strings.fromStream(entity.getContent());
-            }
-        } catch (IllegalArgumentException e) {
-            Log.d("MoPub", "Mraid loadUrl failed (IllegalArgumentException): "+url);
-            notifyOnFailureListener();
-            return;
-        } catch (ClientProtocolException e) {
-            notifyOnFailureListener();
-            return;
-        } catch (IOException e) {
-            notifyOnFailureListener();
-            return;
+        cancelUrlLoad();
+
+        mUrlLoadTask = new MraidUrlLoadTask(this);
+        AsyncTasks.safeExecuteOnExecutor(mUrlLoadTask, AdFetchExecutor.getExecutor(), url);
+    }
+
+    void cancelUrlLoad() {
+        if (mUrlLoadTask != null) {
+            mUrlLoadTask.abort();
+            mUrlLoadTask = null;
         }
+    }
 
-        loadHtmlData(outString);
+    boolean isLoadingUrl() {
+        return mUrlLoadTask != null;
     }
-    
+
+    void onUrlLoaded(MraidUrlLoadTask task, String html) {
+        if (task != mUrlLoadTask) return;
+        mUrlLoadTask = null;
+
+        if (html == null) {
+            notifyOnFailureListener();
+        } else {
+            loadHtmlData(html);
+        }
+    }
+
     private void notifyOnFailureListener() {
         if (mListenerInfo.mMraidListener != null) {
             mListenerInfo.mMraidListener.onFailure(this);
@@ -213,24 +220,62 @@ public class MraidView extends BaseWebView {
     // JavaScript injection ////////////////////////////////////////////////////////////////////////
     
     protected void injectJavaScript(String js) {
+        // Change events queued before this script must reach the bridge first.
+        flushChangeEvents();
+        loadJavaScript(js);
+    }
+
+    private void loadJavaScript(String js) {
         if (js != null) super.loadUrl("javascript:" + js);
     }
-    
+
+    /*
+     * Change events are queued and sent to the bridge together on the next pass through the main
+     * looper, as one fireChangeEvent() call. Only the latest value of each property is sent, and
+     * only if it differs from the value the bridge was last given.
+     */
     protected void fireChangeEventForProperty(MraidProperty property) {
-        String json = "{" + property.toString() + "}";
-        injectJavaScript("window.mraidbridge.fireChangeEvent(" + json + ");");
-        Log.d(LOGTAG, "Fire change: " + json);
+        queueChangeEvent(property);
     }
-    
+
     protected void fireChangeEventForProperties(ArrayList<MraidProperty> properties) {
-        String props = properties.toString();
-        if (props.length() < 2) return;
-        
-        String json = "{" + props.substring(1, props.length() - 1) + "}";
-        injectJavaScript("window.mraidbridge.fireChangeEvent(" + json + ");");
+        for (MraidProperty property : properties) {
+            queueChangeEvent(property);
+        }
+    }
+
+    private void queueChangeEvent(MraidProperty property) {
+        boolean isFirstPendingChange = mPendingChangeEvents.isEmpty();
+        mPendingChangeEvents.put(property.getClass(), property);
+        if (isFirstPendingChange) {
+            mChangeEventHandler.post(mFlushChangeEventsRunnable);
+        }
+    }
+
+    void flushChangeEvents() {
+        mChangeEventHandler.removeCallbacks(mFlushChangeEventsRunnable);
+        if (mPendingChangeEvents.isEmpty()) return;
+
+        StringBuilder json = new StringBuilder("{");
+        for (MraidProperty property : mPendingChangeEvents.values()) {
+            String jsonPair = property.toString();
+            if (jsonPair.equals(mFiredChangeEvents.put(property.getClass(), jsonPair))) {
+                continue;
+            }
+            if (json.length() > 1) {
+                json.append(", ");
+            }
+            json.append(jsonPair);
+        }
+        json.append("}");
+        mPendingChangeEvents.clear();
+
+        if (json.length() == 2) return;
+
+        loadJavaScript("window.mraidbridge.fireChangeEvent(" + json + ");");
         Log.d(LOGTAG, "Fire changes: " + json);
     }
-    
+
     protected void fireErrorEvent(String action, String message) {
         injectJavaScript("window.mraidbridge.fireErrorEvent('" + action + "', '" + message + "');");
     }
@@ -245,18 +290,12 @@ public class MraidView extends BaseWebView {
     
     private boolean tryCommand(URI uri) {
         String commandType = uri.getHost();
-        List<NameValuePair> list = URLEncodedUtils.parse(uri, "UTF-8");
-        Map<String, String> params = new HashMap<String, String>();
-        for (NameValuePair pair : list) {
-            params.put(pair.getName(), pair.getValue());
-        }
-        
-        MraidCommand command = MraidCommandRegistry.createCommand(commandType, params, this);
+        MraidCommand command = MraidCommandRegistry.getCommand(commandType);
         if (command == null) {
             fireNativeCommandCompleteEvent(commandType);
             return false;
         } else {
-            command.execute();
+            command.execute(MraidCommandRegistry.parseParams(uri.getRawQuery()), this);
             fireNativeCommandCompleteEvent(commandType);
             return true;
         }
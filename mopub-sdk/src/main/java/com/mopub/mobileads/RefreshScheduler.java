@@ -0,0 +1,162 @@
+package com.mopub.mobileads;
+
+import android.os.Handler;
+import com.mopub.mobileads.util.DateAndTime;
+
+import java.util.Random;
+
+/*
+ * Decides when an AdViewController refreshes. Successful loads refresh at the interval the server
+ * asked for. Each consecutive failure (server error, no fill, warm-up, no network) multiplies that
+ * interval by BACKOFF_MULTIPLIER, up to MAXIMUM_REFRESH_TIME_MILLISECONDS, and spreads it by up to
+ * JITTER_FRACTION either way so that many devices don't retry in lockstep.
+ *
+ * While paused (the view is hidden or the screen is off) nothing runs, but the deadline is kept:
+ * resuming picks up the time that was left, or refreshes at once if the deadline has passed.
+ */
+class RefreshScheduler {
+    static final double BACKOFF_MULTIPLIER = 1.5;
+    static final int MAXIMUM_REFRESH_TIME_MILLISECONDS = 600000;
+    static final double JITTER_FRACTION = 0.2;
+
+    private final Handler mHandler;
+    private final Runnable mRefreshRunnable;
+    private final Runnable mPrefetchRunnable;
+    private final Runnable mScheduledRefreshRunnable = new Runnable() {
+        public void run() {
+            mIsScheduled = false;
+            mShouldPrefetch = false;
+            mRefreshRunnable.run();
+        }
+    };
+    private final Runnable mScheduledPrefetchRunnable = new Runnable() {
+        public void run() {
+            mShouldPrefetch = false;
+            mPrefetchRunnable.run();
+        }
+    };
+    private final long mPrefetchLeadTimeMilliseconds;
+    private Random mRandom = new Random();
+
+    private int mFailureCount;
+    private boolean mIsPaused;
+    private boolean mIsScheduled;
+    private boolean mShouldPrefetch;
+    private long mRefreshDeadline;
+
+    RefreshScheduler(Handler handler, Runnable refreshRunnable, Runnable prefetchRunnable,
+            long prefetchLeadTimeMilliseconds) {
+        mHandler = handler;
+        mRefreshRunnable = refreshRunnable;
+        mPrefetchRunnable = prefetchRunnable;
+        mPrefetchLeadTimeMilliseconds = prefetchLeadTimeMilliseconds;
+    }
+
+    void onSuccess() {
+        mFailureCount = 0;
+    }
+
+    void onFailure() {
+        mFailureCount++;
+    }
+
+    int getFailureCount() {
+        return mFailureCount;
+    }
+
+    /*
+     * Schedules the next refresh (and, if asked, a prefetch shortly before it), replacing any that
+     * was already scheduled.
+     */
+    void schedule(int refreshTimeMilliseconds, boolean shouldPrefetch) {
+        cancel();
+
+        mIsScheduled = true;
+        mShouldPrefetch = shouldPrefetch;
+        mRefreshDeadline = now() + computeDelayMilliseconds(refreshTimeMilliseconds);
+
+        if (!mIsPaused) {
+            post();
+        }
+    }
+
+    void cancel() {
+        removeCallbacks();
+        mIsScheduled = false;
+    }
+
+    void pause() {
+        mIsPaused = true;
+        removeCallbacks();
+    }
+
+    void resume() {
+        if (!mIsPaused) {
+            return;
+        }
+
+        mIsPaused = false;
+        if (mIsScheduled) {
+            post();
+        }
+    }
+
+    /*
+     * Brings a scheduled refresh forward to now (or to the moment refresh resumes, if paused).
+     */
+    void expedite() {
+        if (!mIsScheduled) {
+            return;
+        }
+
+        removeCallbacks();
+        mShouldPrefetch = false;
+        mRefreshDeadline = now();
+        if (!mIsPaused) {
+            post();
+        }
+    }
+
+    boolean isPaused() {
+        return mIsPaused;
+    }
+
+    boolean isScheduled() {
+        return mIsScheduled;
+    }
+
+    long computeDelayMilliseconds(int refreshTimeMilliseconds) {
+        if (mFailureCount == 0) {
+            return refreshTimeMilliseconds;
+        }
+
+        double delay = Math.min(
+                refreshTimeMilliseconds * Math.pow(BACKOFF_MULTIPLIER, mFailureCount),
+                MAXIMUM_REFRESH_TIME_MILLISECONDS);
+        delay *= 1 + JITTER_FRACTION * (2 * mRandom.nextDouble() - 1);
+        return (long) Math.min(delay, MAXIMUM_REFRESH_TIME_MILLISECONDS);
+    }
+
+    @Deprecated // for testing
+    void setRandom(Random random) {
+        mRandom = random;
+    }
+
+    private void post() {
+        long refreshDelay = Math.max(0, mRefreshDeadline - now());
+        mHandler.postDelayed(mScheduledRefreshRunnable, refreshDelay);
+
+        if (mShouldPrefetch) {
+            mHandler.postDelayed(mScheduledPrefetchRunnable, Math.max(0, refreshDelay - mPrefetchLeadTimeMilliseconds));
+        }
+    }
+
+    private void removeCallbacks() {
+        mHandler.removeCallbacks(mScheduledRefreshRunnable);
+        mHandler.removeCallbacks(mScheduledPrefetchRunnable);
+    }
+
+    private static long now() {
+        return DateAndTime.now().getTime();
+    }
+}
@@ -1,6 +1,7 @@
 package com.mopub.mobileads;
 
 import android.content.Context;
+import android.util.Log;
 
 import java.util.Map;
 
@@ -10,9 +11,14 @@ import static com.mopub.mobileads.MoPubErrorCode.NETWORK_INVALID_STATE;
 abstract class ResponseBodyInterstitial extends CustomEventInterstitial {
     private EventForwardingBroadcastReceiver mBroadcastReceiver;
     protected Context mContext;
+    private String mCreativeToken;
 
     abstract protected void extractExtras(Map<String, String> serverExtras);
-    abstract protected void showInterstitial();
+
+    /*
+     * Starts the activity that shows the creative. Returns false if it could not be started.
+     */
+    abstract protected boolean startInterstitialActivity(String creativeToken);
 
     @Override
     protected void loadInterstitial(
@@ -25,6 +31,7 @@ abstract class ResponseBodyInterstitial extends CustomEventInterstitial {
 
         if (extrasAreValid(serverExtras)) {
             extractExtras(serverExtras);
+            mCreativeToken = InterstitialCreativeStore.put(serverExtras.get(HTML_RESPONSE_BODY_KEY));
         } else {
             customEventInterstitialListener.onInterstitialFailed(NETWORK_INVALID_STATE);
             return;
@@ -36,9 +43,23 @@ abstract class ResponseBodyInterstitial extends CustomEventInterstitial {
         customEventInterstitialListener.onInterstitialLoaded();
     }
 
+    @Override
+    protected void showInterstitial() {
+        if (mCreativeToken == null) {
+            Log.d("MoPub", "Interstitial creative has already been shown.");
+            return;
+        }
+
+        if (startInterstitialActivity(mCreativeToken)) {
+            // The activity now owns the creative and takes it out of InterstitialCreativeStore.
+            mCreativeToken = null;
+        }
+    }
+
     @Override
     protected void onInvalidate() {
         mBroadcastReceiver.unregister();
+        InterstitialCreativeStore.remove(mCreativeToken);
     }
 
     private boolean extrasAreValid(Map<String,String> serverExtras) {
@@ -0,0 +1,117 @@
+package com.mopub.mobileads;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/*
+ * Registers a single receiver per system broadcast action for the whole SDK and hands each broadcast
+ * to every listener subscribed to that action, instead of every ad view registering a receiver of its
+ * own. Listeners are held weakly, so a subscriber that is garbage collected without unsubscribing
+ * does not leak; the receiver for an action is unregistered once it has no listeners left.
+ *
+ * Must be used from the main thread, which is also where listeners are called.
+ */
+public class SystemBroadcastHub {
+    interface BroadcastListener {
+        void onBroadcast(Intent intent);
+    }
+
+    private static SystemBroadcastHub instance;
+
+    private final Context mContext;
+    private final Map<String, Map<BroadcastListener, Boolean>> mListeners =
+            new HashMap<String, Map<BroadcastListener, Boolean>>();
+    private final Map<String, BroadcastReceiver> mReceivers = new HashMap<String, BroadcastReceiver>();
+
+    public static SystemBroadcastHub getInstance(Context context) {
+        if (instance == null) {
+            Context applicationContext = context.getApplicationContext();
+            instance = new SystemBroadcastHub((applicationContext != null) ? applicationContext : context);
+        }
+        return instance;
+    }
+
+    @Deprecated // for testing
+    public static void setInstance(SystemBroadcastHub systemBroadcastHub) {
+        instance = systemBroadcastHub;
+    }
+
+    SystemBroadcastHub(Context context) {
+        mContext = context;
+    }
+
+    void subscribe(String action, BroadcastListener listener) {
+        Map<BroadcastListener, Boolean> listeners = mListeners.get(action);
+        if (listeners == null) {
+            listeners = new WeakHashMap<BroadcastListener, Boolean>();
+            mListeners.put(action, listeners);
+        }
+        listeners.put(listener, true);
+
+        if (!mReceivers.containsKey(action)) {
+            register(action);
+        }
+    }
+
+    void unsubscribe(String action, BroadcastListener listener) {
+        Map<BroadcastListener, Boolean> listeners = mListeners.get(action);
+        if (listeners == null) {
+            return;
+        }
+
+        listeners.remove(listener);
+        unregisterIfUnused(action);
+    }
+
+    boolean isRegistered(String action) {
+        return mReceivers.containsKey(action);
+    }
+
+    private void register(final String action) {
+        BroadcastReceiver receiver = new BroadcastReceiver() {
+            public void onReceive(Context context, Intent intent) {
+                dispatch(action, intent);
+            }
+        };
+        mReceivers.put(action, receiver);
+        mContext.registerReceiver(receiver, new IntentFilter(action));
+    }
+
+    private void dispatch(String action, Intent intent) {
+        Map<BroadcastListener, Boolean> listeners = mListeners.get(action);
+        if (listeners == null) {
+            return;
+        }
+
+        // Listeners may unsubscribe while being called.
+        for (BroadcastListener listener : new ArrayList<BroadcastListener>(listeners.keySet())) {
+            listener.onBroadcast(intent);
+        }
+        unregisterIfUnused(action);
+    }
+
+    private void unregisterIfUnused(String action) {
+        Map<BroadcastListener, Boolean> listeners = mListeners.get(action);
+        if (listeners != null && !listeners.isEmpty()) {
+            return;
+        }
+
+        mListeners.remove(action);
+        BroadcastReceiver receiver = mReceivers.remove(action);
+        if (receiver != null) {
+            try {
+                mContext.unregisterReceiver(receiver);
+            } catch (IllegalArgumentException e) {
+                Log.d("MoPub", "Failed to unregister broadcast receiver for " + action + " (never registered).");
+            }
+        }
+    }
+}
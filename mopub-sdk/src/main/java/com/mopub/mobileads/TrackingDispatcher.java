@@ -0,0 +1,155 @@
+package com.mopub.mobileads;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Runs impression, click and conversion beacons on a small bounded pool instead of a new Thread
+ * per beacon. When the queue is full, new beacons are rejected (and counted) rather than blocking
+ * the caller or growing the pool; dispatch() returns false so the caller can journal them instead.
+ */
+public class TrackingDispatcher {
+    static final int CORE_POOL_SIZE = 1;
+    static final int MAXIMUM_POOL_SIZE = 2;
+    static final int QUEUE_CAPACITY = 64;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static TrackingDispatcher instance = new TrackingDispatcher();
+
+    private final ThreadPoolExecutor mExecutor;
+    private final AtomicLong mDispatchedCount = new AtomicLong();
+    private final AtomicLong mCompletedCount = new AtomicLong();
+    private final AtomicLong mDroppedCount = new AtomicLong();
+    private final AtomicLong mTotalLatencyMilliseconds = new AtomicLong();
+    private final AtomicLong mMaximumLatencyMilliseconds = new AtomicLong();
+
+    @Deprecated // for testing
+    public static void setInstance(TrackingDispatcher dispatcher) {
+        instance = dispatcher;
+    }
+
+    public static TrackingDispatcher getInstance() {
+        return instance;
+    }
+
+    /*
+     * Returns false if the beacon was not queued, in which case it will never run.
+     */
+    public static boolean dispatch(Runnable beacon) {
+        return instance.internalDispatch(beacon);
+    }
+
+    public TrackingDispatcher() {
+        this(MAXIMUM_POOL_SIZE, QUEUE_CAPACITY);
+    }
+
+    TrackingDispatcher(int maximumPoolSize, int queueCapacity) {
+        mExecutor = new ThreadPoolExecutor(
+                Math.min(CORE_POOL_SIZE, maximumPoolSize),
+                maximumPoolSize,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(queueCapacity),
+                new TrackingThreadFactory());
+    }
+
+    protected boolean internalDispatch(Runnable beacon) {
+        if (beacon == null) {
+            return false;
+        }
+
+        try {
+            mExecutor.execute(new TimedBeacon(beacon));
+        } catch (RejectedExecutionException e) {
+            long dropped = mDroppedCount.incrementAndGet();
+            Log.d("MoPub", "Tracking queue is full; rejected beacon (" + dropped + " rejected so far).");
+            return false;
+        }
+
+        // Only beacons that were actually queued count as dispatched.
+        mDispatchedCount.incrementAndGet();
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return mExecutor.getQueue().size();
+    }
+
+    public long getDispatchedCount() {
+        return mDispatchedCount.get();
+    }
+
+    public long getCompletedCount() {
+        return mCompletedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return mDroppedCount.get();
+    }
+
+    /*
+     * Latency is measured from dispatch until the beacon finishes, so it includes queueing time.
+     */
+    public long getAverageLatencyMilliseconds() {
+        long completed = mCompletedCount.get();
+        return (completed == 0) ? 0 : mTotalLatencyMilliseconds.get() / completed;
+    }
+
+    public long getMaximumLatencyMilliseconds() {
+        return mMaximumLatencyMilliseconds.get();
+    }
+
+    private void recordLatency(long latencyMilliseconds) {
+        mTotalLatencyMilliseconds.addAndGet(latencyMilliseconds);
+        mCompletedCount.incrementAndGet();
+
+        long maximum = mMaximumLatencyMilliseconds.get();
+        while (latencyMilliseconds > maximum
+                && !mMaximumLatencyMilliseconds.compareAndSet(maximum, latencyMilliseconds)) {
+            maximum = mMaximumLatencyMilliseconds.get();
+        }
+    }
+
+    private class TimedBeacon implements Runnable {
+        private final Runnable mBeacon;
+        private final long mDispatchTime;
+
+        TimedBeacon(Runnable beacon) {
+            mBeacon = beacon;
+            mDispatchTime = System.currentTimeMillis();
+        }
+
+        public void run() {
+            try {
+                mBeacon.run();
+            } catch (Exception e) {
+                Log.d("MoPub", "Tracking beacon failed.", e);
+            } finally {
+                recordLatency(System.currentTimeMillis() - mDispatchTime);
+            }
+        }
+    }
+
+    private static class TrackingThreadFactory implements ThreadFactory {
+        private final AtomicInteger mThreadCount = new AtomicInteger();
+
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "MoPub Tracking #" + mThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.mopub.mobileads;
+
+import android.content.Context;
+import android.os.Process;
+import android.util.Log;
+import com.mopub.mobileads.factories.HttpClientFactory;
+import com.mopub.mobileads.util.DateAndTime;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.mopub.mobileads.util.HttpResponses.consumeContent;
+import static com.mopub.mobileads.util.Streams.closeStream;
+
+/*
+ * Disk-backed, append-only journal of tracking beacons whose GET failed. Each change is appended
+ * as a single line (add, retry, done), so a crash can at worst lose the line being written. Pending
+ * beacons are retried in batches on the TrackingDispatcher with exponential backoff, expire after
+ * TIME_TO_LIVE_MILLISECONDS, and the file is rewritten once enough of it is stale.
+ */
+public class TrackingJournal {
+    static final String JOURNAL_FILE_NAME = "mopub_tracking_journal";
+    static final long TIME_TO_LIVE_MILLISECONDS = 24 * 60 * 60 * 1000;
+    static final long INITIAL_RETRY_DELAY_MILLISECONDS = 30 * 1000;
+    static final long MAXIMUM_RETRY_DELAY_MILLISECONDS = 60 * 60 * 1000;
+    static final int MAXIMUM_ATTEMPTS = 10;
+    static final int MAXIMUM_PENDING_BEACONS = 200;
+    static final int BATCH_SIZE = 10;
+    static final int COMPACTION_THRESHOLD = 50;
+    private static final long WRITER_KEEP_ALIVE_SECONDS = 30;
+
+    private static final String ADD = "A";
+    private static final String RETRY = "R";
+    private static final String DONE = "D";
+    private static final String SEPARATOR = "\t";
+    private static final String UTF_8 = "UTF-8";
+
+    private static TrackingJournal instance;
+
+    private final Context mContext;
+    private final Map<Long, PendingBeacon> mPendingBeacons = new LinkedHashMap<Long, PendingBeacon>();
+    private final AtomicBoolean mIsFlushing = new AtomicBoolean();
+    private Executor mWriteExecutor;
+    private File mJournalFile;
+    private boolean mIsLoaded;
+    private long mNextId;
+    private int mStaleRecordCount;
+    private int mCompactionCount;
+
+    public static synchronized TrackingJournal getInstance(Context context) {
+        if (instance == null) {
+            Context applicationContext = context.getApplicationContext();
+            instance = new TrackingJournal((applicationContext != null) ? applicationContext : context);
+        }
+        return instance;
+    }
+
+    @Deprecated // for testing
+    public static synchronized void setInstance(TrackingJournal journal) {
+        instance = journal;
+    }
+
+    TrackingJournal(Context context) {
+        mContext = context;
+    }
+
+    /*
+     * Records a beacon that could not be delivered. Must not be called on the UI thread.
+     */
+    public synchronized void add(String url, String userAgent) {
+        if (url == null) {
+            return;
+        }
+
+        loadIfNeeded();
+
+        if (mPendingBeacons.size() >= MAXIMUM_PENDING_BEACONS) {
+            Iterator<PendingBeacon> iterator = mPendingBeacons.values().iterator();
+            PendingBeacon oldest = iterator.next();
+            iterator.remove();
+            appendDone(oldest);
+        }
+
+        PendingBeacon beacon = new PendingBeacon(mNextId++, DateAndTime.now().getTime(),
+                sanitize(userAgent), sanitize(url));
+        mPendingBeacons.put(beacon.mId, beacon);
+        append(ADD + SEPARATOR + beacon.mId + SEPARATOR + beacon.mCreationTime + SEPARATOR
+                + beacon.mUserAgent + SEPARATOR + beacon.mUrl);
+
+        compactIfNeeded();
+    }
+
+    /*
+     * Retries due beacons in the background, one batch at a time. Only one flush runs at once.
+     */
+    public void flush() {
+        if (!mIsFlushing.compareAndSet(false, true)) {
+            return;
+        }
+
+        boolean isDispatched = TrackingDispatcher.dispatch(new Runnable() {
+            public void run() {
+                try {
+                    flushDueBeacons();
+                } finally {
+                    mIsFlushing.set(false);
+                }
+            }
+        });
+
+        if (!isDispatched) {
+            // The tracking queue is full; the next flush() tries again.
+            mIsFlushing.set(false);
+        }
+    }
+
+    /*
+     * Like add(), but writes on the journal's own background thread, so it may be called from the
+     * UI thread. For beacons the TrackingDispatcher had no room for.
+     */
+    public void addInBackground(final String url, final String userAgent) {
+        getWriteExecutor().execute(new Runnable() {
+            public void run() {
+                add(url, userAgent);
+            }
+        });
+    }
+
+    private synchronized Executor getWriteExecutor() {
+        if (mWriteExecutor == null) {
+            // A single thread keeps the writes in order; it goes away when idle.
+            mWriteExecutor = new ThreadPoolExecutor(0, 1, WRITER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "MoPub Tracking Journal");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return mWriteExecutor;
+    }
+
+    synchronized int getCompactionCount() {
+        return mCompactionCount;
+    }
+
+    synchronized int getPendingCount() {
+        loadIfNeeded();
+        return mPendingBeacons.size();
+    }
+
+    void flushDueBeacons() {
+        List<PendingBeacon> batch;
+        while (!(batch = takeDueBatch()).isEmpty()) {
+            for (PendingBeacon beacon : batch) {
+                if (deliver(beacon)) {
+                    markDelivered(beacon);
+                } else {
+                    // Still offline; leave the rest for the next flush instead of holding the thread.
+                    markFailed(beacon);
+                    return;
+                }
+            }
+        }
+    }
+
+    synchronized List<PendingBeacon> takeDueBatch() {
+        loadIfNeeded();
+
+        long now = DateAndTime.now().getTime();
+        List<PendingBeacon> batch = new ArrayList<PendingBeacon>(BATCH_SIZE);
+        Iterator<PendingBeacon> iterator = mPendingBeacons.values().iterator();
+        while (iterator.hasNext() && batch.size() < BATCH_SIZE) {
+            PendingBeacon beacon = iterator.next();
+            if (isExpired(beacon, now)) {
+                iterator.remove();
+                appendDone(beacon);
+            } else if (beacon.mNextAttemptTime <= now) {
+                batch.add(beacon);
+            }
+        }
+
+        compactIfNeeded();
+        return batch;
+    }
+
+    synchronized void markDelivered(PendingBeacon beacon) {
+        if (mPendingBeacons.remove(beacon.mId) == null) {
+            return;
+        }
+
+        appendDone(beacon);
+        compactIfNeeded();
+    }
+
+    synchronized void markFailed(PendingBeacon beacon) {
+        if (!mPendingBeacons.containsKey(beacon.mId)) {
+            return;
+        }
+
+        long now = DateAndTime.now().getTime();
+        beacon.mAttempts++;
+
+        if (beacon.mAttempts >= MAXIMUM_ATTEMPTS || isExpired(beacon, now)) {
+            Log.d("MoPub", "Giving up on tracking beacon: " + beacon.mUrl);
+            markDelivered(beacon);
+            return;
+        }
+
+        beacon.mNextAttemptTime = now + getRetryDelay(beacon.mAttempts);
+        append(RETRY + SEPARATOR + beacon.mId + SEPARATOR + beacon.mAttempts + SEPARATOR
+                + beacon.mNextAttemptTime);
+        if (beacon.mHasRetryRecord) {
+            // The previous retry record is superseded.
+            mStaleRecordCount++;
+        }
+        beacon.mHasRetryRecord = true;
+        compactIfNeeded();
+    }
+
+    static long getRetryDelay(int attempts) {
+        long delay = INITIAL_RETRY_DELAY_MILLISECONDS << Math.min(Math.max(attempts - 1, 0), 16);
+        return Math.min(delay, MAXIMUM_RETRY_DELAY_MILLISECONDS);
+    }
+
+    private boolean deliver(PendingBeacon beacon) {
+        HttpResponse response = null;
+        try {
+            HttpGet httpget = new HttpGet(beacon.mUrl);
+            if (beacon.mUserAgent.length() > 0) {
+                httpget.addHeader("User-Agent", beacon.mUserAgent);
+            }
+            response = HttpClientFactory.create().execute(httpget);
+            return response.getStatusLine().getStatusCode() < 500;
+        } catch (Exception e) {
+            Log.d("MoPub", "Retrying tracking beacon failed: " + beacon.mUrl);
+            return false;
+        } finally {
+            consumeContent(response);
+        }
+    }
+
+    private static String sanitize(String value) {
+        if (value == null) {
+            return "";
+        }
+        // Tabs and newlines delimit journal fields and records.
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private boolean isExpired(PendingBeacon beacon, long now) {
+        return now - beacon.mCreationTime > TIME_TO_LIVE_MILLISECONDS;
+    }
+
+    File getJournalFile() {
+        if (mJournalFile == null) {
+            mJournalFile = new File(mContext.getFilesDir(), JOURNAL_FILE_NAME);
+        }
+        return mJournalFile;
+    }
+
+    private void loadIfNeeded() {
+        if (mIsLoaded) {
+            return;
+        }
+        mIsLoaded = true;
+
+        File journalFile = getJournalFile();
+        if (!journalFile.exists()) {
+            return;
+        }
+
+        BufferedReader reader = null;
+        int recordCount = 0;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(journalFile), UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                recordCount++;
+                replay(line);
+            }
+        } catch (IOException e) {
+            Log.d("MoPub", "Unable to read the tracking journal.", e);
+        } finally {
+            closeStream(reader);
+        }
+
+        int liveRecordCount = 0;
+        for (PendingBeacon beacon : mPendingBeacons.values()) {
+            liveRecordCount += beacon.mHasRetryRecord ? 2 : 1;
+        }
+        mStaleRecordCount = recordCount - liveRecordCount;
+    }
+
+    private void replay(String line) {
+        String[] fields = line.split(SEPARATOR, 5);
+        try {
+            if (ADD.equals(fields[0]) && fields.length == 5) {
+                PendingBeacon beacon = new PendingBeacon(Long.parseLong(fields[1]),
+                        Long.parseLong(fields[2]), fields[3], fields[4]);
+                mPendingBeacons.put(beacon.mId, beacon);
+                mNextId = Math.max(mNextId, beacon.mId + 1);
+            } else if (RETRY.equals(fields[0]) && fields.length == 4) {
+                PendingBeacon beacon = mPendingBeacons.get(Long.parseLong(fields[1]));
+                if (beacon != null) {
+                    beacon.mAttempts = Integer.parseInt(fields[2]);
+                    beacon.mNextAttemptTime = Long.parseLong(fields[3]);
+                    beacon.mHasRetryRecord = true;
+                }
+            } else if (DONE.equals(fields[0]) && fields.length == 2) {
+                mPendingBeacons.remove(Long.parseLong(fields[1]));
+            }
+        } catch (NumberFormatException e) {
+            // A torn write from a crash; skip the record.
+        }
+    }
+
+    private void append(String record) {
+        writeRecords(getJournalFile(), true, record);
+    }
+
+    private void appendDone(PendingBeacon beacon) {
+        append(DONE + SEPARATOR + beacon.mId);
+        // The beacon's add, retry and done records are all stale now.
+        mStaleRecordCount += beacon.mHasRetryRecord ? 3 : 2;
+    }
+
+    private void compactIfNeeded() {
+        if (mStaleRecordCount < COMPACTION_THRESHOLD || mStaleRecordCount < mPendingBeacons.size()) {
+            return;
+        }
+
+        List<String> records = new ArrayList<String>(mPendingBeacons.size() * 2);
+        for (PendingBeacon beacon : mPendingBeacons.values()) {
+            records.add(ADD + SEPARATOR + beacon.mId + SEPARATOR + beacon.mCreationTime + SEPARATOR
+                    + beacon.mUserAgent + SEPARATOR + beacon.mUrl);
+            // A beacon that was never retried is fully described by its add record.
+            if (beacon.mAttempts > 0) {
+                records.add(RETRY + SEPARATOR + beacon.mId + SEPARATOR + beacon.mAttempts + SEPARATOR
+                        + beacon.mNextAttemptTime);
+            }
+        }
+
+        // Write the live records to a new file and swap it in, so a crash leaves one intact copy.
+        File journalFile = getJournalFile();
+        File compactedFile = new File(journalFile.getPath() + ".tmp");
+        if (writeRecords(compactedFile, false, records.toArray(new String[records.size()]))
+                && compactedFile.renameTo(journalFile)) {
+            for (PendingBeacon beacon : mPendingBeacons.values()) {
+                beacon.mHasRetryRecord = beacon.mAttempts > 0;
+            }
+            mStaleRecordCount = 0;
+            mCompactionCount++;
+        } else {
+            compactedFile.delete();
+        }
+    }
+
+    private boolean writeRecords(File file, boolean append, String... records) {
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(file, append), UTF_8);
+            for (String record : records) {
+                writer.write(record);
+                writer.write('\n');
+            }
+            writer.flush();
+            return true;
+        } catch (IOException e) {
+            Log.d("MoPub", "Unable to write to the tracking journal.", e);
+            return false;
+        } finally {
+            closeStream(writer);
+        }
+    }
+
+    static class PendingBeacon {
+        final long mId;
+        final long mCreationTime;
+        final String mUserAgent;
+        final String mUrl;
+        int mAttempts;
+        long mNextAttemptTime;
+        boolean mHasRetryRecord;
+
+        PendingBeacon(long id, long creationTime, String userAgent, String url) {
+            mId = id;
+            mCreationTime = creationTime;
+            mUserAgent = userAgent;
+            mUrl = url;
+            mNextAttemptTime = creationTime + INITIAL_RETRY_DELAY_MILLISECONDS;
+        }
+    }
+}
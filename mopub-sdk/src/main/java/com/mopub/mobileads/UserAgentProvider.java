@@ -0,0 +1,80 @@
+package com.mopub.mobileads;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Looper;
+import android.util.Log;
+import android.webkit.WebView;
+
+import static android.content.Context.MODE_PRIVATE;
+
+/*
+ * Provides the WebView user agent to every ad request and tracking call in the process. Reading it
+ * means constructing a WebView, which is expensive, so it is read once and kept both in memory and
+ * in SharedPreferences. The stored value is only trusted for the OS build and app version that wrote
+ * it, since either can change what the WebView reports.
+ */
+public class UserAgentProvider {
+    static final String PREFERENCE_NAME = "mopubSettings";
+    static final String USER_AGENT_KEY = "userAgent";
+    static final String USER_AGENT_VERSION_KEY = "userAgentVersion";
+
+    private static String sUserAgent;
+
+    /*
+     * Must be called on the main thread the first time in a fresh install; other threads get the
+     * system's default HTTP user agent until the WebView's has been read.
+     */
+    public static synchronized String getUserAgent(Context context) {
+        if (sUserAgent != null) {
+            return sUserAgent;
+        }
+
+        SharedPreferences preferences = context.getSharedPreferences(PREFERENCE_NAME, MODE_PRIVATE);
+        String version = getVersionKey(context);
+        if (version.equals(preferences.getString(USER_AGENT_VERSION_KEY, null))) {
+            sUserAgent = preferences.getString(USER_AGENT_KEY, null);
+            if (sUserAgent != null) {
+                return sUserAgent;
+            }
+        }
+
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            Log.d("MoPub", "WebView user agent not available yet, using the default HTTP user agent.");
+            return getDefaultUserAgent();
+        }
+
+        sUserAgent = new WebView(context).getSettings().getUserAgentString();
+        if (sUserAgent == null) {
+            sUserAgent = getDefaultUserAgent();
+        }
+
+        preferences.edit()
+                .putString(USER_AGENT_KEY, sUserAgent)
+                .putString(USER_AGENT_VERSION_KEY, version)
+                .commit();
+        return sUserAgent;
+    }
+
+    @Deprecated // for testing
+    public static synchronized void clearCache() {
+        sUserAgent = null;
+    }
+
+    static String getVersionKey(Context context) {
+        int appVersionCode = 0;
+        try {
+            appVersionCode = context.getPackageManager().getPackageInfo(context.getPackageName(), 0).versionCode;
+        } catch (PackageManager.NameNotFoundException e) {
+            // The build fingerprint alone will have to do.
+        }
+        return Build.FINGERPRINT + "/" + appVersionCode;
+    }
+
+    private static String getDefaultUserAgent() {
+        String userAgent = System.getProperty("http.agent");
+        return (userAgent != null) ? userAgent : "";
+    }
+}
@@ -0,0 +1,264 @@
+package com.mopub.mobileads;
+
+import android.graphics.Rect;
+import android.os.Handler;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import com.mopub.mobileads.util.DateAndTime;
+import com.mopub.mobileads.util.VersionCode;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import static com.mopub.mobileads.util.VersionCode.HONEYCOMB_MR1;
+import static com.mopub.mobileads.util.VersionCode.JELLY_BEAN;
+
+/*
+ * Tracks how much of each registered view is on screen. Instead of polling, checks are triggered by
+ * the layout, scroll and pre-draw callbacks of the views' ViewTreeObservers, and are throttled to at
+ * most one every CHECK_INTERVAL_MILLISECONDS. One set of callbacks is shared by all tracked views in
+ * a window.
+ *
+ * Only attached views are observed: a detached view has a temporary ViewTreeObserver whose listeners
+ * are merged into the window's observer on attach, so observing it would register them twice.
+ */
+public class ViewabilityTracker {
+    static final long CHECK_INTERVAL_MILLISECONDS = 100;
+
+    interface ViewabilityListener {
+        void onViewabilityChanged(boolean isViewable, int visiblePercent);
+    }
+
+    private static ViewabilityTracker instance;
+
+    private final Map<View, TrackedView> mTrackedViews = new WeakHashMap<View, TrackedView>();
+    private final Map<ViewTreeObserver, Boolean> mObservers = new WeakHashMap<ViewTreeObserver, Boolean>();
+    private final Handler mHandler = new Handler();
+    private View.OnAttachStateChangeListener mOnAttachStateChangeListener;
+    private final Rect mVisibleRect = new Rect();
+    private boolean mIsCheckScheduled;
+
+    private final Runnable mCheckRunnable = new Runnable() {
+        public void run() {
+            mIsCheckScheduled = false;
+            checkViewability();
+        }
+    };
+
+    private final ViewTreeObserver.OnPreDrawListener mOnPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+        public boolean onPreDraw() {
+            scheduleCheck();
+            return true;
+        }
+    };
+
+    private final ViewTreeObserver.OnScrollChangedListener mOnScrollChangedListener = new ViewTreeObserver.OnScrollChangedListener() {
+        public void onScrollChanged() {
+            scheduleCheck();
+        }
+    };
+
+    private final ViewTreeObserver.OnGlobalLayoutListener mOnGlobalLayoutListener = new ViewTreeObserver.OnGlobalLayoutListener() {
+        public void onGlobalLayout() {
+            scheduleCheck();
+        }
+    };
+
+    static ViewabilityTracker getInstance() {
+        if (instance == null) {
+            instance = new ViewabilityTracker();
+        }
+        return instance;
+    }
+
+    @Deprecated // for testing
+    public static void setInstance(ViewabilityTracker viewabilityTracker) {
+        instance = viewabilityTracker;
+    }
+
+    /*
+     * The listener is told whenever the view goes on or off screen. Callers must untrack the view
+     * when they are done with it.
+     */
+    void track(View view, ViewabilityListener listener) {
+        mTrackedViews.put(view, new TrackedView(listener));
+        if (canListenForAttach()) {
+            view.addOnAttachStateChangeListener(getOnAttachStateChangeListener());
+        }
+        observe(view);
+        scheduleCheck();
+    }
+
+    void untrack(View view) {
+        if (mTrackedViews.remove(view) != null && canListenForAttach()) {
+            view.removeOnAttachStateChangeListener(getOnAttachStateChangeListener());
+        }
+        if (mTrackedViews.isEmpty()) {
+            removeObservers();
+            mHandler.removeCallbacks(mCheckRunnable);
+            mIsCheckScheduled = false;
+        }
+    }
+
+    boolean isViewable(View view) {
+        TrackedView trackedView = mTrackedViews.get(view);
+        return trackedView != null && trackedView.mIsViewable;
+    }
+
+    int getVisiblePercent(View view) {
+        TrackedView trackedView = mTrackedViews.get(view);
+        return (trackedView != null) ? trackedView.mVisiblePercent : 0;
+    }
+
+    /*
+     * Total time the view has been on screen since it was tracked, including the current stretch.
+     */
+    long getTimeInViewMilliseconds(View view) {
+        TrackedView trackedView = mTrackedViews.get(view);
+        if (trackedView == null) {
+            return 0;
+        }
+
+        long timeInView = trackedView.mTimeInViewMilliseconds;
+        if (trackedView.mIsViewable) {
+            timeInView += now() - trackedView.mViewableSince;
+        }
+        return timeInView;
+    }
+
+    void scheduleCheck() {
+        if (!mIsCheckScheduled) {
+            mIsCheckScheduled = true;
+            mHandler.postDelayed(mCheckRunnable, CHECK_INTERVAL_MILLISECONDS);
+        }
+    }
+
+    void checkViewability() {
+        // Listeners may untrack views, so notify them after the loop.
+        ArrayList<TrackedView> changedViews = new ArrayList<TrackedView>();
+        boolean hasDetachedViews = false;
+
+        for (Map.Entry<View, TrackedView> entry : mTrackedViews.entrySet()) {
+            View view = entry.getKey();
+            TrackedView trackedView = entry.getValue();
+
+            if (!observe(view)) {
+                hasDetachedViews = true;
+            }
+
+            int visiblePercent = computeVisiblePercent(view);
+            boolean isViewable = visiblePercent > 0;
+            trackedView.mVisiblePercent = visiblePercent;
+
+            if (isViewable != trackedView.mIsViewable) {
+                long now = now();
+                if (isViewable) {
+                    trackedView.mViewableSince = now;
+                } else {
+                    trackedView.mTimeInViewMilliseconds += now - trackedView.mViewableSince;
+                }
+                trackedView.mIsViewable = isViewable;
+                changedViews.add(trackedView);
+            }
+        }
+
+        for (TrackedView trackedView : changedViews) {
+            trackedView.mListener.onViewabilityChanged(trackedView.mIsViewable, trackedView.mVisiblePercent);
+        }
+
+        // Without attach callbacks, keep checking until every view is attached and observed.
+        if (hasDetachedViews && !canListenForAttach() && !mTrackedViews.isEmpty()) {
+            scheduleCheck();
+        }
+    }
+
+    private int computeVisiblePercent(View view) {
+        if (!view.isShown()) {
+            return 0;
+        }
+
+        long area = (long) view.getWidth() * view.getHeight();
+        if (area <= 0 || !view.getGlobalVisibleRect(mVisibleRect)) {
+            return 0;
+        }
+
+        long visibleArea = (long) mVisibleRect.width() * mVisibleRect.height();
+        return (int) Math.min(100, Math.max(0, (100 * visibleArea) / area));
+    }
+
+    /*
+     * Returns false if the view is not attached yet and so cannot be observed.
+     */
+    private boolean observe(View view) {
+        if (view.getWindowToken() == null) {
+            return false;
+        }
+
+        // Once attached, this is the window's observer, which is where the listeners live.
+        ViewTreeObserver observer = view.getViewTreeObserver();
+        if (observer == null || !observer.isAlive() || mObservers.containsKey(observer)) {
+            return true;
+        }
+
+        observer.addOnPreDrawListener(mOnPreDrawListener);
+        observer.addOnScrollChangedListener(mOnScrollChangedListener);
+        observer.addOnGlobalLayoutListener(mOnGlobalLayoutListener);
+        mObservers.put(observer, true);
+        return true;
+    }
+
+    private void removeObservers() {
+        for (ViewTreeObserver observer : mObservers.keySet()) {
+            if (observer.isAlive()) {
+                observer.removeOnPreDrawListener(mOnPreDrawListener);
+                observer.removeOnScrollChangedListener(mOnScrollChangedListener);
+                if (VersionCode.currentApiLevel().isAtLeast(JELLY_BEAN)) {
+                    observer.removeOnGlobalLayoutListener(mOnGlobalLayoutListener);
+                } else {
+                    observer.removeGlobalOnLayoutListener(mOnGlobalLayoutListener);
+                }
+            }
+        }
+        mObservers.clear();
+    }
+
+    private static boolean canListenForAttach() {
+        return VersionCode.currentApiLevel().isAtLeast(HONEYCOMB_MR1);
+    }
+
+    /*
+     * Only called on API 12+, where View.OnAttachStateChangeListener exists.
+     */
+    private View.OnAttachStateChangeListener getOnAttachStateChangeListener() {
+        if (mOnAttachStateChangeListener == null) {
+            mOnAttachStateChangeListener = new View.OnAttachStateChangeListener() {
+                public void onViewAttachedToWindow(View view) {
+                    observe(view);
+                    scheduleCheck();
+                }
+
+                public void onViewDetachedFromWindow(View view) {
+                    scheduleCheck();
+                }
+            };
+        }
+        return mOnAttachStateChangeListener;
+    }
+
+    private static long now() {
+        return DateAndTime.now().getTime();
+    }
+
+    private static class TrackedView {
+        final ViewabilityListener mListener;
+        boolean mIsViewable;
+        int mVisiblePercent;
+        long mViewableSince;
+        long mTimeInViewMilliseconds;
+
+        TrackedView(ViewabilityListener listener) {
+            mListener = listener;
+        }
+    }
+}
@@ -1,22 +1,59 @@
 package com.mopub.mobileads.factories;
 
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import com.mopub.mobileads.BaseHtmlWebView;
+import com.mopub.mobileads.util.VersionCode;
 
 import java.util.LinkedList;
 import java.util.Queue;
 
+/*
+ * Keeps a few WebViews ready so that an ad doesn't pay for WebView construction when it arrives.
+ * Nothing is built up front: WebViews are created one at a time while the main thread is idle, and
+ * only as many as recent demand calls for. A request that finds the pool empty creates its WebView
+ * on the spot and raises the target size, up to a cap that depends on the device's memory class.
+ * Idle WebViews are released when the system asks the app to trim memory.
+ */
 abstract public class BaseHtmlWebViewPool<V extends BaseHtmlWebView, L> {
     public final static int POOL_SIZE = 3;
-    private Queue<V> mNextHtmlWebViews;
+    static final int MINIMUM_TARGET_SIZE = 1;
+    static final int LOW_MEMORY_CLASS_MEGABYTES = 24;
+    static final int MEDIUM_MEMORY_CLASS_MEGABYTES = 48;
+
+    private final Queue<V> mNextHtmlWebViews;
+    private final int mMaximumSize;
+    private int mTargetSize;
+    private boolean mIsWarmUpScheduled;
+    private boolean mIsCleanedUp;
+    private Object mTrimMemoryCallbacks;
     protected Context mContext;
 
+    private final MessageQueue.IdleHandler mWarmUpIdleHandler = new MessageQueue.IdleHandler() {
+        public boolean queueIdle() {
+            mIsWarmUpScheduled = warmUp();
+            return mIsWarmUpScheduled;
+        }
+    };
+
+    private final Runnable mScheduleWarmUpRunnable = new Runnable() {
+        public void run() {
+            scheduleWarmUp();
+        }
+    };
+
     BaseHtmlWebViewPool(Context context) {
         mContext = context;
         mNextHtmlWebViews = new LinkedList<V>();
-        for (int i = 0; i < POOL_SIZE; i++) {
-            mNextHtmlWebViews.add(createNewHtmlWebView());
-        }
+        mMaximumSize = computeMaximumSize(context);
+        mTargetSize = MINIMUM_TARGET_SIZE;
+        registerTrimMemoryCallbacks();
+        scheduleWarmUp();
     }
 
     abstract protected V createNewHtmlWebView();
@@ -27,18 +64,145 @@ abstract public class BaseHtmlWebViewPool<V extends BaseHtmlWebView, L> {
             boolean isScrollable,
             String redirectUrl,
             String clickthroughUrl) {
-        V returnValue = mNextHtmlWebViews.remove();
+        V returnValue = mNextHtmlWebViews.poll();
 
-        mNextHtmlWebViews.add(createNewHtmlWebView());
+        if (returnValue == null) {
+            returnValue = createNewHtmlWebView();
+            mTargetSize = Math.min(mTargetSize + 1, mMaximumSize);
+        }
+
+        scheduleWarmUp();
 
         initializeHtmlWebView(returnValue, customEventListener, isScrollable, redirectUrl, clickthroughUrl);
         return returnValue;
     }
 
+    /*
+     * Takes back a WebView that is no longer showing an ad. It is reset and kept for the next request
+     * if the pool has room for it, and destroyed otherwise.
+     */
+    public void recycle(V htmlWebView) {
+        if (mIsCleanedUp || htmlWebView.getParent() != null || mNextHtmlWebViews.size() >= mMaximumSize) {
+            htmlWebView.destroy();
+            return;
+        }
+
+        htmlWebView.reset();
+        mNextHtmlWebViews.add(htmlWebView);
+    }
+
+    /*
+     * Creates one WebView if the pool is below its target size. Returns whether more are needed.
+     */
+    boolean warmUp() {
+        if (mIsCleanedUp || mNextHtmlWebViews.size() >= mTargetSize) {
+            return false;
+        }
+
+        mNextHtmlWebViews.add(createNewHtmlWebView());
+        return mNextHtmlWebViews.size() < mTargetSize;
+    }
+
+    void trimMemory() {
+        destroyIdleHtmlWebViews();
+        mTargetSize = MINIMUM_TARGET_SIZE;
+    }
+
+    int getIdleCount() {
+        return mNextHtmlWebViews.size();
+    }
+
+    int getTargetSize() {
+        return mTargetSize;
+    }
+
+    int getMaximumSize() {
+        return mMaximumSize;
+    }
+
     void cleanup() {
-        for (final V htmlBannerWebView : mNextHtmlWebViews) {
-            htmlBannerWebView.destroy();
+        mIsCleanedUp = true;
+        unregisterTrimMemoryCallbacks();
+        destroyIdleHtmlWebViews();
+    }
+
+    private void scheduleWarmUp() {
+        if (mIsWarmUpScheduled || mIsCleanedUp) {
+            return;
+        }
+
+        // Idle handlers run on the thread whose queue they are added to, which must be the main one.
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            new Handler(Looper.getMainLooper()).post(mScheduleWarmUpRunnable);
+            return;
+        }
+
+        MessageQueue messageQueue = Looper.myQueue();
+        if (messageQueue != null) {
+            mIsWarmUpScheduled = true;
+            messageQueue.addIdleHandler(mWarmUpIdleHandler);
+        }
+    }
+
+    private void destroyIdleHtmlWebViews() {
+        for (final V htmlWebView : mNextHtmlWebViews) {
+            htmlWebView.destroy();
         }
         mNextHtmlWebViews.clear();
     }
+
+    private static int computeMaximumSize(Context context) {
+        if (VersionCode.currentApiLevel().isBelow(VersionCode.ECLAIR)) {
+            return MINIMUM_TARGET_SIZE;
+        }
+
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClass = (activityManager != null) ? activityManager.getMemoryClass() : 0;
+
+        if (memoryClass <= LOW_MEMORY_CLASS_MEGABYTES) {
+            return MINIMUM_TARGET_SIZE;
+        } else if (memoryClass <= MEDIUM_MEMORY_CLASS_MEGABYTES) {
+            return 2;
+        } else {
+            return POOL_SIZE;
+        }
+    }
+
+    private void registerTrimMemoryCallbacks() {
+        if (VersionCode.currentApiLevel().isBelow(VersionCode.ICE_CREAM_SANDWICH)) {
+            return;
+        }
+
+        // Kept as an Object so that older devices never load the ComponentCallbacks2 class.
+        TrimMemoryCallbacks callbacks = new TrimMemoryCallbacks();
+        getApplicationContext().registerComponentCallbacks(callbacks);
+        mTrimMemoryCallbacks = callbacks;
+    }
+
+    private void unregisterTrimMemoryCallbacks() {
+        if (mTrimMemoryCallbacks != null) {
+            getApplicationContext().unregisterComponentCallbacks((TrimMemoryCallbacks) mTrimMemoryCallbacks);
+            mTrimMemoryCallbacks = null;
+        }
+    }
+
+    private Context getApplicationContext() {
+        Context applicationContext = mContext.getApplicationContext();
+        return (applicationContext != null) ? applicationContext : mContext;
+    }
+
+    private class TrimMemoryCallbacks implements ComponentCallbacks2 {
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                trimMemory();
+            }
+        }
+
+        public void onConfigurationChanged(Configuration newConfiguration) {
+        }
+
+        public void onLowMemory() {
+            trimMemory();
+        }
+    }
 }
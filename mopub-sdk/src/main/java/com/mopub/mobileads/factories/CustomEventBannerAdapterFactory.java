@@ -3,6 +3,8 @@ package com.mopub.mobileads.factories;
 import com.mopub.mobileads.CustomEventBannerAdapter;
 import com.mopub.mobileads.MoPubView;
 
+import java.util.Map;
+
 public class CustomEventBannerAdapterFactory {
     protected static CustomEventBannerAdapterFactory instance = new CustomEventBannerAdapterFactory();
 
@@ -12,10 +14,14 @@ public class CustomEventBannerAdapterFactory {
     }
 
     public static CustomEventBannerAdapter create(MoPubView moPubView, String className, String classData) {
-        return instance.internalCreate(moPubView, className, classData);
+        return create(moPubView, className, classData, null);
+    }
+
+    public static CustomEventBannerAdapter create(MoPubView moPubView, String className, String classData, Map<String, String> paramsMap) {
+        return instance.internalCreate(moPubView, className, classData, paramsMap);
     }
 
-    protected CustomEventBannerAdapter internalCreate(MoPubView moPubView, String className, String classData) {
-        return new CustomEventBannerAdapter(moPubView, className, classData);
+    protected CustomEventBannerAdapter internalCreate(MoPubView moPubView, String className, String classData, Map<String, String> paramsMap) {
+        return new CustomEventBannerAdapter(moPubView, className, classData, paramsMap);
     }
 }
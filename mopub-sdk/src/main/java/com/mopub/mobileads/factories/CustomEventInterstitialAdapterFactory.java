@@ -3,6 +3,8 @@ package com.mopub.mobileads.factories;
 import com.mopub.mobileads.CustomEventInterstitialAdapter;
 import com.mopub.mobileads.MoPubInterstitial;
 
+import java.util.Map;
+
 public class CustomEventInterstitialAdapterFactory {
     protected static CustomEventInterstitialAdapterFactory instance = new CustomEventInterstitialAdapterFactory();
 
@@ -12,10 +14,14 @@ public class CustomEventInterstitialAdapterFactory {
     }
 
     public static CustomEventInterstitialAdapter create(MoPubInterstitial moPubInterstitial, String className, String classData) {
-        return instance.internalCreate(moPubInterstitial, className, classData);
+        return create(moPubInterstitial, className, classData, null);
+    }
+
+    public static CustomEventInterstitialAdapter create(MoPubInterstitial moPubInterstitial, String className, String classData, Map<String, String> paramsMap) {
+        return instance.internalCreate(moPubInterstitial, className, classData, paramsMap);
     }
 
-    protected CustomEventInterstitialAdapter internalCreate(MoPubInterstitial moPubInterstitial, String className, String classData) {
-        return new CustomEventInterstitialAdapter(moPubInterstitial, className, classData);
+    protected CustomEventInterstitialAdapter internalCreate(MoPubInterstitial moPubInterstitial, String className, String classData, Map<String, String> paramsMap) {
+        return new CustomEventInterstitialAdapter(moPubInterstitial, className, classData, paramsMap);
     }
 }
@@ -14,6 +14,10 @@ public class HtmlBannerWebViewFactory {
         return instance.internalCreate(customEventBannerListener, isScrollable, redirectUrl, clickthroughUrl);
     }
 
+    public static void recycle(HtmlBannerWebView htmlBannerWebView) {
+        instance.internalRecycle(htmlBannerWebView);
+    }
+
     public static void initialize(Context context) {
         instance.initializeInstance(context);
     }
@@ -40,6 +44,14 @@ public class HtmlBannerWebViewFactory {
         return instance.mHtmlBannerWebViewPool.getNextHtmlWebView(customEventBannerListener, isScrollable, clickthroughUrl, redirectUrl);
     }
 
+    public void internalRecycle(HtmlBannerWebView htmlBannerWebView) {
+        if (instance.mHtmlBannerWebViewPool != null) {
+            instance.mHtmlBannerWebViewPool.recycle(htmlBannerWebView);
+        } else {
+            htmlBannerWebView.destroy();
+        }
+    }
+
     @Deprecated // for testing
     public static void setInstance(HtmlBannerWebViewFactory factory) {
         instance = factory;
@@ -1,9 +1,45 @@
 package com.mopub.mobileads.factories;
 
+import org.apache.http.client.CookieStore;
+import org.apache.http.cookie.Cookie;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
 
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Hands out a single process-wide DefaultHttpClient backed by a thread-safe, pooled connection
+ * manager, so that ad requests, tracking beacons and MRAID downloads all reuse warm keep-alive
+ * connections. Callers must not shut down the returned client's connection manager; they should
+ * release connections by consuming (or closing) the response entity instead.
+ *
+ * Cookies are ignored: with a fresh client per request they were never replayed, and a shared
+ * client would otherwise send ad server and tracker cookies on every later request for the life of
+ * the process.
+ */
 public class HttpClientFactory {
+    public static final int SOCKET_SIZE = 8192;
+    private static final int DEFAULT_TIMEOUT_MILLISECONDS = 10000;
+    private static final int CONNECTION_REQUEST_TIMEOUT_MILLISECONDS = 10000;
+    private static final int MAX_TOTAL_CONNECTIONS = 10;
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 4;
+    private static final long IDLE_CONNECTION_TIMEOUT_MILLISECONDS = 30000;
+
     private static HttpClientFactory instance = new HttpClientFactory();
+    private DefaultHttpClient mSharedHttpClient;
 
     public static void setInstance(HttpClientFactory factory) {
         instance = factory;
@@ -13,7 +49,67 @@ public class HttpClientFactory {
         return instance.internalCreate();
     }
 
-    protected DefaultHttpClient internalCreate() {
-        return new DefaultHttpClient();
+    protected synchronized DefaultHttpClient internalCreate() {
+        if (mSharedHttpClient == null) {
+            mSharedHttpClient = createSharedHttpClient();
+        } else {
+            evictIdleConnections(mSharedHttpClient.getConnectionManager());
+        }
+        return mSharedHttpClient;
+    }
+
+    private DefaultHttpClient createSharedHttpClient() {
+        HttpParams httpParameters = new BasicHttpParams();
+
+        HttpConnectionParams.setConnectionTimeout(httpParameters, DEFAULT_TIMEOUT_MILLISECONDS);
+        HttpConnectionParams.setSoTimeout(httpParameters, DEFAULT_TIMEOUT_MILLISECONDS);
+
+        // Set the buffer size to avoid OutOfMemoryError exceptions on certain HTC devices.
+        // http://stackoverflow.com/questions/5358014/android-httpclient-oom-on-4g-lte-htc-thunderbolt
+        HttpConnectionParams.setSocketBufferSize(httpParameters, SOCKET_SIZE);
+
+        ConnManagerParams.setTimeout(httpParameters, CONNECTION_REQUEST_TIMEOUT_MILLISECONDS);
+        ConnManagerParams.setMaxTotalConnections(httpParameters, MAX_TOTAL_CONNECTIONS);
+        ConnManagerParams.setMaxConnectionsPerRoute(httpParameters,
+                new ConnPerRouteBean(MAX_CONNECTIONS_PER_ROUTE));
+
+        SchemeRegistry schemeRegistry = new SchemeRegistry();
+        schemeRegistry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
+        schemeRegistry.register(new Scheme("https", SSLSocketFactory.getSocketFactory(), 443));
+
+        ClientConnectionManager connectionManager =
+                new ThreadSafeClientConnManager(httpParameters, schemeRegistry);
+
+        DefaultHttpClient httpClient = new DefaultHttpClient(connectionManager, httpParameters);
+        httpClient.setCookieStore(new NoCookieStore());
+        return httpClient;
+    }
+
+    private void evictIdleConnections(ClientConnectionManager connectionManager) {
+        if (connectionManager == null) {
+            return;
+        }
+
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(IDLE_CONNECTION_TIMEOUT_MILLISECONDS, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+     * Drops every cookie it is handed, so that nothing is replayed on later requests.
+     */
+    private static class NoCookieStore implements CookieStore {
+        public void addCookie(Cookie cookie) {
+        }
+
+        public List<Cookie> getCookies() {
+            return Collections.emptyList();
+        }
+
+        public boolean clearExpired(Date date) {
+            return false;
+        }
+
+        public void clear() {
+        }
     }
 }
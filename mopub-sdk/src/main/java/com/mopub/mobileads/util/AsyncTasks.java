@@ -0,0 +1,75 @@
+package com.mopub.mobileads.util;
+
+import android.os.AsyncTask;
+import android.util.Log;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+
+import static com.mopub.mobileads.util.VersionCode.HONEYCOMB;
+
+/*
+ * AsyncTask.executeOnExecutor() and AsyncTask.THREAD_POOL_EXECUTOR only exist on Honeycomb and up,
+ * so they are looked up reflectively. The lookups happen once per process rather than once per task.
+ */
+public class AsyncTasks {
+    private static boolean sHasResolvedMethods;
+    private static Method sExecuteOnExecutorMethod;
+    private static Executor sThreadPoolExecutor;
+
+    public static <P> void safeExecuteOnExecutor(AsyncTask<P, ?, ?> asyncTask, Executor executor, P... params) {
+        resolveMethods();
+
+        if (sExecuteOnExecutorMethod == null || executor == null) {
+            asyncTask.execute(params);
+            return;
+        }
+
+        try {
+            sExecuteOnExecutorMethod.invoke(asyncTask, executor, params);
+        } catch (InvocationTargetException exception) {
+            Log.d("MoPub", "Error executing AsyncTask on an executor, thrown by executeOnExecutor: "
+                    + exception.getCause());
+        } catch (Exception exception) {
+            Log.d("MoPub", "Error executing AsyncTask on an executor: " + exception.toString());
+        }
+    }
+
+    /*
+     * Returns AsyncTask.THREAD_POOL_EXECUTOR, or null below Honeycomb.
+     */
+    public static Executor getThreadPoolExecutor() {
+        resolveMethods();
+        return sThreadPoolExecutor;
+    }
+
+    private static synchronized void resolveMethods() {
+        if (sHasResolvedMethods) {
+            return;
+        }
+        sHasResolvedMethods = true;
+
+        if (VersionCode.currentApiLevel().isBelow(HONEYCOMB)) {
+            return;
+        }
+
+        try {
+            sExecuteOnExecutorMethod = AsyncTask.class.getMethod("executeOnExecutor", Executor.class, Object[].class);
+            Field threadPoolExecutorField = AsyncTask.class.getField("THREAD_POOL_EXECUTOR");
+            sThreadPoolExecutor = (Executor) threadPoolExecutorField.get(null);
+        } catch (Exception exception) {
+            Log.d("MoPub", "Unable to find AsyncTask.executeOnExecutor; falling back to execute.");
+            sExecuteOnExecutorMethod = null;
+            sThreadPoolExecutor = null;
+        }
+    }
+
+    @Deprecated // for testing
+    public static synchronized void reset() {
+        sHasResolvedMethods = false;
+        sExecuteOnExecutorMethod = null;
+        sThreadPoolExecutor = null;
+    }
+}
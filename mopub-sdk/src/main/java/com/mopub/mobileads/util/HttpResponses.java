@@ -1,7 +1,14 @@
 package com.mopub.mobileads.util;
 
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.apache.http.util.EntityUtils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class HttpResponses {
     public static String extractHeader(HttpResponse response, String headerName) {
@@ -21,4 +28,97 @@ public class HttpResponses {
         }
         return header.equals("1");
     }
+
+    /*
+     * Releases the connection held by this response back to the shared connection pool.
+     * Safe to call on responses whose content has already been read.
+     */
+    public static void consumeContent(HttpResponse response) {
+        if (response == null) {
+            return;
+        }
+
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return;
+        }
+
+        try {
+            entity.consumeContent();
+        } catch (IOException exception) {
+            // The connection will be discarded by the connection manager.
+        }
+    }
+
+    /*
+     * Reads the response body using the charset from its Content-Type (UTF-8 by default).
+     * Returns an empty string if the response has no body.
+     */
+    public static String asResponseString(HttpResponse response) throws IOException {
+        return asResponseString(response, null);
+    }
+
+    /*
+     * As above, and adds the body bytes to bytesRead (if not null) as they are read, so that another
+     * thread can tell how much of the body is still outstanding.
+     */
+    public static String asResponseString(HttpResponse response, AtomicLong bytesRead) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return "";
+        }
+
+        String charsetName = null;
+        try {
+            charsetName = EntityUtils.getContentCharSet(entity);
+        } catch (RuntimeException exception) {
+            // A malformed Content-Type; fall back to the default charset.
+        }
+
+        InputStream content = entity.getContent();
+        if (content == null) {
+            return "";
+        }
+        if (bytesRead != null) {
+            content = new CountingInputStream(content, bytesRead);
+        }
+
+        return Strings.fromStream(content, charsetName, entity.getContentLength());
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final AtomicLong mBytesRead;
+
+        CountingInputStream(InputStream in, AtomicLong bytesRead) {
+            super(in);
+            mBytesRead = bytesRead;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result != -1) {
+                mBytesRead.incrementAndGet();
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            int result = super.read(buffer, offset, count);
+            if (result > 0) {
+                mBytesRead.addAndGet(result);
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            long result = super.skip(count);
+            if (result > 0) {
+                mBytesRead.addAndGet(result);
+            }
+            return result;
+        }
+    }
 }
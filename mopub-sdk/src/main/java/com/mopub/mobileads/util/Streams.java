@@ -1,5 +1,6 @@
 package com.mopub.mobileads.util;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -16,4 +17,16 @@ public class Streams {
             // too bad
         }
     }
+
+    public static void closeStream(Closeable stream) {
+        if (stream == null) {
+            return;
+        }
+
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // Unable to close the stream
+        }
+    }
 }
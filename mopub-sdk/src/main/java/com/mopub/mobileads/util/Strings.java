@@ -2,21 +2,56 @@ package com.mopub.mobileads.util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
 
 public class Strings {
+    public static final String DEFAULT_CHARSET = "UTF-8";
+    private static final int BUFFER_SIZE = 4096;
+    private static final int MAXIMUM_INITIAL_CAPACITY = 512 * 1024;
+
     public static String fromStream(InputStream inputStream) throws IOException {
-        int numberBytesRead = 0;
-        StringBuffer out = new StringBuffer();
-        byte[] bytes = new byte[4096];
+        return fromStream(inputStream, DEFAULT_CHARSET, -1);
+    }
 
-        while (numberBytesRead != -1) {
-            out.append(new String(bytes, 0, numberBytesRead));
-            numberBytesRead = inputStream.read(bytes);
-        }
+    /*
+     * Decodes the whole stream with the given charset (UTF-8 if it is null or unsupported) and closes
+     * it. The stream is read through a single decoder, so multibyte characters that straddle two reads
+     * come out intact. expectedByteCount, e.g. a Content-Length, is only used to size the result; pass
+     * -1 if it isn't known.
+     */
+    public static String fromStream(InputStream inputStream, String charsetName, long expectedByteCount)
+            throws IOException {
+        Reader reader = new InputStreamReader(inputStream, toCharset(charsetName));
+
+        try {
+            int initialCapacity = (expectedByteCount > 0)
+                    ? (int) Math.min(expectedByteCount, MAXIMUM_INITIAL_CAPACITY)
+                    : BUFFER_SIZE;
+            StringBuilder out = new StringBuilder(initialCapacity);
+            char[] buffer = new char[BUFFER_SIZE];
 
-        inputStream.close();
+            int numberCharsRead;
+            while ((numberCharsRead = reader.read(buffer)) != -1) {
+                out.append(buffer, 0, numberCharsRead);
+            }
 
-        return out.toString();
+            return out.toString();
+        } finally {
+            Streams.closeStream(reader);
+        }
+    }
+
+    private static Charset toCharset(String charsetName) {
+        if (charsetName != null) {
+            try {
+                return Charset.forName(charsetName);
+            } catch (IllegalArgumentException exception) {
+                // Covers both illegal and unsupported charset names.
+            }
+        }
+        return Charset.forName(DEFAULT_CHARSET);
     }
 
     public static boolean isEmpty(String input) {
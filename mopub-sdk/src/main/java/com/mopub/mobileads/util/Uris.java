@@ -0,0 +1,65 @@
+package com.mopub.mobileads.util;
+
+public class Uris {
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /*
+     * Appends value to out, percent-encoded exactly as Uri.encode() would do it: letters, digits and
+     * "_-!.~'()*" are kept, everything else is written as the %XX escapes of its UTF-8 bytes. Values
+     * that need no escaping (numbers, versions, identifiers) are appended as-is, and nothing is
+     * allocated either way.
+     */
+    public static void appendEncoded(StringBuilder out, String value) {
+        int length = value.length();
+        int firstUnsafeIndex = 0;
+        while (firstUnsafeIndex < length && isAllowed(value.charAt(firstUnsafeIndex))) {
+            firstUnsafeIndex++;
+        }
+
+        if (firstUnsafeIndex == length) {
+            out.append(value);
+            return;
+        }
+
+        out.append(value, 0, firstUnsafeIndex);
+
+        for (int i = firstUnsafeIndex; i < length; i++) {
+            char c = value.charAt(i);
+
+            if (isAllowed(c)) {
+                out.append(c);
+            } else if (c < 0x80) {
+                appendEscaped(out, c);
+            } else if (c < 0x800) {
+                appendEscaped(out, 0xC0 | (c >> 6));
+                appendEscaped(out, 0x80 | (c & 0x3F));
+            } else if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+                appendEscaped(out, 0xE0 | (c >> 12));
+                appendEscaped(out, 0x80 | ((c >> 6) & 0x3F));
+                appendEscaped(out, 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendEscaped(out, 0xF0 | (codePoint >> 18));
+                appendEscaped(out, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendEscaped(out, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendEscaped(out, 0x80 | (codePoint & 0x3F));
+            } else {
+                // The UTF-8 encoder replaces an unpaired surrogate with '?'.
+                appendEscaped(out, '?');
+            }
+        }
+    }
+
+    private static boolean isAllowed(char c) {
+        return (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9')
+                || "_-!.~'()*".indexOf(c) != -1;
+    }
+
+    private static void appendEscaped(StringBuilder out, int b) {
+        out.append('%');
+        out.append(HEX_DIGITS[(b >> 4) & 0xF]);
+        out.append(HEX_DIGITS[b & 0xF]);
+    }
+}
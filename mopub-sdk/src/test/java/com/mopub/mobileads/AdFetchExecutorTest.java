@@ -0,0 +1,52 @@
+package com.mopub.mobileads;
+
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@RunWith(SdkTestRunner.class)
+public class AdFetchExecutorTest {
+    @Test
+    public void getExecutor_shouldReturnTheSameDefaultExecutor() throws Exception {
+        Executor executor = AdFetchExecutor.getExecutor();
+
+        assertThat(executor).isInstanceOf(ThreadPoolExecutor.class);
+        assertThat(((ThreadPoolExecutor) executor).getMaximumPoolSize()).isEqualTo(AdFetchExecutor.DEFAULT_THREAD_COUNT);
+        assertThat(AdFetchExecutor.getExecutor()).isSameAs(executor);
+    }
+
+    @Test
+    public void setExecutor_shouldReplaceTheDefaultExecutor() throws Exception {
+        ThreadPoolExecutor defaultExecutor = (ThreadPoolExecutor) AdFetchExecutor.getExecutor();
+        Executor appExecutor = mock(Executor.class);
+
+        AdFetchExecutor.setExecutor(appExecutor);
+
+        assertThat(AdFetchExecutor.getExecutor()).isSameAs(appExecutor);
+        assertThat(defaultExecutor.isShutdown()).isTrue();
+    }
+
+    @Test
+    public void setExecutor_withNull_shouldRestoreADefaultExecutor() throws Exception {
+        AdFetchExecutor.setExecutor(mock(Executor.class));
+
+        AdFetchExecutor.setExecutor(null);
+
+        assertThat(AdFetchExecutor.getExecutor()).isInstanceOf(ThreadPoolExecutor.class);
+    }
+
+    @Test
+    public void configure_shouldSizeTheExecutor() throws Exception {
+        AdFetchExecutor.configure(4, AdFetchExecutor.DEFAULT_THREAD_PRIORITY, 8);
+
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) AdFetchExecutor.getExecutor();
+        assertThat(executor.getCorePoolSize()).isEqualTo(4);
+        assertThat(executor.getQueue().remainingCapacity()).isEqualTo(8);
+    }
+}
@@ -0,0 +1,131 @@
+package com.mopub.mobileads;
+
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import com.mopub.mobileads.test.support.TestHttpResponseWithHeaders;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.Robolectric;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.mopub.mobileads.AdFetcher.AD_TYPE_HEADER;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@RunWith(SdkTestRunner.class)
+public class AdFetchTaskTest {
+    private static final String HTML_BODY = "<html><body>an ad that nobody will see</body></html>";
+
+    private AdFetchTask subject;
+    private AdViewController adViewController;
+
+    @Before
+    public void setUp() throws Exception {
+        adViewController = mock(AdViewController.class);
+        TaskTracker taskTracker = new TaskTracker();
+        taskTracker.newTaskStarted();
+        subject = new AdFetchTask(taskTracker, adViewController, "user agent", 10000);
+    }
+
+    @Test
+    public void abort_beforeTheRequestIsSent_shouldNotSendIt() throws Exception {
+        subject.abort();
+
+        assertThat(subject.doInBackground("http://www.mopub.com/m/ad")).isNull();
+        assertThat(Robolectric.httpRequestWasMade()).isFalse();
+        assertThat(AdFetchTask.getAbortedRequestCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void abort_beforeTheBodyIsRead_shouldAbortTheRequestAndCountTheWholeBody() throws Exception {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.addHeader(AD_TYPE_HEADER, "html");
+        response.setEntity(new StringEntity(HTML_BODY) {
+            @Override
+            public InputStream getContent() throws IOException {
+                subject.abort();
+                return super.getContent();
+            }
+        });
+        Robolectric.addPendingHttpResponse(response);
+
+        subject.doInBackground("http://www.mopub.com/m/ad");
+
+        HttpGet request = (HttpGet) Robolectric.getSentHttpRequest(0);
+        assertThat(request.isAborted()).isTrue();
+        assertThat(AdFetchTask.getAbortedRequestCount()).isEqualTo(1);
+        assertThat(AdFetchTask.getAbortedResponseBytes()).isEqualTo(HTML_BODY.length());
+    }
+
+    @Test
+    public void abort_whileTheBodyIsBeingRead_shouldCountOnlyTheUnreadBytes() throws Exception {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.addHeader(AD_TYPE_HEADER, "html");
+        response.setEntity(new StringEntity(HTML_BODY) {
+            @Override
+            public InputStream getContent() throws IOException {
+                return new FilterInputStream(super.getContent()) {
+                    private boolean mHasReadFirstChunk;
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int count) throws IOException {
+                        if (mHasReadFirstChunk) {
+                            subject.abort();
+                            throw new IOException("Connection aborted");
+                        }
+                        mHasReadFirstChunk = true;
+                        return super.read(buffer, offset, Math.min(count, 10));
+                    }
+                };
+            }
+        });
+        Robolectric.addPendingHttpResponse(response);
+
+        subject.doInBackground("http://www.mopub.com/m/ad");
+
+        assertThat(AdFetchTask.getAbortedRequestCount()).isEqualTo(1);
+        assertThat(AdFetchTask.getAbortedResponseBytes()).isEqualTo(HTML_BODY.length() - 10);
+    }
+
+    @Test
+    public void abort_afterTheBodyHasBeenRead_shouldNotAbortTheRequestOrCountAnyBytes() throws Exception {
+        Robolectric.addPendingHttpResponse(new TestHttpResponseWithHeaders(200, HTML_BODY));
+        doAnswer(new Answer<Void>() {
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                subject.abort();
+                return null;
+            }
+        }).when(adViewController).configureUsingAdResponse(any(AdResponse.class));
+
+        subject.doInBackground("http://www.mopub.com/m/ad");
+
+        HttpGet request = (HttpGet) Robolectric.getSentHttpRequest(0);
+        assertThat(request.isAborted()).isFalse();
+        assertThat(AdFetchTask.getAbortedRequestCount()).isEqualTo(0);
+        assertThat(AdFetchTask.getAbortedResponseBytes()).isEqualTo(0);
+    }
+
+    @Test
+    public void abort_afterTheFetchHasFinished_shouldNotCountAsAborted() throws Exception {
+        Robolectric.addPendingHttpResponse(new TestHttpResponseWithHeaders(200, HTML_BODY));
+        subject.doInBackground("http://www.mopub.com/m/ad");
+
+        subject.abort();
+
+        HttpGet request = (HttpGet) Robolectric.getSentHttpRequest(0);
+        assertThat(request.isAborted()).isFalse();
+        assertThat(AdFetchTask.getAbortedRequestCount()).isEqualTo(0);
+        assertThat(AdFetchTask.getAbortedResponseBytes()).isEqualTo(0);
+    }
+}
@@ -16,6 +16,7 @@ import java.util.Map;
 import java.util.concurrent.Executor;
 
 import static com.mopub.mobileads.AdFetcher.*;
+import static com.mopub.mobileads.util.VersionCode.GINGERBREAD_MR1;
 import static com.mopub.mobileads.util.VersionCode.HONEYCOMB_MR2;
 import static com.mopub.mobileads.util.VersionCode.ICE_CREAM_SANDWICH;
 import static org.mockito.Matchers.any;
@@ -24,6 +25,7 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.stub;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @RunWith(SdkTestRunner.class)
@@ -49,7 +51,7 @@ public class AdFetcherTest {
 
         subject.fetchAdForUrl("url");
 
-        verify(adViewController).configureUsingHttpResponse(eq(response));
+        verify(adViewController).configureUsingAdResponse(any(AdResponse.class));
     }
 
     @Test
@@ -91,26 +93,73 @@ public class AdFetcherTest {
     }
 
     @Test
-    public void fetchAdForUrl_whenApiLevelIsAtLeastICS_shouldExecuteUsingAnExecutor() throws Exception {
+    public void fetchAdForUrl_whenApiLevelIsAtLeastICS_shouldExecuteUsingTheAdFetchExecutor() throws Exception {
         Robolectric.Reflection.setFinalStaticField(Build.VERSION.class, "SDK_INT", ICE_CREAM_SANDWICH.getApiLevel());
         AdFetchTaskFactory.setInstance(new TestAdFetchTaskFactory());
         AdFetchTask adFetchTask = TestAdFetchTaskFactory.getSingletonMock();
 
         subject.fetchAdForUrl("some url");
 
-        verify(adFetchTask).executeOnExecutor(eq(AdFetchTask.THREAD_POOL_EXECUTOR), eq("some url"));
+        verify(adFetchTask).executeOnExecutor(eq(AdFetchExecutor.getExecutor()), eq("some url"));
         verify(adFetchTask, never()).execute(anyString());
     }
 
     @Test
-    public void fetchAdForUrl_whenApiLevelIsBelowICS_shouldExecuteWithoutAnExecutor() throws Exception {
+    public void fetchAdForUrl_whenApiLevelIsHoneycomb_shouldExecuteUsingTheAdFetchExecutor() throws Exception {
         Robolectric.Reflection.setFinalStaticField(Build.VERSION.class, "SDK_INT", HONEYCOMB_MR2.getApiLevel());
         AdFetchTaskFactory.setInstance(new TestAdFetchTaskFactory());
         AdFetchTask adFetchTask = TestAdFetchTaskFactory.getSingletonMock();
 
         subject.fetchAdForUrl("some url");
 
+        verify(adFetchTask).executeOnExecutor(eq(AdFetchExecutor.getExecutor()), eq("some url"));
+    }
+
+    @Test
+    public void fetchAdForUrl_whenApiLevelIsBelowHoneycomb_shouldExecuteWithoutAnExecutor() throws Exception {
+        Robolectric.Reflection.setFinalStaticField(Build.VERSION.class, "SDK_INT", GINGERBREAD_MR1.getApiLevel());
+        AdFetchTaskFactory.setInstance(new TestAdFetchTaskFactory());
+        AdFetchTask adFetchTask = TestAdFetchTaskFactory.getSingletonMock();
+
+        subject.fetchAdForUrl("some url");
+
         verify(adFetchTask, never()).executeOnExecutor(any(Executor.class), anyString());
         verify(adFetchTask).execute(eq("some url"));
     }
+
+    @Test
+    public void prefetchAdForUrl_shouldExecuteATaskMarkedAsPrefetch() throws Exception {
+        Robolectric.Reflection.setFinalStaticField(Build.VERSION.class, "SDK_INT", ICE_CREAM_SANDWICH.getApiLevel());
+        AdFetchTaskFactory.setInstance(new TestAdFetchTaskFactory());
+        AdFetchTask adFetchTask = TestAdFetchTaskFactory.getSingletonMock();
+
+        subject.prefetchAdForUrl("some url");
+
+        verify(adFetchTask).setPrefetch(eq(true));
+        verify(adFetchTask).executeOnExecutor(eq(AdFetchExecutor.getExecutor()), eq("some url"));
+    }
+
+    @Test
+    public void fetchAdForUrl_shouldAbortTheTaskItSupersedes() throws Exception {
+        AdFetchTaskFactory.setInstance(new TestAdFetchTaskFactory());
+        AdFetchTask adFetchTask = TestAdFetchTaskFactory.getSingletonMock();
+
+        subject.fetchAdForUrl("first url");
+        verify(adFetchTask, never()).abort();
+
+        subject.fetchAdForUrl("second url");
+        verify(adFetchTask).abort();
+    }
+
+    @Test
+    public void cleanup_shouldAbortTheFetchAndThePrefetch() throws Exception {
+        AdFetchTaskFactory.setInstance(new TestAdFetchTaskFactory());
+        AdFetchTask adFetchTask = TestAdFetchTaskFactory.getSingletonMock();
+        subject.fetchAdForUrl("some url");
+        subject.prefetchAdForUrl("some other url");
+
+        subject.cleanup();
+
+        verify(adFetchTask, times(2)).abort();
+    }
 }
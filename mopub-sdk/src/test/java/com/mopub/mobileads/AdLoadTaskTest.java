@@ -2,13 +2,15 @@ package com.mopub.mobileads;
 
 import com.mopub.mobileads.test.support.SdkTestRunner;
 import com.mopub.mobileads.test.support.TestHttpResponseWithHeaders;
-import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static com.mopub.mobileads.AdFetcher.*;
 import static com.mopub.mobileads.AdTypeTranslator.*;
 import static org.fest.assertions.api.Assertions.assertThat;
@@ -20,104 +22,98 @@ public class AdLoadTaskTest {
 
     private AdViewController adViewController;
     private HttpResponse response;
-    private String standardExpectedJson;
 
     @Before
     public void setup() {
         adViewController = mock(AdViewController.class);
         response = new TestHttpResponseWithHeaders(200, "");
-        standardExpectedJson = "{\"Scrollable\":\"false\",\"Redirect-Url\":\"redirect\",\"Clickthrough-Url\":\"clickthrough\",\"Html-Response-Body\":\"%3Chtml%3E%3C%2Fhtml%3E\"}";
     }
 
     @Test
-    public void fromHttpResponse_whenCustomEvent_shouldGetNameAndData() throws Exception {
+    public void fromAdResponse_whenCustomEvent_shouldGetNameAndData() throws Exception {
         String expectedCustomData = "Custom data";
         response.addHeader(AD_TYPE_HEADER, "custom");
         String expectedCustomEventName = "custom event name";
         response.addHeader(CUSTOM_EVENT_NAME_HEADER, expectedCustomEventName);
         response.addHeader(CUSTOM_EVENT_DATA_HEADER, expectedCustomData);
 
-        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromHttpResponse(response, adViewController);
+        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromAdResponse(AdResponse.fromHttpResponse(response), adViewController);
         assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_NAME_HEADER)).isEqualTo(expectedCustomEventName);
         assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_DATA_HEADER)).isEqualTo(expectedCustomData);
     }
 
     @Test
-    public void fromHttpResponse_whenNoCustomEventName_shouldCreateLegacyCustomEventAdLoadTaskWithAHeader() throws Exception {
+    public void fromAdResponse_whenNoCustomEventName_shouldCreateLegacyCustomEventAdLoadTaskWithTheCustomSelector() throws Exception {
         String expectedCustomData = "Custom data";
         String expectedHeaderValue = "some stuff";
         response.addHeader(AD_TYPE_HEADER, "custom");
         response.addHeader(CUSTOM_EVENT_DATA_HEADER, expectedCustomData);
         response.addHeader(CUSTOM_SELECTOR_HEADER, expectedHeaderValue);
 
-        AdLoadTask.LegacyCustomEventAdLoadTask customEventTask = (AdLoadTask.LegacyCustomEventAdLoadTask) AdLoadTask.fromHttpResponse(response, adViewController);
-        Header taskHeader = customEventTask.getHeader();
-        assertThat(taskHeader).isNotNull();
-        assertThat(taskHeader.getName()).isEqualTo(CUSTOM_SELECTOR_HEADER);
-        assertThat(taskHeader.getValue()).isEqualTo(expectedHeaderValue);
+        AdLoadTask.LegacyCustomEventAdLoadTask customEventTask = (AdLoadTask.LegacyCustomEventAdLoadTask) AdLoadTask.fromAdResponse(AdResponse.fromHttpResponse(response), adViewController);
+        assertThat(customEventTask.getMethodName()).isEqualTo(expectedHeaderValue);
     }
 
     @Test
-    public void fromHttpResponse_whenMraidBanner_shouldCreateAnEncodedJsonString() throws Exception {
+    public void fromAdResponse_whenMraidBanner_shouldPassTheRawCreativeInTheParamsMap() throws Exception {
         String htmlData = "<html></html>";
         response = new TestHttpResponseWithHeaders(200, htmlData);
         addExpectedResponseHeaders("mraid");
 
-        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromHttpResponse(response, adViewController);
+        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromAdResponse(AdResponse.fromHttpResponse(response), adViewController);
         assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_NAME_HEADER)).isEqualTo(MRAID_BANNER);
-        assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_DATA_HEADER)).isEqualTo(standardExpectedJson);
+        assertStandardParams(customEventTask.getParamsMap(), htmlData);
     }
 
     @Test
-    public void fromHttpResponse_whenMraidInterstitial_shouldCreateAnEncodedJsonString() throws Exception {
+    public void fromAdResponse_whenMraidInterstitial_shouldPassTheRawCreativeInTheParamsMap() throws Exception {
         String htmlData = "<html></html>";
         response = new TestHttpResponseWithHeaders(200, htmlData);
         addExpectedResponseHeaders("mraid");
         stub(adViewController.getMoPubView()).toReturn(mock(MoPubInterstitial.MoPubInterstitialView.class));
 
-        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromHttpResponse(response, adViewController);
+        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromAdResponse(AdResponse.fromHttpResponse(response), adViewController);
         assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_NAME_HEADER)).isEqualTo(MRAID_INTERSTITIAL);
-        assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_DATA_HEADER)).isEqualTo(standardExpectedJson);
+        assertStandardParams(customEventTask.getParamsMap(), htmlData);
     }
 
     @Test
-    public void fromHttpResponse_whenCustomEventDelegate_shouldConvertAdMobToCustomEvent() throws Exception {
+    public void fromAdResponse_whenCustomEventDelegate_shouldConvertAdMobToCustomEvent() throws Exception {
         String expectedNativeParams = "{\"this is a json\":\"map\",\"whee\":\"look at me\"}";
         response.addHeader(AD_TYPE_HEADER, "admob_native");
         response.addHeader(NATIVE_PARAMS_HEADER, expectedNativeParams);
 
-        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromHttpResponse(response, adViewController);
+        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromAdResponse(AdResponse.fromHttpResponse(response), adViewController);
         assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_NAME_HEADER)).isEqualTo(ADMOB_BANNER);
         assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_DATA_HEADER)).isEqualTo(expectedNativeParams);
     }
 
     @Test
-    public void fromHttpResponse_whenHtmlBanner_shouldConvertToCustomEventBanner() throws Exception {
+    public void fromAdResponse_whenHtmlBanner_shouldConvertToCustomEventBanner() throws Exception {
         String htmlData = "<html></html>";
         response = new TestHttpResponseWithHeaders(200, htmlData);
         addExpectedResponseHeaders("html");
 
-        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromHttpResponse(response, adViewController);
+        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromAdResponse(AdResponse.fromHttpResponse(response), adViewController);
         assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_NAME_HEADER)).isEqualTo(HTML_BANNER);
-        assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_DATA_HEADER)).isEqualTo(standardExpectedJson);
+        assertStandardParams(customEventTask.getParamsMap(), htmlData);
     }
 
     @Test
-    public void fromHttpResponse_whenHtmlInterstitial_shouldConvertToCustomEventInterstitial() throws Exception {
+    public void fromAdResponse_whenHtmlInterstitial_shouldConvertToCustomEventInterstitial() throws Exception {
         String htmlData = "<html></html>";
         response = new TestHttpResponseWithHeaders(200, htmlData);
         addExpectedResponseHeaders("html");
         stub(adViewController.getMoPubView()).toReturn(mock(MoPubInterstitial.MoPubInterstitialView.class));
 
-        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromHttpResponse(response, adViewController);
+        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromAdResponse(AdResponse.fromHttpResponse(response), adViewController);
         assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_NAME_HEADER)).isEqualTo(HTML_INTERSTITIAL);
-        assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_DATA_HEADER)).isEqualTo(standardExpectedJson);
+        assertStandardParams(customEventTask.getParamsMap(), htmlData);
     }
 
     @Test
-    public void fromHttpResponse_whenEntityIsNull_shouldCreateMinimumJsonString() throws Exception {
+    public void fromAdResponse_whenEntityIsNull_shouldPassAnEmptyCreative() throws Exception {
         String htmlData = "<html></html>";
-        String expectedJson = "{\"Scrollable\":\"false\",\"Html-Response-Body\":\"\"}";
         response = new TestHttpResponseWithHeaders(200, htmlData) {
             @Override
             public HttpEntity getEntity() {
@@ -126,31 +122,46 @@ public class AdLoadTaskTest {
         };
         response.addHeader(AD_TYPE_HEADER, "html");
 
-        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromHttpResponse(response, adViewController);
+        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromAdResponse(AdResponse.fromHttpResponse(response), adViewController);
         assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_NAME_HEADER)).isEqualTo(HTML_BANNER);
-        assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_DATA_HEADER)).isEqualTo(expectedJson);
+        assertThat(customEventTask.getParamsMap().get(HTML_RESPONSE_BODY_KEY)).isEqualTo("");
+        assertThat(customEventTask.getParamsMap().get(SCROLLABLE_KEY)).isEqualTo("false");
     }
 
     @Test
-    public void fromHttpResponse_whenScrollableIsOne_shouldBeReflectedInJson() throws Exception {
-        String expectedJson = "{\"Scrollable\":\"true\",\"Html-Response-Body\":\"\"}";
+    public void fromAdResponse_whenScrollableIsOne_shouldBeReflectedInParamsMap() throws Exception {
         response.addHeader(SCROLLABLE_HEADER, "1");
         response.addHeader(AD_TYPE_HEADER, "html");
 
 
-        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromHttpResponse(response, adViewController);
+        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromAdResponse(AdResponse.fromHttpResponse(response), adViewController);
         assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_NAME_HEADER)).isEqualTo(HTML_BANNER);
-        assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_DATA_HEADER)).isEqualTo(expectedJson);
+        assertThat(customEventTask.getParamsMap().get(SCROLLABLE_KEY)).isEqualTo("true");
     }
 
     @Test
-    public void fromHttpResponse_whenScrollableIsNotSpecified_shouldDefaultToFalseInJson() throws Exception {
-        String expectedJson = "{\"Scrollable\":\"false\",\"Html-Response-Body\":\"\"}";
+    public void fromAdResponse_whenScrollableIsNotSpecified_shouldDefaultToFalseInParamsMap() throws Exception {
         response.addHeader(AD_TYPE_HEADER, "html");
 
-        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromHttpResponse(response, adViewController);
+        AdLoadTask.CustomEventAdLoadTask customEventTask = (AdLoadTask.CustomEventAdLoadTask) AdLoadTask.fromAdResponse(AdResponse.fromHttpResponse(response), adViewController);
         assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_NAME_HEADER)).isEqualTo(HTML_BANNER);
-        assertThat(customEventTask.getParamsMap().get(CUSTOM_EVENT_DATA_HEADER)).isEqualTo(expectedJson);
+        assertThat(customEventTask.getParamsMap().get(SCROLLABLE_KEY)).isEqualTo("false");
+    }
+
+    @Test
+    public void addResponseBodyExtras_shouldCopyEverythingButTheCustomEventNameAndData() throws Exception {
+        Map<String, String> serverExtras = new HashMap<String, String>();
+        serverExtras.put("fromJson", "value");
+        Map<String, String> paramsMap = new HashMap<String, String>();
+        paramsMap.put(CUSTOM_EVENT_NAME_HEADER, "com.mopub.mobileads.HtmlBanner");
+        paramsMap.put(CUSTOM_EVENT_DATA_HEADER, "{}");
+        paramsMap.put(HTML_RESPONSE_BODY_KEY, "<html></html>");
+
+        AdLoadTask.addResponseBodyExtras(serverExtras, paramsMap);
+
+        assertThat(serverExtras).hasSize(2);
+        assertThat(serverExtras.get("fromJson")).isEqualTo("value");
+        assertThat(serverExtras.get(HTML_RESPONSE_BODY_KEY)).isEqualTo("<html></html>");
     }
 
     private void addExpectedResponseHeaders(String adType) {
@@ -159,4 +170,12 @@ public class AdLoadTaskTest {
         response.addHeader(REDIRECT_URL_HEADER, "redirect");
         response.addHeader(CLICKTHROUGH_URL_HEADER, "clickthrough");
     }
+
+    private void assertStandardParams(Map<String, String> paramsMap, String expectedHtmlData) {
+        assertThat(paramsMap.get(HTML_RESPONSE_BODY_KEY)).isEqualTo(expectedHtmlData);
+        assertThat(paramsMap.get(SCROLLABLE_KEY)).isEqualTo("false");
+        assertThat(paramsMap.get(REDIRECT_URL_KEY)).isEqualTo("redirect");
+        assertThat(paramsMap.get(CLICKTHROUGH_URL_KEY)).isEqualTo("clickthrough");
+        assertThat(paramsMap.containsKey(CUSTOM_EVENT_DATA_HEADER)).isFalse();
+    }
 }
@@ -0,0 +1,134 @@
+package com.mopub.mobileads;
+
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import com.mopub.mobileads.test.support.TestDateAndTime;
+import com.mopub.mobileads.test.support.TestHttpResponseWithHeaders;
+import org.apache.http.HttpResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Date;
+
+import static com.mopub.mobileads.AdPrefetchCache.MAXIMUM_TIME_TO_LIVE_MILLISECONDS;
+import static com.mopub.mobileads.AdPrefetchCache.PrefetchedAd;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SdkTestRunner.class)
+public class AdPrefetchCacheTest {
+    private static final long START_TIME = 1365553573L;
+
+    private AdViewController owner;
+    private AdLoadTask adLoadTask;
+    private HttpResponse response;
+
+    @Before
+    public void setUp() throws Exception {
+        owner = mock(AdViewController.class);
+        adLoadTask = mock(AdLoadTask.class);
+        response = new TestHttpResponseWithHeaders(200, "");
+        setNow(START_TIME);
+    }
+
+    @Test
+    public void take_shouldReturnThePrefetchedAdOnlyOnce() throws Exception {
+        AdResponse adResponse = AdResponse.fromHttpResponse(response);
+        AdPrefetchCache.put("adUnitId", owner, "http://url", adResponse, adLoadTask);
+
+        PrefetchedAd prefetchedAd = AdPrefetchCache.take("adUnitId", owner);
+
+        assertThat(prefetchedAd.mAdLoadTask).isSameAs(adLoadTask);
+        assertThat(prefetchedAd.mAdResponse).isSameAs(adResponse);
+        assertThat(prefetchedAd.mUrl).isEqualTo("http://url");
+        assertThat(AdPrefetchCache.take("adUnitId", owner)).isNull();
+    }
+
+    @Test
+    public void take_withADifferentOwner_shouldReturnNullAndKeepTheEntry() throws Exception {
+        AdPrefetchCache.put("adUnitId", owner, "http://url", AdResponse.fromHttpResponse(response), adLoadTask);
+
+        assertThat(AdPrefetchCache.take("adUnitId", mock(AdViewController.class))).isNull();
+        assertThat(AdPrefetchCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void take_afterRefreshTimeHasPassed_shouldReturnNullAndCleanUp() throws Exception {
+        response.addHeader("X-Refreshtime", "30");
+        AdPrefetchCache.put("adUnitId", owner, "http://url", AdResponse.fromHttpResponse(response), adLoadTask);
+
+        setNow(START_TIME + 29999);
+        assertThat(AdPrefetchCache.take("adUnitId", owner)).isNotNull();
+
+        AdPrefetchCache.put("adUnitId", owner, "http://url", AdResponse.fromHttpResponse(response), adLoadTask);
+        setNow(START_TIME + 29999 + 30000);
+        assertThat(AdPrefetchCache.take("adUnitId", owner)).isNull();
+        verify(adLoadTask).cleanup();
+    }
+
+    @Test
+    public void take_withoutRefreshTime_shouldUseTheMaximumTimeToLive() throws Exception {
+        AdPrefetchCache.put("adUnitId", owner, "http://url", AdResponse.fromHttpResponse(response), adLoadTask);
+
+        setNow(START_TIME + MAXIMUM_TIME_TO_LIVE_MILLISECONDS);
+
+        assertThat(AdPrefetchCache.take("adUnitId", owner)).isNull();
+    }
+
+    @Test
+    public void put_withSameAdUnitIdAndOwner_shouldReplaceAndCleanUpTheOldEntry() throws Exception {
+        AdLoadTask newerAdLoadTask = mock(AdLoadTask.class);
+        AdPrefetchCache.put("adUnitId", owner, "http://url", AdResponse.fromHttpResponse(response), adLoadTask);
+
+        AdPrefetchCache.put("adUnitId", owner, "http://url", AdResponse.fromHttpResponse(response), newerAdLoadTask);
+
+        verify(adLoadTask).cleanup();
+        assertThat(AdPrefetchCache.take("adUnitId", owner).mAdLoadTask).isSameAs(newerAdLoadTask);
+    }
+
+    @Test
+    public void put_withSameAdUnitIdAndAnotherOwner_shouldKeepBothEntries() throws Exception {
+        AdLoadTask otherAdLoadTask = mock(AdLoadTask.class);
+        AdViewController otherOwner = mock(AdViewController.class);
+        AdPrefetchCache.put("adUnitId", owner, "http://url", AdResponse.fromHttpResponse(response), adLoadTask);
+
+        AdPrefetchCache.put("adUnitId", otherOwner, "http://url", AdResponse.fromHttpResponse(response), otherAdLoadTask);
+
+        verify(adLoadTask, never()).cleanup();
+        assertThat(AdPrefetchCache.size()).isEqualTo(2);
+        assertThat(AdPrefetchCache.take("adUnitId", owner).mAdLoadTask).isSameAs(adLoadTask);
+        assertThat(AdPrefetchCache.take("adUnitId", otherOwner).mAdLoadTask).isSameAs(otherAdLoadTask);
+    }
+
+    @Test
+    public void put_whenFull_shouldEvictTheOldestEntry() throws Exception {
+        AdPrefetchCache.put("adUnitId0", owner, "http://url", AdResponse.fromHttpResponse(response), adLoadTask);
+        for (int i = 1; i <= AdPrefetchCache.MAXIMUM_ENTRIES; i++) {
+            AdPrefetchCache.put("adUnitId" + i, owner, "http://url", AdResponse.fromHttpResponse(response), mock(AdLoadTask.class));
+        }
+
+        assertThat(AdPrefetchCache.size()).isEqualTo(AdPrefetchCache.MAXIMUM_ENTRIES);
+        assertThat(AdPrefetchCache.take("adUnitId0", owner)).isNull();
+        verify(adLoadTask).cleanup();
+    }
+
+    @Test
+    public void remove_shouldOnlyRemoveEntriesOfThatOwner() throws Exception {
+        AdLoadTask otherAdLoadTask = mock(AdLoadTask.class);
+        AdViewController otherOwner = mock(AdViewController.class);
+        AdPrefetchCache.put("adUnitId", owner, "http://url", AdResponse.fromHttpResponse(response), adLoadTask);
+        AdPrefetchCache.put("otherAdUnitId", otherOwner, "http://url", AdResponse.fromHttpResponse(response), otherAdLoadTask);
+
+        AdPrefetchCache.remove(owner);
+
+        verify(adLoadTask).cleanup();
+        verify(otherAdLoadTask, never()).cleanup();
+        assertThat(AdPrefetchCache.take("otherAdUnitId", otherOwner)).isNotNull();
+    }
+
+    private void setNow(long millis) {
+        TestDateAndTime.getInstance().setNow(new Date(millis));
+    }
+}
@@ -0,0 +1,119 @@
+package com.mopub.mobileads;
+
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.mopub.mobileads.AdFetcher.AD_TYPE_HEADER;
+import static com.mopub.mobileads.AdFetcher.CLICKTHROUGH_URL_HEADER;
+import static com.mopub.mobileads.AdFetcher.CUSTOM_EVENT_DATA_HEADER;
+import static com.mopub.mobileads.AdFetcher.CUSTOM_EVENT_NAME_HEADER;
+import static com.mopub.mobileads.AdFetcher.REDIRECT_URL_HEADER;
+import static com.mopub.mobileads.AdFetcher.SCROLLABLE_HEADER;
+import static com.mopub.mobileads.AdFetcher.WARMUP_HEADER;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Fail.fail;
+
+@RunWith(SdkTestRunner.class)
+public class AdResponseTest {
+    private HttpResponse response;
+
+    @Before
+    public void setUp() throws Exception {
+        response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new StringEntity("<html></html>"));
+    }
+
+    @Test
+    public void fromHttpResponse_shouldReadEveryHeader() throws Exception {
+        response.addHeader(AD_TYPE_HEADER, "custom");
+        response.addHeader(AdResponse.NETWORK_TYPE_HEADER, "admob");
+        response.addHeader(REDIRECT_URL_HEADER, "redirect url");
+        response.addHeader(CLICKTHROUGH_URL_HEADER, "clickthrough url");
+        response.addHeader(AdResponse.FAIL_URL_HEADER, "fail url");
+        response.addHeader(AdResponse.IMPRESSION_URL_HEADER, "impression url");
+        response.addHeader(AdResponse.WIDTH_HEADER, "320  ");
+        response.addHeader(AdResponse.HEIGHT_HEADER, "50");
+        response.addHeader(AdResponse.REFRESH_TIME_HEADER, "30");
+        response.addHeader(SCROLLABLE_HEADER, "1");
+        response.addHeader(CUSTOM_EVENT_NAME_HEADER, "custom event name");
+        response.addHeader(CUSTOM_EVENT_DATA_HEADER, "custom event data");
+
+        AdResponse adResponse = AdResponse.fromHttpResponse(response);
+
+        assertThat(adResponse.getAdType()).isEqualTo("custom");
+        assertThat(adResponse.getNetworkType()).isEqualTo("admob");
+        assertThat(adResponse.getRedirectUrl()).isEqualTo("redirect url");
+        assertThat(adResponse.getClickthroughUrl()).isEqualTo("clickthrough url");
+        assertThat(adResponse.getFailUrl()).isEqualTo("fail url");
+        assertThat(adResponse.getImpressionUrl()).isEqualTo("impression url");
+        assertThat(adResponse.getWidth()).isEqualTo(320);
+        assertThat(adResponse.getHeight()).isEqualTo(50);
+        assertThat(adResponse.hasRefreshTime()).isTrue();
+        assertThat(adResponse.getRefreshTimeSeconds()).isEqualTo(30);
+        assertThat(adResponse.isScrollable()).isTrue();
+        assertThat(adResponse.getCustomEventName()).isEqualTo("custom event name");
+        assertThat(adResponse.getCustomEventData()).isEqualTo("custom event data");
+        assertThat(adResponse.isWarmingUp()).isFalse();
+    }
+
+    @Test
+    public void fromHttpResponse_whenHeadersAreMissing_shouldUseDefaults() throws Exception {
+        AdResponse adResponse = AdResponse.fromHttpResponse(response);
+
+        assertThat(adResponse.getAdType()).isNull();
+        assertThat(adResponse.getWidth()).isEqualTo(0);
+        assertThat(adResponse.getHeight()).isEqualTo(0);
+        assertThat(adResponse.hasRefreshTime()).isFalse();
+        assertThat(adResponse.isScrollable()).isFalse();
+        assertThat(adResponse.isWarmingUp()).isFalse();
+    }
+
+    @Test
+    public void fromHttpResponse_shouldMatchHeaderNamesIgnoringCase() throws Exception {
+        response.addHeader("x-adtype", "html");
+        response.addHeader("X-WARMUP", "1");
+
+        AdResponse adResponse = AdResponse.fromHttpResponse(response);
+
+        assertThat(adResponse.getAdType()).isEqualTo("html");
+        assertThat(adResponse.isWarmingUp()).isTrue();
+    }
+
+    @Test
+    public void fromHttpResponse_withRepeatedHeaders_shouldUseTheFirst() throws Exception {
+        response.addHeader(AdResponse.FAIL_URL_HEADER, "first");
+        response.addHeader(AdResponse.FAIL_URL_HEADER, "second");
+
+        assertThat(AdResponse.fromHttpResponse(response).getFailUrl()).isEqualTo("first");
+    }
+
+    @Test
+    public void fromHttpResponse_shouldOnlyReadTheBodyForAdTypesThatCarryTheirCreativeInIt() throws Exception {
+        response.setHeader(AD_TYPE_HEADER, "html");
+        assertThat(AdResponse.fromHttpResponse(response).getResponseBody()).isEqualTo("<html></html>");
+
+        response.setHeader(AD_TYPE_HEADER, "mraid");
+        assertThat(AdResponse.fromHttpResponse(response).getResponseBody()).isEqualTo("<html></html>");
+
+        response.setHeader(AD_TYPE_HEADER, "custom");
+        assertThat(AdResponse.fromHttpResponse(response).getResponseBody()).isNull();
+    }
+
+    @Test
+    public void fromHttpResponse_withMalformedNumber_shouldThrowNumberFormatException() throws Exception {
+        response.addHeader(AdResponse.WIDTH_HEADER, "wide");
+
+        try {
+            AdResponse.fromHttpResponse(response);
+            fail("Expected a NumberFormatException");
+        } catch (NumberFormatException e) {
+            // pass
+        }
+    }
+}
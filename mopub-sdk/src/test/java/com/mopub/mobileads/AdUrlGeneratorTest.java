@@ -2,6 +2,7 @@ package com.mopub.mobileads;
 
 import android.app.Activity;
 import android.content.Context;
+import android.content.Intent;
 import android.content.res.Configuration;
 import android.location.Location;
 import android.net.ConnectivityManager;
@@ -67,6 +68,21 @@ public class AdUrlGeneratorTest {
         assertThat(adUrl).isEqualTo(expectedAdUrl);
     }
 
+    @Test
+    public void generateAdUrl_shouldReadDeviceInfoOncePerProcess() throws Exception {
+        String expectedAdUrl = new AdUrlBuilder(expectedUdidSha).build();
+        generateMinimumUrlString();
+
+        Settings.Secure.putString(application.getContentResolver(), Settings.Secure.ANDROID_ID, "another udid");
+        subject = new AdUrlGenerator(context);
+
+        assertThat(generateMinimumUrlString()).isEqualTo(expectedAdUrl);
+
+        AdUrlGenerator.clearDeviceInfo();
+
+        assertThat(generateMinimumUrlString()).contains("udid=sha%3A" + Utils.sha1("another udid"));
+    }
+
     @Test
     public void generateAdUrl_shouldIncludeAllFields() throws Exception {
         String expectedAdUrl = new AdUrlBuilder(expectedUdidSha)
@@ -159,36 +175,36 @@ public class AdUrlGeneratorTest {
         AdUrlBuilder urlBuilder = new AdUrlBuilder(expectedUdidSha);
         String adUrl;
 
-        shadowConnectivityManager.setActiveNetworkInfo(createNetworkInfo(TYPE_DUMMY));
+        setActiveNetworkInfo(createNetworkInfo(TYPE_DUMMY));
         adUrl = generateMinimumUrlString();
         assertThat(adUrl).isEqualTo(urlBuilder.withNetworkType(MoPubNetworkType.UNKNOWN).build());
 
-        shadowConnectivityManager.setActiveNetworkInfo(createNetworkInfo(TYPE_ETHERNET));
+        setActiveNetworkInfo(createNetworkInfo(TYPE_ETHERNET));
         adUrl = generateMinimumUrlString();
         assertThat(adUrl).isEqualTo(urlBuilder.withNetworkType(MoPubNetworkType.ETHERNET).build());
 
-        shadowConnectivityManager.setActiveNetworkInfo(createNetworkInfo(TYPE_WIFI));
+        setActiveNetworkInfo(createNetworkInfo(TYPE_WIFI));
         adUrl = generateMinimumUrlString();
         assertThat(adUrl).isEqualTo(urlBuilder.withNetworkType(MoPubNetworkType.WIFI).build());
 
         // bunch of random mobile types just to make life more interesting
-        shadowConnectivityManager.setActiveNetworkInfo(createNetworkInfo(TYPE_MOBILE));
+        setActiveNetworkInfo(createNetworkInfo(TYPE_MOBILE));
         adUrl = generateMinimumUrlString();
         assertThat(adUrl).isEqualTo(urlBuilder.withNetworkType(MoPubNetworkType.MOBILE).build());
 
-        shadowConnectivityManager.setActiveNetworkInfo(createNetworkInfo(TYPE_MOBILE_DUN));
+        setActiveNetworkInfo(createNetworkInfo(TYPE_MOBILE_DUN));
         adUrl = generateMinimumUrlString();
         assertThat(adUrl).isEqualTo(urlBuilder.withNetworkType(MoPubNetworkType.MOBILE).build());
 
-        shadowConnectivityManager.setActiveNetworkInfo(createNetworkInfo(TYPE_MOBILE_HIPRI));
+        setActiveNetworkInfo(createNetworkInfo(TYPE_MOBILE_HIPRI));
         adUrl = generateMinimumUrlString();
         assertThat(adUrl).isEqualTo(urlBuilder.withNetworkType(MoPubNetworkType.MOBILE).build());
 
-        shadowConnectivityManager.setActiveNetworkInfo(createNetworkInfo(TYPE_MOBILE_MMS));
+        setActiveNetworkInfo(createNetworkInfo(TYPE_MOBILE_MMS));
         adUrl = generateMinimumUrlString();
         assertThat(adUrl).isEqualTo(urlBuilder.withNetworkType(MoPubNetworkType.MOBILE).build());
 
-        shadowConnectivityManager.setActiveNetworkInfo(createNetworkInfo(TYPE_MOBILE_SUPL));
+        setActiveNetworkInfo(createNetworkInfo(TYPE_MOBILE_SUPL));
         adUrl = generateMinimumUrlString();
         assertThat(adUrl).isEqualTo(urlBuilder.withNetworkType(MoPubNetworkType.MOBILE).build());
     }
@@ -198,7 +214,9 @@ public class AdUrlGeneratorTest {
         AdUrlBuilder urlBuilder = new AdUrlBuilder(expectedUdidSha);
 
         shadowOf(context).denyPermissions(ACCESS_NETWORK_STATE);
-        shadowConnectivityManager.setActiveNetworkInfo(createNetworkInfo(TYPE_MOBILE));
+        ConnectivityMonitor.setInstance(null);
+        subject = new AdUrlGenerator(context);
+        setActiveNetworkInfo(createNetworkInfo(TYPE_MOBILE));
 
         String adUrl = generateMinimumUrlString();
 
@@ -208,13 +226,18 @@ public class AdUrlGeneratorTest {
     @Test
     public void generateAdUrl_shouldTolerateNullActiveNetwork() throws Exception {
         AdUrlBuilder urlBuilder = new AdUrlBuilder(expectedUdidSha);
-        shadowConnectivityManager.setActiveNetworkInfo(null);
+        setActiveNetworkInfo(null);
 
         String adUrl = generateMinimumUrlString();
 
         assertThat(adUrl).isEqualTo(urlBuilder.withNetworkType(MoPubNetworkType.UNKNOWN).build());
     }
 
+    private void setActiveNetworkInfo(NetworkInfo networkInfo) {
+        shadowConnectivityManager.setActiveNetworkInfo(networkInfo);
+        application.sendBroadcast(new Intent(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+
     private NetworkInfo createNetworkInfo(int type) {
         return ShadowNetworkInfo.newInstance(null,
                 type,
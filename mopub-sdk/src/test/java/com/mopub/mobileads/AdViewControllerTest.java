@@ -2,6 +2,7 @@ package com.mopub.mobileads;
 
 import android.app.Activity;
 import android.content.Context;
+import android.content.Intent;
 import android.net.ConnectivityManager;
 import android.view.Gravity;
 import android.view.View;
@@ -22,7 +23,9 @@ import org.mockito.ArgumentCaptor;
 import org.robolectric.Robolectric;
 import org.robolectric.tester.org.apache.http.FakeHttpLayer;
 
-import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 import static android.Manifest.permission.ACCESS_NETWORK_STATE;
 import static com.mopub.mobileads.MoPubErrorCode.INTERNAL_ERROR;
@@ -56,6 +59,13 @@ public class AdViewControllerTest {
         subject = new AdViewController(context, moPubView);
         response = new TestHttpResponseWithHeaders(200, "I ain't got no-body");
         adFetcher = TestAdFetcherFactory.getSingletonMock();
+
+        // Run ad request preparation inline; the result is still handed back through the main looper.
+        AdFetchExecutor.setExecutor(new Executor() {
+            public void execute(Runnable runnable) {
+                runnable.run();
+            }
+        });
     }
 
     @Test
@@ -67,14 +77,14 @@ public class AdViewControllerTest {
     }
 
     @Test
-    public void configureUsingHttpResponse_shouldSetFields() throws Exception {
+    public void configureUsingAdResponse_shouldSetFields() throws Exception {
         response.addHeader("X-Launchpage", "redirect url");
         response.addHeader("X-Clickthrough", "clickthrough url");
         response.addHeader("X-Width", "320  ");
         response.addHeader("X-Height", "  50");
         response.addHeader("X-Refreshtime", "70");
 
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
 
         assertThat(subject.getRedirectUrl()).isEqualTo("redirect url");
         assertThat(subject.getClickthroughUrl()).isEqualTo("clickthrough url");
@@ -84,22 +94,22 @@ public class AdViewControllerTest {
     }
 
     @Test
-    public void configureUsingHttpResponse_shouldSetRefreshTimeToMinimumOf10Seconds() throws Exception {
+    public void configureUsingAdResponse_shouldSetRefreshTimeToMinimumOf10Seconds() throws Exception {
         response.addHeader("X-Refreshtime", "0");
 
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
         assertThat(subject.getRefreshTimeMilliseconds()).isEqualTo(10000);
     }
 
     @Test
-    public void configureUsingHttpResponse_whenRefreshTimeNotSpecified_shouldResetRefreshTimeTo0Seconds() throws Exception {
+    public void configureUsingAdResponse_whenRefreshTimeNotSpecified_shouldResetRefreshTimeTo0Seconds() throws Exception {
         response.addHeader("X-Refreshtime", "5");
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
 
         assertThat(subject.getRefreshTimeMilliseconds()).isEqualTo(10000);
         response = new TestHttpResponseWithHeaders(200, "I ain't got no-body");
         // no X-Refreshtime header
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
 
         assertThat(subject.getRefreshTimeMilliseconds()).isEqualTo(0);
     }
@@ -107,7 +117,7 @@ public class AdViewControllerTest {
     @Test
     public void scheduleRefreshTimerIfEnabled_shouldCancelOldRefreshAndScheduleANewOne() throws Exception {
         response.addHeader("X-Refreshtime", "30");
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
         Robolectric.pauseMainLooper();
         assertThat(Robolectric.getUiThreadScheduler().enqueuedTaskCount()).isEqualTo(0);
 
@@ -123,7 +133,7 @@ public class AdViewControllerTest {
     @Test
     public void scheduleRefreshTimer_shouldNotScheduleRefreshIfAutorefreshIsOff() throws Exception {
         response.addHeader("X-Refreshtime", "30");
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
         Robolectric.pauseMainLooper();
         assertThat(Robolectric.getUiThreadScheduler().enqueuedTaskCount()).isEqualTo(0);
 
@@ -137,7 +147,7 @@ public class AdViewControllerTest {
     @Test
     public void scheduleRefreshTimer_shouldNotScheduleRefreshIfRefreshTimeIsZero() throws Exception {
 //        response.addHeader("X-Refreshtime", "0");
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
         Robolectric.pauseMainLooper();
 
         assertThat(Robolectric.getUiThreadScheduler().enqueuedTaskCount()).isEqualTo(0);
@@ -147,10 +157,84 @@ public class AdViewControllerTest {
         assertThat(Robolectric.getUiThreadScheduler().enqueuedTaskCount()).isEqualTo(0);
     }
 
+    @Test
+    public void scheduleRefreshTimerIfEnabled_whenPrefetchEnabled_shouldAlsoScheduleAPrefetch() throws Exception {
+        response.addHeader("X-Refreshtime", "30");
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
+        subject.setPrefetchEnabled(true);
+        Robolectric.pauseMainLooper();
+
+        subject.scheduleRefreshTimerIfEnabled();
+
+        assertThat(Robolectric.getUiThreadScheduler().enqueuedTaskCount()).isEqualTo(2);
+
+        subject.setAutorefreshEnabled(false);
+
+        assertThat(Robolectric.getUiThreadScheduler().enqueuedTaskCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void prefetchAd_shouldPrefetchTheNextAdUrl() throws Exception {
+        subject.setAdUnitId("adUnitId");
+        subject.setPrefetchEnabled(true);
+
+        subject.prefetchAd();
+
+        verify(adFetcher).prefetchAdForUrl(anyString());
+    }
+
+    @Test
+    public void prefetchAd_whenPrefetchDisabled_shouldDoNothing() throws Exception {
+        subject.setAdUnitId("adUnitId");
+
+        subject.prefetchAd();
+
+        verify(adFetcher, never()).prefetchAdForUrl(anyString());
+    }
+
+    @Test
+    public void loadAd_withPrefetchedAd_shouldShowItWithoutFetching() throws Exception {
+        AdLoadTask adLoadTask = mock(AdLoadTask.class);
+        response.addHeader("X-Clickthrough", "http://clickUrl");
+        subject.setAdUnitId("adUnitId");
+        subject.setPrefetchEnabled(true);
+        AdPrefetchCache.put("adUnitId", subject, "http://prefetchedUrl", AdResponse.fromHttpResponse(response), adLoadTask);
+
+        subject.loadAd();
+
+        verify(adLoadTask).execute();
+        verify(adFetcher, never()).fetchAdForUrl(anyString());
+        assertThat(subject.getClickthroughUrl()).isEqualTo("http://clickUrl");
+        assertThat(AdPrefetchCache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void loadAd_whenPrefetchDisabled_shouldIgnorePrefetchedAd() throws Exception {
+        AdLoadTask adLoadTask = mock(AdLoadTask.class);
+        subject.setAdUnitId("adUnitId");
+        AdPrefetchCache.put("adUnitId", subject, "http://prefetchedUrl", AdResponse.fromHttpResponse(response), adLoadTask);
+
+        subject.loadAd();
+
+        verify(adLoadTask, never()).execute();
+        verify(adFetcher).fetchAdForUrl(anyString());
+    }
+
+    @Test
+    public void cleanup_shouldDiscardPrefetchedAds() throws Exception {
+        AdLoadTask adLoadTask = mock(AdLoadTask.class);
+        AdPrefetchCache.put("adUnitId", subject, "http://prefetchedUrl", AdResponse.fromHttpResponse(response), adLoadTask);
+
+        subject.cleanup();
+
+        assertThat(AdPrefetchCache.size()).isEqualTo(0);
+        verify(adLoadTask).cleanup();
+    }
+
     @Test
     public void trackImpression_shouldHttpGetTheImpressionUrl() throws Exception {
         response.addHeader("X-Imptracker", "http://trackingUrl");
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
         String expectedUserAgent = new WebView(subject.getContext()).getSettings().getUserAgentString();
         FakeHttpLayer fakeHttpLayer = Robolectric.getFakeHttpLayer();
         fakeHttpLayer.addPendingHttpResponse(200, "");
@@ -165,17 +249,41 @@ public class AdViewControllerTest {
         assertThat(request.getRequestLine().getUri()).isEqualTo("http://trackingUrl");
 
         ClientConnectionManager connectionManager = httpClient.getConnectionManager();
-        try {
-            Utils.invokeInstanceMethod(connectionManager, "assertStillUp");
-            fail("should have thrown an exception");
-        } catch (InvocationTargetException expected) {
-            assertThat(expected.getCause()).isInstanceOf(IllegalStateException.class);
-        }
+        // The shared connection manager must stay up so that later requests can reuse it.
+        Utils.invokeInstanceMethod(connectionManager, "assertStillUp");
+        assertThat(httpClient).isSameAs(HttpClientFactory.create());
+    }
+
+    @Test
+    public void trackImpression_whenTrackingQueueIsFull_shouldJournalTheImpressionUrl() throws Exception {
+        response.addHeader("X-Imptracker", "http://trackingUrl");
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
+        TrackingJournal journal = mock(TrackingJournal.class);
+        TrackingJournal.setInstance(journal);
+        TrackingDispatcher.setInstance(new RejectingTrackingDispatcher());
+
+        subject.trackImpression();
+
+        verify(journal).addInBackground(eq("http://trackingUrl"), anyString());
+        assertThat(Robolectric.getFakeHttpLayer().getLastSentHttpRequestInfo()).isNull();
+    }
+
+    @Test
+    public void registerClick_whenTrackingQueueIsFull_shouldJournalTheClickthroughUrl() throws Exception {
+        response.addHeader("X-Clickthrough", "http://clickUrl");
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
+        TrackingJournal journal = mock(TrackingJournal.class);
+        TrackingJournal.setInstance(journal);
+        TrackingDispatcher.setInstance(new RejectingTrackingDispatcher());
+
+        subject.registerClick();
+
+        verify(journal).addInBackground(eq("http://clickUrl"), anyString());
     }
 
     @Test
     public void trackImpression_shouldDoNothingIfImpressionUrlNotSpecified() throws Exception {
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
         FakeHttpLayer fakeHttpLayer = Robolectric.getFakeHttpLayer();
         fakeHttpLayer.addPendingHttpResponse(200, "");
 
@@ -188,7 +296,7 @@ public class AdViewControllerTest {
     @Test
     public void registerClick_shouldHttpGetTheClickthroughUrl() throws Exception {
         response.addHeader("X-Clickthrough", "http://clickUrl");
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
         String expectedUserAgent = new WebView(subject.getContext()).getSettings().getUserAgentString();
         FakeHttpLayer fakeHttpLayer = Robolectric.getFakeHttpLayer();
         fakeHttpLayer.addPendingHttpResponse(200, "");
@@ -203,17 +311,14 @@ public class AdViewControllerTest {
         assertThat(request.getRequestLine().getUri()).isEqualTo("http://clickUrl");
 
         ClientConnectionManager connectionManager = httpClient.getConnectionManager();
-        try {
-            Utils.invokeInstanceMethod(connectionManager, "assertStillUp");
-            fail("should have thrown an exception");
-        } catch (InvocationTargetException expected) {
-            assertThat(expected.getCause()).isInstanceOf(IllegalStateException.class);
-        }
+        // The shared connection manager must stay up so that later requests can reuse it.
+        Utils.invokeInstanceMethod(connectionManager, "assertStillUp");
+        assertThat(httpClient).isSameAs(HttpClientFactory.create());
     }
 
     @Test
     public void trackImpression_shouldDoNothingIfClickthroughUrlNotSpecified() throws Exception {
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
         FakeHttpLayer fakeHttpLayer = Robolectric.getFakeHttpLayer();
         fakeHttpLayer.addPendingHttpResponse(200, "");
 
@@ -256,18 +361,121 @@ public class AdViewControllerTest {
         Robolectric.pauseMainLooper();
         ConnectivityManager connectivityManager = (ConnectivityManager) application.getSystemService(Context.CONNECTIVITY_SERVICE);
         shadowOf(connectivityManager.getActiveNetworkInfo()).setConnectionStatus(false);
+        application.sendBroadcast(new Intent(ConnectivityManager.CONNECTIVITY_ACTION));
         response.addHeader("X-Refreshtime", "30");
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
         subject.setAdUnitId("adUnitId");
 
         assertThat(Robolectric.getUiThreadScheduler().enqueuedTaskCount()).isEqualTo(0);
 
         subject.loadAd();
+        Robolectric.getUiThreadScheduler().runOneTask();
 
         assertThat(Robolectric.getUiThreadScheduler().enqueuedTaskCount()).isEqualTo(1);
         assertThat(fakeHttpLayer.getLastSentHttpRequestInfo()).isNull();
     }
 
+    @Test
+    public void loadAd_whenOffline_shouldBackOffAndRefreshAsSoonAsConnectivityReturns() throws Exception {
+        ConnectivityManager connectivityManager = (ConnectivityManager) application.getSystemService(Context.CONNECTIVITY_SERVICE);
+        shadowOf(connectivityManager.getActiveNetworkInfo()).setConnectionStatus(false);
+        application.sendBroadcast(new Intent(ConnectivityManager.CONNECTIVITY_ACTION));
+        response.addHeader("X-Refreshtime", "30");
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
+        subject.setAdUnitId("adUnitId");
+
+        subject.loadAd();
+
+        assertThat(subject.getRefreshScheduler().getFailureCount()).isEqualTo(1);
+        assertThat(subject.getRefreshScheduler().isScheduled()).isTrue();
+        verify(adFetcher, never()).fetchAdForUrl(anyString());
+
+        shadowOf(connectivityManager.getActiveNetworkInfo()).setConnectionStatus(true);
+        application.sendBroadcast(new Intent(ConnectivityManager.CONNECTIVITY_ACTION));
+        Robolectric.runUiThreadTasks();
+
+        verify(adFetcher).fetchAdForUrl(anyString());
+    }
+
+    @Test
+    public void adDidFail_shouldBackOffUnlessTheLoadWasCancelled() throws Exception {
+        subject.adDidFail(MoPubErrorCode.CANCELLED);
+        assertThat(subject.getRefreshScheduler().getFailureCount()).isEqualTo(0);
+
+        subject.adDidFail(MoPubErrorCode.NO_FILL);
+        subject.adDidFail(MoPubErrorCode.SERVER_ERROR);
+        assertThat(subject.getRefreshScheduler().getFailureCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void adDidLoad_shouldResetTheBackoffAndScheduleARefresh() throws Exception {
+        response.addHeader("X-Refreshtime", "30");
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
+        subject.adDidFail(MoPubErrorCode.NO_FILL);
+
+        subject.adDidLoad();
+
+        assertThat(subject.getRefreshScheduler().getFailureCount()).isEqualTo(0);
+        assertThat(subject.getRefreshScheduler().isScheduled()).isTrue();
+    }
+
+    @Test
+    public void pauseRefresh_shouldKeepTheAutorefreshSettingAndThePendingRefresh() throws Exception {
+        response.addHeader("X-Refreshtime", "30");
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
+        subject.scheduleRefreshTimerIfEnabled();
+
+        subject.pauseRefresh();
+
+        assertThat(subject.getAutorefreshEnabled()).isTrue();
+        assertThat(subject.getRefreshScheduler().isPaused()).isTrue();
+        assertThat(subject.getRefreshScheduler().isScheduled()).isTrue();
+
+        subject.resumeRefresh();
+
+        assertThat(subject.getRefreshScheduler().isPaused()).isFalse();
+    }
+
+    @Test
+    public void loadAd_shouldPrepareTheRequestOnTheAdFetchExecutorAndFetchOnTheUiThread() throws Exception {
+        final List<Runnable> preparations = new ArrayList<Runnable>();
+        AdFetchExecutor.setExecutor(new Executor() {
+            public void execute(Runnable runnable) {
+                preparations.add(runnable);
+            }
+        });
+        subject.setAdUnitId("adUnitId");
+
+        subject.loadAd();
+
+        assertThat(preparations).hasSize(1);
+        verify(adFetcher, never()).fetchAdForUrl(anyString());
+
+        Robolectric.pauseMainLooper();
+        preparations.get(0).run();
+        verify(adFetcher, never()).fetchAdForUrl(anyString());
+
+        Robolectric.unPauseMainLooper();
+        verify(adFetcher).fetchAdForUrl(anyString());
+    }
+
+    @Test
+    public void loadAd_whenDestroyedBeforeTheRequestIsPrepared_shouldNotFetch() throws Exception {
+        final List<Runnable> preparations = new ArrayList<Runnable>();
+        AdFetchExecutor.setExecutor(new Executor() {
+            public void execute(Runnable runnable) {
+                preparations.add(runnable);
+            }
+        });
+        subject.setAdUnitId("adUnitId");
+
+        subject.loadAd();
+        subject.cleanup();
+        preparations.get(0).run();
+
+        verify(adFetcher, never()).fetchAdForUrl(anyString());
+    }
+
     @Test
     public void loadNonJavascript_shouldFetchAd() throws Exception {
         String url = "http://www.guy.com";
@@ -359,7 +567,7 @@ public class AdViewControllerTest {
         response.addHeader("X-Height", "50");
         final View view = mock(View.class);
         AdViewController.setShouldHonorServerDimensions(view);
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
 
         new Thread(new Runnable() {
             @Override
@@ -386,7 +594,7 @@ public class AdViewControllerTest {
         response.addHeader("X-Height", "50");
         View view = mock(View.class);
         AdViewController.setShouldHonorServerDimensions(view);
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
 
         subject.setAdContentView(view);
 
@@ -404,7 +612,7 @@ public class AdViewControllerTest {
     public void setAdContentView_whenHonorServerDimensionsAndDoesntHaveDimensions_shouldWrapAndCenterView() throws Exception {
         View view = mock(View.class);
         AdViewController.setShouldHonorServerDimensions(view);
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
 
         subject.setAdContentView(view);
 
@@ -422,7 +630,7 @@ public class AdViewControllerTest {
     public void setAdContentView_whenNotServerDimensions_shouldWrapAndCenterView() throws Exception {
         response.addHeader("X-Width", "320");
         response.addHeader("X-Height", "50");
-        subject.configureUsingHttpResponse(response);
+        subject.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
         View view = mock(View.class);
 
         subject.setAdContentView(view);
@@ -459,4 +667,11 @@ public class AdViewControllerTest {
             // success!
         }
     }
+
+    private static class RejectingTrackingDispatcher extends TrackingDispatcher {
+        @Override
+        protected boolean internalDispatch(Runnable beacon) {
+            return false;
+        }
+    }
 }
@@ -71,4 +71,18 @@ public class BaseHtmlWebViewTest {
         assertThat(lastLoadData.encoding).isEqualTo("utf-8");
         assertThat(lastLoadData.historyUrl).isNull();
     }
+
+    @Test
+    public void reset_shouldDropTheClientAndTouchListenerAndLoadABlankPage() throws Exception {
+        ShadowWebView shadowSubject = shadowOf(subject);
+        subject.init(false);
+        HtmlWebViewClient htmlWebViewClient = new HtmlWebViewClient(null, subject, null, null);
+        subject.setWebViewClient(htmlWebViewClient);
+
+        subject.reset();
+
+        assertThat(shadowSubject.getOnTouchListener()).isNull();
+        assertThat(shadowSubject.getWebViewClient()).isNotSameAs(htmlWebViewClient);
+        assertThat(shadowSubject.getLastLoadedUrl()).isEqualTo(BaseHtmlWebView.BLANK_PAGE_URL);
+    }
 }
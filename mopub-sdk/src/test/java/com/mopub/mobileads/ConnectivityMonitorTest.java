@@ -0,0 +1,116 @@
+package com.mopub.mobileads;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.shadows.ShadowConnectivityManager;
+import org.robolectric.shadows.ShadowNetworkInfo;
+
+import static android.Manifest.permission.ACCESS_NETWORK_STATE;
+import static com.mopub.mobileads.AdUrlGenerator.UNKNOWN_NETWORK_TYPE;
+import static com.mopub.mobileads.ConnectivityMonitor.ConnectivityListener;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.robolectric.Robolectric.application;
+import static org.robolectric.Robolectric.shadowOf;
+
+@RunWith(SdkTestRunner.class)
+public class ConnectivityMonitorTest {
+    private ConnectivityMonitor subject;
+    private ShadowConnectivityManager shadowConnectivityManager;
+    private ConnectivityListener listener;
+
+    @Before
+    public void setUp() throws Exception {
+        shadowOf(application).grantPermissions(ACCESS_NETWORK_STATE);
+        shadowConnectivityManager = shadowOf((ConnectivityManager) application.getSystemService(Context.CONNECTIVITY_SERVICE));
+        setActiveNetworkInfo(ConnectivityManager.TYPE_WIFI, true);
+        subject = ConnectivityMonitor.getInstance(new Activity());
+        listener = mock(ConnectivityListener.class);
+    }
+
+    @Test
+    public void getInstance_shouldReturnTheSameMonitor() throws Exception {
+        assertThat(ConnectivityMonitor.getInstance(new Activity())).isSameAs(subject);
+    }
+
+    @Test
+    public void isConnected_shouldKeepTheStateUntilConnectivityChanges() throws Exception {
+        assertThat(subject.isConnected()).isTrue();
+        assertThat(subject.getNetworkType()).isEqualTo(ConnectivityManager.TYPE_WIFI);
+
+        setActiveNetworkInfo(ConnectivityManager.TYPE_MOBILE, false);
+        assertThat(subject.isConnected()).isTrue();
+        assertThat(subject.getNetworkType()).isEqualTo(ConnectivityManager.TYPE_WIFI);
+
+        sendConnectivityBroadcast();
+        assertThat(subject.isConnected()).isFalse();
+        assertThat(subject.getNetworkType()).isEqualTo(ConnectivityManager.TYPE_MOBILE);
+    }
+
+    @Test
+    public void whenThereIsNoActiveNetwork_shouldBeDisconnectedWithUnknownNetworkType() throws Exception {
+        shadowConnectivityManager.setActiveNetworkInfo(null);
+        sendConnectivityBroadcast();
+
+        assertThat(subject.isConnected()).isFalse();
+        assertThat(subject.getNetworkType()).isEqualTo(UNKNOWN_NETWORK_TYPE);
+    }
+
+    @Test
+    public void listener_shouldBeNotifiedOnlyWhenTheNetworkComesBack() throws Exception {
+        subject.addListener(listener);
+
+        sendConnectivityBroadcast();
+        verify(listener, never()).onConnected();
+
+        setActiveNetworkInfo(ConnectivityManager.TYPE_WIFI, false);
+        sendConnectivityBroadcast();
+        verify(listener, never()).onConnected();
+
+        setActiveNetworkInfo(ConnectivityManager.TYPE_WIFI, true);
+        sendConnectivityBroadcast();
+        verify(listener).onConnected();
+    }
+
+    @Test
+    public void removeListener_shouldStopNotifications() throws Exception {
+        subject.addListener(listener);
+        subject.removeListener(listener);
+
+        setActiveNetworkInfo(ConnectivityManager.TYPE_WIFI, false);
+        sendConnectivityBroadcast();
+        setActiveNetworkInfo(ConnectivityManager.TYPE_WIFI, true);
+        sendConnectivityBroadcast();
+
+        verify(listener, never()).onConnected();
+    }
+
+    @Test
+    public void withoutNetworkStatePermission_shouldAssumeConnectedWithUnknownNetworkType() throws Exception {
+        shadowOf(application).denyPermissions(ACCESS_NETWORK_STATE);
+        setActiveNetworkInfo(ConnectivityManager.TYPE_MOBILE, false);
+
+        subject = new ConnectivityMonitor(application);
+
+        assertThat(subject.isConnected()).isTrue();
+        assertThat(subject.getNetworkType()).isEqualTo(UNKNOWN_NETWORK_TYPE);
+    }
+
+    private void setActiveNetworkInfo(int type, boolean isConnected) {
+        NetworkInfo networkInfo = ShadowNetworkInfo.newInstance(null, type, 0, true, isConnected);
+        shadowConnectivityManager.setActiveNetworkInfo(networkInfo);
+    }
+
+    private void sendConnectivityBroadcast() {
+        application.sendBroadcast(new Intent(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+}
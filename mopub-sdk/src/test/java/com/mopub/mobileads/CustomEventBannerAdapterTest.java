@@ -14,7 +14,9 @@ import org.robolectric.Robolectric;
 import java.util.HashMap;
 import java.util.Map;
 
+import static com.mopub.mobileads.AdFetcher.CUSTOM_EVENT_NAME_HEADER;
 import static com.mopub.mobileads.AdFetcher.HTML_RESPONSE_BODY_KEY;
+import static com.mopub.mobileads.AdFetcher.SCROLLABLE_KEY;
 import static com.mopub.mobileads.CustomEventBanner.CustomEventBannerListener;
 import static com.mopub.mobileads.MoPubErrorCode.ADAPTER_CONFIGURATION_ERROR;
 import static com.mopub.mobileads.MoPubErrorCode.NETWORK_TIMEOUT;
@@ -246,4 +248,24 @@ public class CustomEventBannerAdapterTest {
                 eq(expectedServerExtras)
         );
     }
+
+    @Test
+    public void init_whenPassedAParamsMap_shouldAddItsResponseBodyEntriesToServerExtras() throws Exception {
+        Map<String, String> paramsMap = new HashMap<String, String>();
+        paramsMap.put(CUSTOM_EVENT_NAME_HEADER, CLASS_NAME);
+        paramsMap.put(HTML_RESPONSE_BODY_KEY, "<html>expected html data</html>");
+        paramsMap.put(SCROLLABLE_KEY, "true");
+        expectedServerExtras.put(HTML_RESPONSE_BODY_KEY, "<html>expected html data</html>");
+        expectedServerExtras.put(SCROLLABLE_KEY, "true");
+
+        subject = new CustomEventBannerAdapter(moPubView, CLASS_NAME, null, paramsMap);
+        subject.loadAd();
+
+        verify(banner).loadBanner(
+                any(Context.class),
+                eq(subject),
+                eq(expectedLocalExtras),
+                eq(expectedServerExtras)
+        );
+    }
 }
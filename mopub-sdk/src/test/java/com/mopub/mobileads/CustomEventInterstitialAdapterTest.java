@@ -12,6 +12,9 @@ import org.robolectric.Robolectric;
 import java.util.HashMap;
 import java.util.Map;
 
+import static com.mopub.mobileads.AdFetcher.CUSTOM_EVENT_DATA_HEADER;
+import static com.mopub.mobileads.AdFetcher.CUSTOM_EVENT_NAME_HEADER;
+import static com.mopub.mobileads.AdFetcher.HTML_RESPONSE_BODY_KEY;
 import static com.mopub.mobileads.CustomEventInterstitial.CustomEventInterstitialListener;
 import static com.mopub.mobileads.MoPubErrorCode.ADAPTER_CONFIGURATION_ERROR;
 import static com.mopub.mobileads.MoPubErrorCode.NETWORK_TIMEOUT;
@@ -75,6 +78,26 @@ public class CustomEventInterstitialAdapterTest {
         );
     }
 
+    @Test
+    public void loadInterstitial_withAParamsMap_shouldAddItsResponseBodyEntriesToServerExtras() throws Exception {
+        Map<String, String> paramsMap = new HashMap<String, String>();
+        paramsMap.put(CUSTOM_EVENT_NAME_HEADER, CLASS_NAME);
+        paramsMap.put(CUSTOM_EVENT_DATA_HEADER, "{\"key\":\"value\"}");
+        paramsMap.put(HTML_RESPONSE_BODY_KEY, "<html></html>");
+        expectedServerExtras.put("key", "value");
+        expectedServerExtras.put(HTML_RESPONSE_BODY_KEY, "<html></html>");
+
+        subject = new CustomEventInterstitialAdapter(moPubInterstitial, CLASS_NAME, "{\"key\":\"value\"}", paramsMap);
+        subject.loadInterstitial();
+
+        verify(interstitial).loadInterstitial(
+                any(Context.class),
+                eq(subject),
+                eq(expectedLocalExtras),
+                eq(expectedServerExtras)
+        );
+    }
+
     @Test
     public void loadInterstitial_shouldPropagateLocationInLocalExtras() throws Exception {
         Location expectedLocation = new Location("");
@@ -1,7 +1,6 @@
 package com.mopub.mobileads;
 
 import android.app.Activity;
-import android.net.Uri;
 import android.view.Gravity;
 import android.view.ViewGroup;
 import android.view.ViewParent;
@@ -51,7 +50,7 @@ public class HtmlBannerTest {
         localExtras = new HashMap<String, Object>();
         serverExtras = new HashMap<String, String>();
         responseBody = "expected response body";
-        serverExtras.put(HTML_RESPONSE_BODY_KEY, Uri.encode(responseBody));
+        serverExtras.put(HTML_RESPONSE_BODY_KEY, responseBody);
         serverExtras.put(SCROLLABLE_KEY, "false");
     }
 
@@ -94,7 +93,7 @@ public class HtmlBannerTest {
     }
 
     @Test
-    public void onInvalidate_shouldRemoveAndDestroyTheHtmlWebView() throws Exception {
+    public void onInvalidate_shouldRemoveAndRecycleTheHtmlWebView() throws Exception {
         ViewGroup viewGroup = mock(ViewGroup.class);
         stub(htmlBannerWebView.getParent()).toReturn(viewGroup);
 
@@ -102,7 +101,7 @@ public class HtmlBannerTest {
         subject.onInvalidate();
 
         verify(viewGroup).removeView(eq(htmlBannerWebView));
-        verify(htmlBannerWebView).destroy();
+        assertThat(TestHtmlBannerWebViewFactory.getLatestRecycledWebView()).isSameAs(htmlBannerWebView);
     }
 
     @Test
@@ -114,7 +113,7 @@ public class HtmlBannerTest {
         subject.onInvalidate();
 
         // pass
-        verify(htmlBannerWebView).destroy();
+        assertThat(TestHtmlBannerWebViewFactory.getLatestRecycledWebView()).isSameAs(htmlBannerWebView);
     }
 
     @Test
@@ -126,7 +125,7 @@ public class HtmlBannerTest {
         HttpResponse response = new TestHttpResponseWithHeaders(200, "I ain't got no-body");
         response.addHeader("X-Width", "320");
         response.addHeader("X-Height", "50");
-        adViewController.configureUsingHttpResponse(response);
+        adViewController.configureUsingAdResponse(AdResponse.fromHttpResponse(response));
 
         adViewController.setAdContentView(htmlBannerWebView);
         ArgumentCaptor<FrameLayout.LayoutParams> layoutParamsCaptor = ArgumentCaptor.forClass(FrameLayout.LayoutParams.class);
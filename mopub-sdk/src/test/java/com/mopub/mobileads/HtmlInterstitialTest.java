@@ -2,7 +2,6 @@ package com.mopub.mobileads;
 
 import android.app.Activity;
 import android.content.Intent;
-import android.net.Uri;
 import com.mopub.mobileads.test.support.SdkTestRunner;
 import com.mopub.mobileads.test.support.TestHtmlInterstitialWebViewFactory;
 import org.junit.Before;
@@ -11,13 +10,17 @@ import org.junit.runner.RunWith;
 import org.robolectric.Robolectric;
 import org.robolectric.shadows.ShadowLocalBroadcastManager;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static com.mopub.mobileads.AdFetcher.CLICKTHROUGH_URL_KEY;
 import static com.mopub.mobileads.AdFetcher.HTML_RESPONSE_BODY_KEY;
 import static com.mopub.mobileads.AdFetcher.REDIRECT_URL_KEY;
 import static com.mopub.mobileads.AdFetcher.SCROLLABLE_KEY;
+import static com.mopub.mobileads.InterstitialCreativeStore.CREATIVE_TOKEN_KEY;
+import static com.mopub.mobileads.InterstitialPreloadPool.MAXIMUM_POOL_SIZE;
 import static com.mopub.mobileads.BaseInterstitialActivity.ACTION_INTERSTITIAL_DISMISS;
 import static com.mopub.mobileads.BaseInterstitialActivity.ACTION_INTERSTITIAL_SHOW;
 import static com.mopub.mobileads.CustomEventInterstitial.CustomEventInterstitialListener;
@@ -48,7 +51,7 @@ public class HtmlInterstitialTest {
         customEventInterstitialListener = mock(CustomEventInterstitialListener.class);
         localExtras = new HashMap<String, Object>();
         serverExtras = new HashMap<String, String>();
-        serverExtras.put(HTML_RESPONSE_BODY_KEY, Uri.encode(expectedResponse));
+        serverExtras.put(HTML_RESPONSE_BODY_KEY, expectedResponse);
     }
 
     @Test
@@ -79,7 +82,7 @@ public class HtmlInterstitialTest {
         subject.showInterstitial();
 
         Intent nextStartedActivity = Robolectric.getShadowApplication().getNextStartedActivity();
-        assertThat(nextStartedActivity.getStringExtra(HTML_RESPONSE_BODY_KEY)).isEqualTo(expectedResponse);
+        assertThat(InterstitialCreativeStore.get(nextStartedActivity.getStringExtra(CREATIVE_TOKEN_KEY))).isEqualTo(expectedResponse);
         assertThat(nextStartedActivity.getBooleanExtra(SCROLLABLE_KEY, false)).isFalse();
         assertThat(nextStartedActivity.getStringExtra(REDIRECT_URL_KEY)).isNull();
         assertThat(nextStartedActivity.getStringExtra(CLICKTHROUGH_URL_KEY)).isNull();
@@ -97,7 +100,7 @@ public class HtmlInterstitialTest {
         subject.showInterstitial();
 
         Intent nextStartedActivity = Robolectric.getShadowApplication().getNextStartedActivity();
-        assertThat(nextStartedActivity.getStringExtra(HTML_RESPONSE_BODY_KEY)).isEqualTo(expectedResponse);
+        assertThat(InterstitialCreativeStore.get(nextStartedActivity.getStringExtra(CREATIVE_TOKEN_KEY))).isEqualTo(expectedResponse);
         assertThat(nextStartedActivity.getBooleanExtra(SCROLLABLE_KEY, false)).isTrue();
         assertThat(nextStartedActivity.getStringExtra(REDIRECT_URL_KEY)).isEqualTo("redirectUrl");
         assertThat(nextStartedActivity.getStringExtra(CLICKTHROUGH_URL_KEY)).isEqualTo("clickthroughUrl");
@@ -105,6 +108,28 @@ public class HtmlInterstitialTest {
         assertThat(nextStartedActivity.getComponent().getClassName()).isEqualTo("com.mopub.mobileads.MoPubActivity");
     }
 
+    @Test
+    public void showInterstitial_afterOtherInterstitialsArePreloaded_shouldShowTheOldestCreative() throws Exception {
+        List<HtmlInterstitial> preloadedInterstitials = new ArrayList<HtmlInterstitial>();
+        // Two MoPubInterstitials, each with a full preload pool.
+        for (int i = 0; i < 2 * MAXIMUM_POOL_SIZE; i++) {
+            serverExtras.put(HTML_RESPONSE_BODY_KEY, "creative " + i);
+            HtmlInterstitial interstitial = new HtmlInterstitial();
+            interstitial.loadInterstitial(context, customEventInterstitialListener, localExtras, serverExtras);
+            preloadedInterstitials.add(interstitial);
+        }
+
+        preloadedInterstitials.get(0).showInterstitial();
+
+        Intent nextStartedActivity = Robolectric.getShadowApplication().getNextStartedActivity();
+        MoPubActivity moPubActivity = new MoPubActivity();
+        moPubActivity.setIntent(nextStartedActivity);
+        moPubActivity.getAdView();
+
+        verify(htmlInterstitialWebView).loadHtmlResponse("creative 0");
+        assertThat(moPubActivity.isFinishing()).isFalse();
+    }
+
     @Test
     public void loadInterstitial_shouldConnectListenerToBroadcastReceiver() throws Exception {
         subject.loadInterstitial(context, customEventInterstitialListener, localExtras, serverExtras);
@@ -137,4 +162,40 @@ public class HtmlInterstitialTest {
 
         verify(customEventInterstitialListener, never()).onInterstitialDismissed();
     }
+
+    @Test
+    public void onInvalidate_beforeShowInterstitial_shouldRemoveTheStoredCreative() throws Exception {
+        subject.loadInterstitial(context, customEventInterstitialListener, localExtras, serverExtras);
+
+        subject.onInvalidate();
+
+        assertThat(InterstitialCreativeStore.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void onInvalidate_afterShowInterstitial_shouldKeepTheCreativeForTheActivity() throws Exception {
+        subject.loadInterstitial(context, customEventInterstitialListener, localExtras, serverExtras);
+        subject.showInterstitial();
+        Intent nextStartedActivity = Robolectric.getShadowApplication().getNextStartedActivity();
+
+        subject.onInvalidate();
+
+        MoPubActivity moPubActivity = new MoPubActivity();
+        moPubActivity.setIntent(nextStartedActivity);
+        moPubActivity.getAdView();
+        verify(htmlInterstitialWebView).loadHtmlResponse(expectedResponse);
+        assertThat(moPubActivity.isFinishing()).isFalse();
+        assertThat(InterstitialCreativeStore.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void showInterstitial_calledTwice_shouldStartMoPubActivityOnce() throws Exception {
+        subject.loadInterstitial(context, customEventInterstitialListener, localExtras, serverExtras);
+        subject.showInterstitial();
+        Robolectric.getShadowApplication().getNextStartedActivity();
+
+        subject.showInterstitial();
+
+        assertThat(Robolectric.getShadowApplication().getNextStartedActivity()).isNull();
+    }
 }
@@ -0,0 +1,63 @@
+package com.mopub.mobileads;
+
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.mopub.mobileads.InterstitialCreativeStore.MAXIMUM_CREATIVES;
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class InterstitialCreativeStoreTest {
+    @Test
+    public void put_shouldReturnATokenThatResolvesToTheCreative() throws Exception {
+        String firstToken = InterstitialCreativeStore.put("<html>first</html>");
+        String secondToken = InterstitialCreativeStore.put("<html>second</html>");
+
+        assertThat(firstToken).isNotEqualTo(secondToken);
+        assertThat(InterstitialCreativeStore.get(firstToken)).isEqualTo("<html>first</html>");
+        assertThat(InterstitialCreativeStore.get(secondToken)).isEqualTo("<html>second</html>");
+    }
+
+    @Test
+    public void get_withUnknownOrNullToken_shouldReturnNull() throws Exception {
+        assertThat(InterstitialCreativeStore.get("unknown")).isNull();
+        assertThat(InterstitialCreativeStore.get(null)).isNull();
+    }
+
+    @Test
+    public void remove_shouldForgetTheCreative() throws Exception {
+        String token = InterstitialCreativeStore.put("<html></html>");
+
+        InterstitialCreativeStore.remove(token);
+
+        assertThat(InterstitialCreativeStore.get(token)).isNull();
+        assertThat(InterstitialCreativeStore.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void take_shouldReturnTheCreativeAndForgetIt() throws Exception {
+        String token = InterstitialCreativeStore.put("<html></html>");
+
+        assertThat(InterstitialCreativeStore.take(token)).isEqualTo("<html></html>");
+        assertThat(InterstitialCreativeStore.take(token)).isNull();
+        assertThat(InterstitialCreativeStore.take(null)).isNull();
+        assertThat(InterstitialCreativeStore.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void put_whenFull_shouldEvictTheLeastRecentlyUsedCreative() throws Exception {
+        String oldestToken = InterstitialCreativeStore.put("oldest");
+        String recentlyUsedToken = InterstitialCreativeStore.put("recently used");
+        for (int i = 2; i < MAXIMUM_CREATIVES; i++) {
+            InterstitialCreativeStore.put("creative " + i);
+        }
+        InterstitialCreativeStore.get(oldestToken);
+
+        InterstitialCreativeStore.put("newest");
+
+        assertThat(InterstitialCreativeStore.size()).isEqualTo(MAXIMUM_CREATIVES);
+        assertThat(InterstitialCreativeStore.get(oldestToken)).isEqualTo("oldest");
+        assertThat(InterstitialCreativeStore.get(recentlyUsedToken)).isNull();
+    }
+}
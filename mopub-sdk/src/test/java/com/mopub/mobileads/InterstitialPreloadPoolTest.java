@@ -0,0 +1,108 @@
+package com.mopub.mobileads;
+
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import com.mopub.mobileads.test.support.TestDateAndTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Date;
+
+import static com.mopub.mobileads.InterstitialPreloadPool.AD_EXPIRATION_MILLISECONDS;
+import static com.mopub.mobileads.InterstitialPreloadPool.HEAP_BYTES_PER_INTERSTITIAL;
+import static com.mopub.mobileads.InterstitialPreloadPool.MAXIMUM_POOL_SIZE;
+import static com.mopub.mobileads.InterstitialPreloadPool.PooledInterstitial;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SdkTestRunner.class)
+public class InterstitialPreloadPoolTest {
+    private static final long START_TIME = 1365553573L;
+    private static final long LARGE_HEAP = 64 * HEAP_BYTES_PER_INTERSTITIAL;
+
+    private InterstitialPreloadPool subject;
+
+    @Before
+    public void setUp() throws Exception {
+        subject = new InterstitialPreloadPool(3, LARGE_HEAP);
+        setNow(START_TIME);
+    }
+
+    @Test
+    public void constructor_shouldCapTargetSizeByMaximumAndHeap() throws Exception {
+        assertThat(new InterstitialPreloadPool(100, LARGE_HEAP).getTargetSize()).isEqualTo(MAXIMUM_POOL_SIZE);
+        assertThat(new InterstitialPreloadPool(4, 2 * HEAP_BYTES_PER_INTERSTITIAL).getTargetSize()).isEqualTo(2);
+        assertThat(new InterstitialPreloadPool(4, HEAP_BYTES_PER_INTERSTITIAL / 2).getTargetSize()).isEqualTo(1);
+        assertThat(new InterstitialPreloadPool(0, LARGE_HEAP).getTargetSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void take_shouldReturnInterstitialsInLoadOrder() throws Exception {
+        PooledInterstitial first = createPooledInterstitial();
+        PooledInterstitial second = createPooledInterstitial();
+        subject.add(first);
+        subject.add(second);
+
+        assertThat(subject.take()).isSameAs(first);
+        assertThat(subject.take()).isSameAs(second);
+    }
+
+    @Test
+    public void take_shouldCountHitsAndMisses() throws Exception {
+        subject.add(createPooledInterstitial());
+
+        subject.take();
+        subject.take();
+        subject.take();
+
+        assertThat(subject.getHitCount()).isEqualTo(1);
+        assertThat(subject.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void take_shouldSkipAndInvalidateExpiredInterstitials() throws Exception {
+        PooledInterstitial expired = createPooledInterstitial();
+        subject.add(expired);
+        setNow(START_TIME + 1000);
+        PooledInterstitial fresh = createPooledInterstitial();
+        subject.add(fresh);
+
+        setNow(START_TIME + AD_EXPIRATION_MILLISECONDS);
+
+        assertThat(subject.take()).isSameAs(fresh);
+        verify(expired.mAdapter).invalidate();
+        assertThat(subject.getExpiredCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void needsRefill_shouldBeTrueUntilTargetSizeIsReached() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(subject.needsRefill()).isTrue();
+            subject.add(createPooledInterstitial());
+        }
+
+        assertThat(subject.needsRefill()).isFalse();
+        assertThat(subject.hasReadyInterstitial()).isTrue();
+    }
+
+    @Test
+    public void clear_shouldInvalidateAllReadyInterstitials() throws Exception {
+        PooledInterstitial interstitial = createPooledInterstitial();
+        subject.add(interstitial);
+
+        subject.clear();
+
+        verify(interstitial.mAdapter).invalidate();
+        assertThat(subject.getReadyCount()).isEqualTo(0);
+        assertThat(subject.hasReadyInterstitial()).isFalse();
+    }
+
+    private PooledInterstitial createPooledInterstitial() {
+        return new PooledInterstitial(mock(CustomEventInterstitialAdapter.class), "impression", "click");
+    }
+
+    private void setNow(long millis) {
+        TestDateAndTime.getInstance().setNow(new Date(millis));
+    }
+}
@@ -16,16 +16,18 @@ import org.robolectric.shadows.ShadowLocalBroadcastManager;
 
 import static android.widget.RelativeLayout.LayoutParams;
 import static com.mopub.mobileads.AdFetcher.CLICKTHROUGH_URL_KEY;
-import static com.mopub.mobileads.AdFetcher.HTML_RESPONSE_BODY_KEY;
 import static com.mopub.mobileads.AdFetcher.REDIRECT_URL_KEY;
 import static com.mopub.mobileads.AdFetcher.SCROLLABLE_KEY;
 import static com.mopub.mobileads.BaseInterstitialActivity.ACTION_INTERSTITIAL_FAIL;
 import static com.mopub.mobileads.BaseInterstitialActivity.ACTION_INTERSTITIAL_SHOW;
 import static com.mopub.mobileads.BaseInterstitialActivity.HTML_INTERSTITIAL_INTENT_FILTER;
+import static com.mopub.mobileads.InterstitialCreativeStore.CREATIVE_TOKEN_KEY;
 import static com.mopub.mobileads.MoPubErrorCode.UNSPECIFIED;
 import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.robolectric.Robolectric.shadowOf;
@@ -89,7 +91,7 @@ public class MoPubActivityTest extends BaseInterstitialActivityTest {
         MoPubActivity.start(subject, "expectedResponse", true, "redirectUrl", "clickthroughUrl");
 
         Intent nextStartedActivity = Robolectric.getShadowApplication().getNextStartedActivity();
-        assertThat(nextStartedActivity.getStringExtra(HTML_RESPONSE_BODY_KEY)).isEqualTo("expectedResponse");
+        assertThat(InterstitialCreativeStore.get(nextStartedActivity.getStringExtra(CREATIVE_TOKEN_KEY))).isEqualTo("expectedResponse");
         assertThat(nextStartedActivity.getBooleanExtra(SCROLLABLE_KEY, false)).isTrue();
         assertThat(nextStartedActivity.getStringExtra(REDIRECT_URL_KEY)).isEqualTo("redirectUrl");
         assertThat(nextStartedActivity.getStringExtra(CLICKTHROUGH_URL_KEY)).isEqualTo("clickthroughUrl");
@@ -108,6 +110,47 @@ public class MoPubActivityTest extends BaseInterstitialActivityTest {
         verify(htmlInterstitialWebView).loadHtmlResponse(EXPECTED_HTML_DATA);
     }
 
+    @Test
+    public void getAdView_whenTheCreativeIsNoLongerStored_shouldFinish() throws Exception {
+        MoPubActivity activity = new MoPubActivity();
+        activity.setIntent(createMoPubActivityIntent(EXPECTED_HTML_DATA, EXPECTED_IS_SCROLLABLE, EXPECTED_REDIRECT_URL, EXPECTED_CLICKTHROUGH_URL));
+        InterstitialCreativeStore.clear();
+
+        activity.getAdView();
+
+        verify(htmlInterstitialWebView, never()).loadHtmlResponse(anyString());
+        assertThat(shadowOf(activity).isFinishing()).isTrue();
+    }
+
+    @Test
+    public void getAdView_shouldTakeTheCreativeOutOfTheStore() throws Exception {
+        Intent intent = createMoPubActivityIntent(EXPECTED_HTML_DATA, EXPECTED_IS_SCROLLABLE, EXPECTED_REDIRECT_URL, EXPECTED_CLICKTHROUGH_URL);
+        MoPubActivity activity = new MoPubActivity();
+        activity.setIntent(intent);
+
+        activity.getAdView();
+
+        verify(htmlInterstitialWebView).loadHtmlResponse(EXPECTED_HTML_DATA);
+        assertThat(InterstitialCreativeStore.get(intent.getStringExtra(CREATIVE_TOKEN_KEY))).isNull();
+    }
+
+    @Test
+    public void getAdView_afterAConfigurationChange_shouldLoadTheRetainedCreative() throws Exception {
+        Intent intent = createMoPubActivityIntent(EXPECTED_HTML_DATA, EXPECTED_IS_SCROLLABLE, EXPECTED_REDIRECT_URL, EXPECTED_CLICKTHROUGH_URL);
+        MoPubActivity activity = new MoPubActivity();
+        activity.setIntent(intent);
+        activity.getAdView();
+        MoPubActivity recreatedActivity = new MoPubActivity();
+        recreatedActivity.setIntent(intent);
+        shadowOf(recreatedActivity).setLastNonConfigurationInstance(activity.onRetainNonConfigurationInstance());
+        reset(htmlInterstitialWebView);
+
+        recreatedActivity.getAdView();
+
+        verify(htmlInterstitialWebView).loadHtmlResponse(EXPECTED_HTML_DATA);
+        assertThat(shadowOf(recreatedActivity).isFinishing()).isFalse();
+    }
+
     @Test
     public void getAdView_shouldSetUpForBroadcastingClicks() throws Exception {
         subject.getAdView();
@@ -10,6 +10,7 @@ import org.robolectric.Robolectric;
 import org.robolectric.tester.org.apache.http.FakeHttpLayer;
 import org.robolectric.tester.org.apache.http.HttpRequestInfo;
 
+import static android.content.Context.MODE_PRIVATE;
 import static org.fest.assertions.api.Assertions.assertThat;
 
 @RunWith(SdkTestRunner.class)
@@ -23,6 +24,14 @@ public class MoPubConversionTrackerTest {
         subject = new MoPubConversionTracker();
         context = new Activity();
         fakeHttpLayer = Robolectric.getFakeHttpLayer();
+        // Run the open beacon inline so that requestWasMade() does not race the tracking thread.
+        TrackingDispatcher.setInstance(new TrackingDispatcher() {
+            @Override
+            protected boolean internalDispatch(Runnable beacon) {
+                beacon.run();
+                return true;
+            }
+        });
     }
 
     @Test
@@ -36,6 +45,20 @@ public class MoPubConversionTrackerTest {
         assertThat(requestWasMade()).isFalse();
     }
 
+    @Test
+    public void reportAppOpen_whenAlreadyTracked_shouldNotResolveTheUserAgent() throws Exception {
+        context.getSharedPreferences("mopubSettings", MODE_PRIVATE)
+                .edit()
+                .putBoolean(context.getPackageName() + " tracked", true)
+                .commit();
+
+        subject.reportAppOpen(context);
+
+        assertThat(requestWasMade()).isFalse();
+        assertThat(context.getSharedPreferences(UserAgentProvider.PREFERENCE_NAME, MODE_PRIVATE)
+                .contains(UserAgentProvider.USER_AGENT_KEY)).isFalse();
+    }
+
     @Test
     public void reportAppOpen_onInvalidStatusCode_shouldMakeSecondRequest() throws Exception {
         fakeHttpLayer.addPendingHttpResponse(404, "doesn't matter what this is as long as it's not nothing");
@@ -6,6 +6,7 @@ import com.mopub.mobileads.test.support.TestCustomEventInterstitialAdapterFactor
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
@@ -23,6 +24,8 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.stub;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @RunWith(com.mopub.mobileads.test.support.SdkTestRunner.class)
@@ -155,6 +158,7 @@ public class MoPubInterstitialTest {
         assertThat(TestCustomEventInterstitialAdapterFactory.getLatestMoPubInterstitial()).isSameAs(subject);
         assertThat(TestCustomEventInterstitialAdapterFactory.getLatestClassName()).isEqualTo("class name");
         assertThat(TestCustomEventInterstitialAdapterFactory.getLatestClassData()).isEqualTo("class data");
+        assertThat(TestCustomEventInterstitialAdapterFactory.getLatestParamsMap()).isSameAs(paramsMap);
     }
 
     @Test
@@ -368,6 +372,113 @@ public class MoPubInterstitialTest {
         verify(interstitialAdListener).onInterstitialFailed(eq(subject), eq(CANCELLED));
     }
 
+    @Test
+    public void setPreloadCount_thenLoadCustomEvent_shouldLoadAdapterWithItsOwnListener() throws Exception {
+        subject.setPreloadCount(2);
+
+        CustomEventInterstitialAdapter.CustomEventInterstitialAdapterListener listener = preloadCustomEvent();
+
+        assertThat(listener).isNotSameAs(subject);
+        verify(customEventInterstitialAdapter).loadInterstitial();
+        assertThat(subject.isReady()).isFalse();
+    }
+
+    @Test
+    public void preloadedInterstitialLoaded_shouldNotifyListenerAndRefill() throws Exception {
+        subject.setPreloadCount(2);
+        CustomEventInterstitialAdapter.CustomEventInterstitialAdapterListener listener = preloadCustomEvent();
+        subject.setInterstitialView(interstitialView);
+
+        listener.onCustomEventInterstitialLoaded();
+
+        assertThat(subject.isReady()).isTrue();
+        assertThat(subject.getPreloadedCount()).isEqualTo(1);
+        verify(interstitialAdListener).onInterstitialLoaded(eq(subject));
+        verify(interstitialView).loadAd();
+    }
+
+    @Test
+    public void show_withPreloadedInterstitial_shouldShowItAndCountHitsAndMisses() throws Exception {
+        subject.setPreloadCount(1);
+        CustomEventInterstitialAdapter.CustomEventInterstitialAdapterListener listener = preloadCustomEvent();
+        subject.setInterstitialView(interstitialView);
+        listener.onCustomEventInterstitialLoaded();
+        verify(interstitialView, never()).loadAd();
+
+        assertThat(subject.show()).isTrue();
+        verify(customEventInterstitialAdapter).showInterstitial();
+        assertThat(subject.getPreloadHitCount()).isEqualTo(1);
+        verify(interstitialView).loadAd();
+
+        assertThat(subject.show()).isFalse();
+        assertThat(subject.getPreloadMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void preloadedInterstitialShownAndClicked_shouldTrackWithItsOwnUrls() throws Exception {
+        stub(adViewController.getImpressionUrl()).toReturn("impression url");
+        stub(adViewController.getClickthroughUrl()).toReturn("clickthrough url");
+        subject.setPreloadCount(2);
+        CustomEventInterstitialAdapter.CustomEventInterstitialAdapterListener listener = preloadCustomEvent();
+        subject.setInterstitialView(interstitialView);
+
+        listener.onCustomEventInterstitialShown(true);
+        listener.onCustomEventInterstitialClicked();
+
+        verify(interstitialView).trackImpression(eq("impression url"));
+        verify(interstitialView).registerClick(eq("clickthrough url"));
+        verify(interstitialAdListener).onInterstitialShown(eq(subject));
+        verify(interstitialAdListener).onInterstitialClicked(eq(subject));
+    }
+
+    @Test
+    public void preloadedInterstitialFailed_shouldInvalidateItAndLoadFailUrl() throws Exception {
+        subject.setPreloadCount(2);
+        CustomEventInterstitialAdapter.CustomEventInterstitialAdapterListener listener = preloadCustomEvent();
+        subject.setInterstitialView(interstitialView);
+
+        listener.onCustomEventInterstitialFailed(INTERNAL_ERROR);
+
+        verify(customEventInterstitialAdapter).invalidate();
+        verify(interstitialView).loadFailUrl(eq(INTERNAL_ERROR));
+        assertThat(subject.isReady()).isFalse();
+    }
+
+    @Test
+    public void adFailed_whenPreloadedInterstitialIsReady_shouldNotNotifyInterstitialAdListener() throws Exception {
+        subject.setPreloadCount(2);
+        CustomEventInterstitialAdapter.CustomEventInterstitialAdapterListener listener = preloadCustomEvent();
+        subject.setInterstitialView(interstitialView);
+        listener.onCustomEventInterstitialLoaded();
+
+        subject.new MoPubInterstitialView(activity).adFailed(CANCELLED);
+
+        verify(interstitialAdListener, never()).onInterstitialFailed(eq(subject), eq(CANCELLED));
+    }
+
+    @Test
+    public void destroy_shouldInvalidatePreloadedInterstitials() throws Exception {
+        subject.setPreloadCount(2);
+        CustomEventInterstitialAdapter.CustomEventInterstitialAdapterListener listener = preloadCustomEvent();
+        subject.setInterstitialView(interstitialView);
+        listener.onCustomEventInterstitialLoaded();
+
+        subject.destroy();
+
+        verify(customEventInterstitialAdapter, times(1)).invalidate();
+        assertThat(subject.getPreloadedCount()).isEqualTo(0);
+    }
+
+    private CustomEventInterstitialAdapter.CustomEventInterstitialAdapterListener preloadCustomEvent() {
+        MoPubInterstitial.MoPubInterstitialView moPubInterstitialView = subject.new MoPubInterstitialView(activity);
+        moPubInterstitialView.loadCustomEvent(paramsMap);
+
+        ArgumentCaptor<CustomEventInterstitialAdapter.CustomEventInterstitialAdapterListener> listenerCaptor =
+                ArgumentCaptor.forClass(CustomEventInterstitialAdapter.CustomEventInterstitialAdapterListener.class);
+        verify(customEventInterstitialAdapter).setAdapterListener(listenerCaptor.capture());
+        return listenerCaptor.getValue();
+    }
+
     private void loadCustomEvent() {
         MoPubInterstitial.MoPubInterstitialView moPubInterstitialView = subject.new MoPubInterstitialView(activity);
 
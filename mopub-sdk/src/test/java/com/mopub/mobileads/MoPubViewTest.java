@@ -1,14 +1,18 @@
 package com.mopub.mobileads;
 
 import android.app.Activity;
+import android.content.BroadcastReceiver;
+import android.content.Intent;
 import com.mopub.mobileads.test.support.SdkTestRunner;
 import com.mopub.mobileads.test.support.TestAdViewControllerFactory;
 import com.mopub.mobileads.test.support.TestCustomEventBannerAdapterFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static com.mopub.mobileads.MoPubErrorCode.ADAPTER_NOT_FOUND;
@@ -43,6 +47,7 @@ public class MoPubViewTest {
         assertThat(TestCustomEventBannerAdapterFactory.getLatestMoPubView()).isEqualTo(subject);
         assertThat(TestCustomEventBannerAdapterFactory.getLatestClassName()).isEqualTo("name");
         assertThat(TestCustomEventBannerAdapterFactory.getLatestClassData()).isEqualTo("data");
+        assertThat(TestCustomEventBannerAdapterFactory.getLatestParamsMap()).isSameAs(paramsMap);
 
         verify(customEventBannerAdapter).loadAd();
     }
@@ -55,4 +60,34 @@ public class MoPubViewTest {
         verify(customEventBannerAdapter, never()).invalidate();
         verify(customEventBannerAdapter, never()).loadAd();
     }
+
+    @Test
+    public void screenOff_thenUserPresent_shouldPauseAndResumeRefresh() throws Exception {
+        Robolectric.application.sendBroadcast(new Intent(Intent.ACTION_SCREEN_OFF));
+        verify(adViewController).pauseRefresh();
+
+        Robolectric.application.sendBroadcast(new Intent(Intent.ACTION_USER_PRESENT));
+        verify(adViewController).resumeRefresh();
+    }
+
+    @Test
+    public void manyMoPubViews_shouldShareOneScreenStateReceiver() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            new MoPubView(new Activity());
+        }
+
+        List<BroadcastReceiver> receivers = Robolectric.getShadowApplication()
+                .getReceiversForIntent(new Intent(Intent.ACTION_SCREEN_OFF));
+        assertThat(receivers).hasSize(1);
+    }
+
+    @Test
+    public void destroy_shouldStopListeningForScreenState() throws Exception {
+        subject.destroy();
+
+        Robolectric.application.sendBroadcast(new Intent(Intent.ACTION_SCREEN_OFF));
+
+        verify(adViewController, never()).pauseRefresh();
+        assertThat(SystemBroadcastHub.getInstance(new Activity()).isRegistered(Intent.ACTION_SCREEN_OFF)).isFalse();
+    }
 }
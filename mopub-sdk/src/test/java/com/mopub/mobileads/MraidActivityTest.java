@@ -16,7 +16,7 @@ import org.mockito.ArgumentCaptor;
 import org.robolectric.Robolectric;
 import org.robolectric.shadows.ShadowLocalBroadcastManager;
 
-import static com.mopub.mobileads.AdFetcher.HTML_RESPONSE_BODY_KEY;
+import static com.mopub.mobileads.InterstitialCreativeStore.CREATIVE_TOKEN_KEY;
 import static com.mopub.mobileads.BaseInterstitialActivity.ACTION_INTERSTITIAL_DISMISS;
 import static com.mopub.mobileads.BaseInterstitialActivity.ACTION_INTERSTITIAL_SHOW;
 import static com.mopub.mobileads.BaseInterstitialActivity.HTML_INTERSTITIAL_INTENT_FILTER;
@@ -166,7 +166,7 @@ public class MraidActivityTest extends BaseInterstitialActivityTest {
     private Intent createMraidActivityIntent(String expectedSource) {
         Intent mraidActivityIntent = new Intent();
         mraidActivityIntent.setComponent(new ComponentName("", ""));
-        mraidActivityIntent.putExtra(HTML_RESPONSE_BODY_KEY, expectedSource);
+        mraidActivityIntent.putExtra(CREATIVE_TOKEN_KEY, InterstitialCreativeStore.put(expectedSource));
         return mraidActivityIntent;
     }
 }
@@ -29,7 +29,6 @@ public class MraidBannerTest {
     private Map<String, Object> localExtras;
     private Map<String, String> serverExtras;
     private CustomEventBannerListener bannerListener;
-    private static final String INPUT_HTML_DATA = "%3Chtml%3E%3C%2Fhtml%3E";
     private static final String EXPECTED_HTML_DATA = "<html></html>";
 
     @Before
@@ -41,7 +40,7 @@ public class MraidBannerTest {
         bannerListener = mock(CustomEventBanner.CustomEventBannerListener.class);
         localExtras = new HashMap<String, Object>();
         serverExtras = new HashMap<String, String>();
-        serverExtras.put(HTML_RESPONSE_BODY_KEY, INPUT_HTML_DATA);
+        serverExtras.put(HTML_RESPONSE_BODY_KEY, EXPECTED_HTML_DATA);
     }
 
     @Test
@@ -0,0 +1,53 @@
+package com.mopub.mobileads;
+
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.mopub.mobileads.MraidBridgeInjector.BRIDGE_SCRIPT;
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class MraidBridgeInjectorTest {
+    @Test
+    public void inject_shouldInsertTheBridgeAfterTheHeadTag() throws Exception {
+        String result = MraidBridgeInjector.inject("<html><head><title>ad</title></head><body>ad</body></html>");
+
+        assertThat(result).isEqualTo("<html><head>" + BRIDGE_SCRIPT + "<title>ad</title></head><body>ad</body></html>");
+    }
+
+    @Test
+    public void inject_withHeadAttributesAndUpperCase_shouldInsertTheBridgeAfterTheHeadTag() throws Exception {
+        String result = MraidBridgeInjector.inject("<HTML lang=\"en\"><HEAD profile=\"x\"></HEAD><body></body></HTML>");
+
+        assertThat(result).isEqualTo("<HTML lang=\"en\"><HEAD profile=\"x\">" + BRIDGE_SCRIPT + "</HEAD><body></body></HTML>");
+    }
+
+    @Test
+    public void inject_shouldOnlyInjectTheBridgeOnce() throws Exception {
+        String result = MraidBridgeInjector.inject("<html><head></head><body><head></head></body></html>");
+
+        assertThat(result.indexOf(BRIDGE_SCRIPT)).isEqualTo(result.lastIndexOf(BRIDGE_SCRIPT));
+    }
+
+    @Test
+    public void inject_withoutAHeadTag_shouldAddOneAfterTheHtmlTag() throws Exception {
+        String result = MraidBridgeInjector.inject("<html><header>title</header><body></body></html>");
+
+        assertThat(result).isEqualTo("<html><head>" + BRIDGE_SCRIPT + "</head><header>title</header><body></body></html>");
+    }
+
+    @Test
+    public void inject_withoutAnHtmlTag_shouldAddTheBoilerplate() throws Exception {
+        String result = MraidBridgeInjector.inject("<div>ad</div>");
+
+        assertThat(result).isEqualTo("<html><head>" + BRIDGE_SCRIPT + "</head>"
+                + "<body style='margin:0;padding:0;'><div>ad</div></body></html>");
+    }
+
+    @Test
+    public void indexOfTag_shouldIgnoreTagsThatOnlyStartWithTheName() throws Exception {
+        assertThat(MraidBridgeInjector.indexOfTag("<header><head>", "head", 0)).isEqualTo(8);
+        assertThat(MraidBridgeInjector.indexOfTag("<headline>", "head", 0)).isEqualTo(-1);
+    }
+}
@@ -20,10 +20,11 @@ public class MraidCommandPlayVideoTest {
 
     private MraidCommandPlayVideo subject;
     private MraidView mraidView;
+    private Map<String, String> params;
 
     @Before
     public void setup() {
-        Map<String, String> params = new HashMap<String, String>();
+        params = new HashMap<String, String>();
 
         params.put(URI_KEY, EXPECTED_URI);
 
@@ -31,12 +32,12 @@ public class MraidCommandPlayVideoTest {
         stub(mraidView.getContext()).toReturn(new Activity());
         MraidDisplayController displayController = new MraidDisplayController(mraidView, null, null);
         stub(mraidView.getDisplayController()).toReturn(displayController);
-        subject = new MraidCommandPlayVideo(params, mraidView);
+        subject = new MraidCommandPlayVideo();
     }
 
     @Test
     public void execute_shouldPlayVideo() throws Exception {
-        subject.execute();
+        subject.execute(params, mraidView);
 
         assertVideoPlayerActivityStarted(EXPECTED_URI);
     }
@@ -1,39 +1,75 @@
 package com.mopub.mobileads;
 
+import com.mopub.mobileads.test.support.SdkTestRunner;
 import org.junit.Test;
+import org.junit.runner.RunWith;
 
 import java.util.Map;
 
-import static com.mopub.mobileads.MraidCommandRegistry.createCommand;
+import static com.mopub.mobileads.MraidCommandRegistry.getCommand;
+import static com.mopub.mobileads.MraidCommandRegistry.parseParams;
 import static org.fest.assertions.api.Assertions.assertThat;
-import static org.mockito.Mockito.mock;
 
+@RunWith(SdkTestRunner.class)
 public class MraidCommandRegistryTest {
     @Test
-    public void createCommand_shouldReturnTheRightKindOfCommand() throws Exception {
-        assertThat(createCommand("bogus", null, null)).isNull();
+    public void getCommand_shouldReturnTheRightKindOfCommand() throws Exception {
+        assertThat(getCommand("bogus")).isNull();
+        assertThat(getCommand(null)).isNull();
 
-        assertThat(createCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_CLOSE, null, null)).isInstanceOf(MraidCommandClose.class);
-        assertThat(createCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_CLOSE, null, null)).isNotSameAs(createCommand("close", null, null));
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_CLOSE)).isInstanceOf(MraidCommandClose.class);
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_EXPAND)).isInstanceOf(MraidCommandExpand.class);
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_USECUSTOMCLOSE)).isInstanceOf(MraidCommandUseCustomClose.class);
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_OPEN)).isInstanceOf(MraidCommandOpen.class);
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_RESIZE)).isInstanceOf(MraidCommandResize.class);
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_SET_RESIZE_PROPERTIES)).isInstanceOf(MraidCommandSetResizeProperties.class);
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_GET_RESIZE_PROPERTIES)).isInstanceOf(MraidCommandGetResizeProperties.class);
 
-        assertThat(createCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_EXPAND, null, null)).isInstanceOf(MraidCommandExpand.class);
-        assertThat(createCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_USECUSTOMCLOSE, null, null)).isInstanceOf(MraidCommandUseCustomClose.class);
-        assertThat(createCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_OPEN, null, null)).isInstanceOf(MraidCommandOpen.class);
-        assertThat(createCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_RESIZE, null, null)).isInstanceOf(MraidCommandResize.class);
-        assertThat(createCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_SET_RESIZE_PROPERTIES, null, null)).isInstanceOf(MraidCommandSetResizeProperties.class);
-        assertThat(createCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_GET_RESIZE_PROPERTIES, null, null)).isInstanceOf(MraidCommandGetResizeProperties.class);
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_PLAY_VIDEO)).isInstanceOf(MraidCommandPlayVideo.class);
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_STORE_PICTURE)).isInstanceOf(MraidCommandStorePicture.class);
 
-        assertThat(createCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_PLAY_VIDEO, null, null)).isInstanceOf(MraidCommandPlayVideo.class);
-        assertThat(createCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_STORE_PICTURE, null, null)).isInstanceOf(MraidCommandStorePicture.class);
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_GET_CURRENT_POSITION)).isInstanceOf(MraidCommandGetCurrentPosition.class);
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_GET_DEFAULT_POSITION)).isInstanceOf(MraidCommandGetDefaultPosition.class);
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_GET_MAX_SIZE)).isInstanceOf(MraidCommandGetMaxSize.class);
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_GET_SCREEN_SIZE)).isInstanceOf(MraidCommandGetScreenSize.class);
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_CREATE_CALENDAR_EVENT)).isInstanceOf(MraidCommandCreateCalendarEvent.class);
     }
 
     @Test
-    public void createCommand_shouldPassParameters() throws Exception {
-        MraidView expectedView = mock(MraidView.class);
-        Map<String, String> expectedMap = mock(Map.class);
+    public void getCommand_shouldReuseTheSameCommand() throws Exception {
+        assertThat(getCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_CLOSE)).isSameAs(getCommand("close"));
+    }
+
+    @Test
+    public void parseParams_withNoQuery_shouldReturnAnEmptyMap() throws Exception {
+        assertThat(parseParams(null)).isEmpty();
+        assertThat(parseParams("")).isEmpty();
+    }
 
-        MraidCommand command = createCommand(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_EXPAND, expectedMap, expectedView);
-        assertThat(command.mParams).isEqualTo(expectedMap);
-        assertThat(command.mView).isEqualTo(expectedView);
+    @Test
+    public void parseParams_shouldDecodeNamesAndValues() throws Exception {
+        Map<String, String> params = parseParams("w=320&h=50&url=http%3A%2F%2Fwww.mopub.com%2F%3Fa%3Db&title=two+words");
+
+        assertThat(params).hasSize(4);
+        assertThat(params.get("w")).isEqualTo("320");
+        assertThat(params.get("h")).isEqualTo("50");
+        assertThat(params.get("url")).isEqualTo("http://www.mopub.com/?a=b");
+        assertThat(params.get("title")).isEqualTo("two words");
+    }
+
+    @Test
+    public void parseParams_withEmptyOrValuelessPairs_shouldMatchUrlEncodedUtils() throws Exception {
+        Map<String, String> params = parseParams("shouldUseCustomClose=true&&empty=&flag");
+
+        assertThat(params).hasSize(3);
+        assertThat(params.get("shouldUseCustomClose")).isEqualTo("true");
+        assertThat(params.get("empty")).isEqualTo("");
+        assertThat(params.containsKey("flag")).isTrue();
+        assertThat(params.get("flag")).isNull();
+    }
+
+    @Test
+    public void parseParams_withMalformedEscapes_shouldKeepTheRawValue() throws Exception {
+        assertThat(parseParams("url=100%").get("url")).isEqualTo("100%");
     }
 }
@@ -22,29 +22,29 @@ public class MraidCommandResizeTest {
     @Before
     public void setup() {
         mraidView = TestMraidViewFactory.getSingletonMock();
-        subjectResize = new MraidCommandResize(new HashMap<String, String>(), mraidView);
-        subjectGetResizeProperties = new MraidCommandGetResizeProperties(new HashMap<String, String>(), mraidView);
-        subjectSetResizeProperties = new MraidCommandSetResizeProperties(new HashMap<String, String>(), mraidView);
+        subjectResize = new MraidCommandResize();
+        subjectGetResizeProperties = new MraidCommandGetResizeProperties();
+        subjectSetResizeProperties = new MraidCommandSetResizeProperties();
     }
 
     @Test
     public void mraidCommandResizeExecute_shouldFireErrorEvent() throws Exception {
         reset(mraidView);
-        subjectResize.execute();
+        subjectResize.execute(new HashMap<String, String>(), mraidView);
         verify(mraidView).fireErrorEvent(eq(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_RESIZE), any(String.class));
     }
 
     @Test
     public void mraidCommandSetResizePropertiesExecute_shouldFireErrorEvent() throws Exception {
         reset(mraidView);
-        subjectSetResizeProperties.execute();
+        subjectSetResizeProperties.execute(new HashMap<String, String>(), mraidView);
         verify(mraidView).fireErrorEvent(eq(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_SET_RESIZE_PROPERTIES), any(String.class));
     }
 
     @Test
     public void mraidCommandGetResizePropertiesExecute_shouldFireErrorEvent() throws Exception {
         reset(mraidView);
-        subjectGetResizeProperties.execute();
+        subjectGetResizeProperties.execute(new HashMap<String, String>(), mraidView);
         verify(mraidView).fireErrorEvent(eq(MraidCommandRegistry.MRAID_JAVASCRIPT_COMMAND_GET_RESIZE_PROPERTIES), any(String.class));
     }
 }
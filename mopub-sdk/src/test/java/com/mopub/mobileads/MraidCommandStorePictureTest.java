@@ -37,14 +37,14 @@ public class MraidCommandStorePictureTest {
         stub(mraidView.getDisplayController()).toReturn(mraidDisplayController);
 
         params = new HashMap<String, String>();
-        subject = new MraidCommandStorePicture(params, mraidView);
+        subject = new MraidCommandStorePicture();
     }
 
     @Test
     public void execute_withImageUri_shouldShowUserDownloadImageAlert() throws Exception {
         params.put(URI_KEY, EXPECTED_FILE);
 
-        subject.execute();
+        subject.execute(params, mraidView);
 
         verify(mraidDisplayController).showUserDownloadImageAlert(eq(EXPECTED_FILE));
     }
@@ -53,7 +53,7 @@ public class MraidCommandStorePictureTest {
     public void execute_withEmptyUriKey_shouldFireErrorEvent() throws Exception {
         params.put(URI_KEY, "");
 
-        subject.execute();
+        subject.execute(params, mraidView);
 
         verify(mraidView).fireErrorEvent(
                 eq(MRAID_JAVASCRIPT_COMMAND_STORE_PICTURE),
@@ -65,7 +65,7 @@ public class MraidCommandStorePictureTest {
      public void execute_withMissingUriKey_shouldFireErrorEvent() throws Exception {
         // don't add URI_KEY to params
 
-        subject.execute();
+        subject.execute(params, mraidView);
 
         verify(mraidView).fireErrorEvent(
                 eq(MRAID_JAVASCRIPT_COMMAND_STORE_PICTURE),
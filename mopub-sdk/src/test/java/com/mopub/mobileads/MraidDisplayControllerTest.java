@@ -13,6 +13,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
+import android.widget.ProgressBar;
 import android.widget.RelativeLayout;
 import com.mopub.mobileads.test.support.*;
 import org.apache.http.HttpResponse;
@@ -95,9 +96,29 @@ public class MraidDisplayControllerTest {
         assertThat(subject.getMraidView()).isSameAs(mraidView);
     }
 
+    @Test
+    public void initialization_shouldTrackViewability() throws Exception {
+        ViewabilityTracker viewabilityTracker = mock(ViewabilityTracker.class);
+        ViewabilityTracker.setInstance(viewabilityTracker);
+
+        subject = new TestMraidDisplayController(mraidView, null, null);
+
+        verify(viewabilityTracker).track(eq(mraidView), any(ViewabilityTracker.ViewabilityListener.class));
+    }
+
+    @Test
+    public void destroy_shouldStopTrackingViewability() throws Exception {
+        ViewabilityTracker viewabilityTracker = mock(ViewabilityTracker.class);
+        ViewabilityTracker.setInstance(viewabilityTracker);
+
+        subject.destroy();
+
+        verify(viewabilityTracker).untrack(mraidView);
+    }
+
     @Test
     public void initializeJavaScriptState_shouldSetMraidSupportsProperties() throws Exception {
-        verify(mraidView).fireChangeEventForProperty(any(MraidProperty.class));
+        verify(mraidView, never()).fireChangeEventForProperty(any(MraidProperty.class));
 
         subject.initializeJavaScriptState();
         verify(mraidView).fireChangeEventForProperty(isA(MraidSupportsProperty.class));
@@ -203,6 +224,34 @@ public class MraidDisplayControllerTest {
         verify(adContainerLayout, times(2)).addView(any(ImageView.class), any(FrameLayout.LayoutParams.class));
     }
 
+    @Test
+    public void expand_withUrl_shouldShowAProgressBarWhileTheCreativeDownloads() throws Exception {
+        Robolectric.getBackgroundScheduler().pause();
+
+        subject.expand("http://www.mopub.com/expanded", 320, 50, false, false);
+
+        ArgumentCaptor<View> viewCaptor = ArgumentCaptor.forClass(View.class);
+        verify(adContainerLayout, atLeastOnce()).addView(viewCaptor.capture(), any(FrameLayout.LayoutParams.class));
+        boolean hasProgressBar = false;
+        for (View view : viewCaptor.getAllValues()) {
+            hasProgressBar |= view instanceof ProgressBar;
+        }
+        assertThat(hasProgressBar).isTrue();
+        assertThat(Robolectric.httpRequestWasMade()).isFalse();
+    }
+
+    @Test
+    public void close_beforeTheTwoPartCreativeArrives_shouldCancelItsDownload() throws Exception {
+        Robolectric.getBackgroundScheduler().pause();
+        subject.expand("http://www.mopub.com/expanded", 320, 50, false, false);
+        stub(placeholderView.getParent()).toReturn(moPubView);
+
+        subject.close();
+        Robolectric.runBackgroundTasks();
+
+        assertThat(Robolectric.httpRequestWasMade()).isFalse();
+    }
+
     @Test
     public void close_shouldUnexpandView() throws Exception {
         subject.expand(null, 320, 50, false, false);
@@ -336,17 +385,13 @@ public class MraidDisplayControllerTest {
     }
 
     @Test
-    public void orientationBroadcastReceiver_whenUnregistered_shouldIgnoreOnReceive() throws Exception {
-        Intent intent = mock(Intent.class);
-        stub(intent.getAction()).toReturn("some bogus action which we hope never to see");
-        Context context = new Activity();
-        MraidDisplayController.OrientationBroadcastReceiver receiver = subject.new OrientationBroadcastReceiver();
-        receiver.register(context);
+    public void destroy_shouldStopListeningForConfigurationChanges() throws Exception {
+        SystemBroadcastHub systemBroadcastHub = SystemBroadcastHub.getInstance(new Activity());
+        assertThat(systemBroadcastHub.isRegistered(Intent.ACTION_CONFIGURATION_CHANGED)).isTrue();
 
-        receiver.unregister();
-        receiver.onReceive(context, intent);
+        subject.destroy();
 
-        verify(intent, never()).getAction();
+        assertThat(systemBroadcastHub.isRegistered(Intent.ACTION_CONFIGURATION_CHANGED)).isFalse();
     }
 
     @Test
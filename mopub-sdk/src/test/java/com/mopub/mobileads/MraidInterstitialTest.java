@@ -14,6 +14,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static com.mopub.mobileads.AdFetcher.HTML_RESPONSE_BODY_KEY;
+import static com.mopub.mobileads.InterstitialCreativeStore.CREATIVE_TOKEN_KEY;
 import static com.mopub.mobileads.BaseInterstitialActivity.ACTION_INTERSTITIAL_DISMISS;
 import static com.mopub.mobileads.BaseInterstitialActivity.ACTION_INTERSTITIAL_SHOW;
 import static com.mopub.mobileads.CustomEventInterstitial.CustomEventInterstitialListener;
@@ -31,7 +32,6 @@ public class MraidInterstitialTest {
     private Map<String,Object> localExtras;
     private Map<String,String> serverExtras;
     private Context context;
-    private static final String INPUT_HTML_DATA = "%3Chtml%3E%3C%2Fhtml%3E";
     private static final String EXPECTED_HTML_DATA = "<html></html>";
 
     @Before
@@ -41,7 +41,7 @@ public class MraidInterstitialTest {
         customEventInterstitialListener = mock(CustomEventInterstitialListener.class);
         localExtras = new HashMap<String, Object>();
         serverExtras = new HashMap<String, String>();
-        serverExtras.put(HTML_RESPONSE_BODY_KEY, INPUT_HTML_DATA);
+        serverExtras.put(HTML_RESPONSE_BODY_KEY, EXPECTED_HTML_DATA);
     }
 
     @Test
@@ -86,7 +86,7 @@ public class MraidInterstitialTest {
 
         assertThat(intent.getComponent().getPackageName()).isEqualTo("com.mopub.mobileads");
         assertThat(intent.getComponent().getClassName()).isEqualTo("com.mopub.mobileads.MraidActivity");
-        assertThat(intent.getExtras().get(HTML_RESPONSE_BODY_KEY)).isEqualTo(EXPECTED_HTML_DATA);
+        assertThat(InterstitialCreativeStore.get(intent.getStringExtra(CREATIVE_TOKEN_KEY))).isEqualTo(EXPECTED_HTML_DATA);
         assertThat(intent.getFlags() & Intent.FLAG_ACTIVITY_NEW_TASK).isNotEqualTo(0);
     }
 
@@ -106,4 +106,26 @@ public class MraidInterstitialTest {
 
         verify(customEventInterstitialListener, never()).onInterstitialDismissed();
     }
+
+    @Test
+    public void onInvalidate_shouldRemoveTheStoredCreative() throws Exception {
+        subject.loadInterstitial(context, customEventInterstitialListener, localExtras, serverExtras);
+        assertThat(InterstitialCreativeStore.size()).isEqualTo(1);
+
+        subject.onInvalidate();
+
+        assertThat(InterstitialCreativeStore.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void onInvalidate_afterShowInterstitial_shouldKeepTheCreativeForTheActivity() throws Exception {
+        subject.loadInterstitial(context, customEventInterstitialListener, localExtras, serverExtras);
+        subject.showInterstitial();
+        ShadowActivity shadowActivity = shadowOf_(context);
+        Intent intent = shadowActivity.getNextStartedActivityForResult().intent;
+
+        subject.onInvalidate();
+
+        assertThat(InterstitialCreativeStore.get(intent.getStringExtra(CREATIVE_TOKEN_KEY))).isEqualTo(EXPECTED_HTML_DATA);
+    }
 }
@@ -5,6 +5,18 @@ import com.mopub.mobileads.test.support.SdkTestRunner;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.shadows.ShadowWebView;
+
+import java.util.ArrayList;
+
+import static com.mopub.mobileads.MraidView.ViewState;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.robolectric.Robolectric.shadowOf;
 
 @RunWith(SdkTestRunner.class)
 public class MraidViewTest {
@@ -21,4 +33,113 @@ public class MraidViewTest {
         subject.loadHtmlData(null);
         // pass
     }
+
+    @Test
+    public void fireChangeEventForProperty_shouldCoalesceChangesUntilTheLooperRuns() throws Exception {
+        Robolectric.pauseMainLooper();
+        shadowOf(subject).loadUrl(null);
+
+        subject.fireChangeEventForProperty(MraidScreenSizeProperty.createWithSize(1, 1));
+        subject.fireChangeEventForProperty(MraidStateProperty.createWithViewState(ViewState.EXPANDED));
+        subject.fireChangeEventForProperty(MraidScreenSizeProperty.createWithSize(123, 456));
+        assertThat(shadowOf(subject).getLastLoadedUrl()).isNull();
+
+        Robolectric.unPauseMainLooper();
+
+        assertThat(shadowOf(subject).getLastLoadedUrl()).isEqualTo(
+                "javascript:window.mraidbridge.fireChangeEvent({screenSize: { width: 123, height: 456 }, state: 'expanded'});");
+    }
+
+    @Test
+    public void fireChangeEventForProperties_shouldSkipValuesTheBridgeAlreadyHas() throws Exception {
+        subject.fireChangeEventForProperty(MraidStateProperty.createWithViewState(ViewState.EXPANDED));
+        subject.flushChangeEvents();
+        shadowOf(subject).loadUrl(null);
+
+        ArrayList<MraidProperty> properties = new ArrayList<MraidProperty>();
+        properties.add(MraidStateProperty.createWithViewState(ViewState.EXPANDED));
+        properties.add(MraidScreenSizeProperty.createWithSize(320, 480));
+        subject.fireChangeEventForProperties(properties);
+        subject.flushChangeEvents();
+
+        assertThat(shadowOf(subject).getLastLoadedUrl())
+                .isEqualTo("javascript:window.mraidbridge.fireChangeEvent({screenSize: { width: 320, height: 480 }});");
+    }
+
+    @Test
+    public void flushChangeEvents_whenNothingChanged_shouldNotLoadAnything() throws Exception {
+        subject.fireChangeEventForProperty(MraidViewableProperty.createWithViewable(true));
+        subject.flushChangeEvents();
+        shadowOf(subject).loadUrl(null);
+
+        subject.fireChangeEventForProperty(MraidViewableProperty.createWithViewable(true));
+        subject.flushChangeEvents();
+
+        assertThat(shadowOf(subject).getLastLoadedUrl()).isNull();
+    }
+
+    @Test
+    public void fireReadyEvent_shouldFirstFlushQueuedChangeEvents() throws Exception {
+        Robolectric.pauseMainLooper();
+        subject.fireChangeEventForProperty(MraidStateProperty.createWithViewState(ViewState.EXPANDED));
+
+        subject.fireReadyEvent();
+
+        assertThat(shadowOf(subject).getLastLoadedUrl()).isEqualTo("javascript:window.mraidbridge.fireReadyEvent();");
+        Robolectric.unPauseMainLooper();
+        assertThat(shadowOf(subject).getLastLoadedUrl()).isEqualTo("javascript:window.mraidbridge.fireReadyEvent();");
+    }
+
+    @Test
+    public void loadUrl_shouldDownloadInTheBackgroundAndRenderWhenTheBodyArrives() throws Exception {
+        Robolectric.addPendingHttpResponse(200, "<html><body>two-part creative</body></html>");
+        Robolectric.getBackgroundScheduler().pause();
+
+        subject.loadUrl("http://www.mopub.com/expanded");
+
+        assertThat(subject.isLoadingUrl()).isTrue();
+        assertThat(Robolectric.httpRequestWasMade()).isFalse();
+        assertThat(shadowOf(subject).getLastLoadDataWithBaseURL()).isNull();
+
+        runBackgroundTasks();
+
+        assertThat(Robolectric.httpRequestWasMade("http://www.mopub.com/expanded")).isTrue();
+        assertThat(subject.isLoadingUrl()).isFalse();
+        ShadowWebView.LoadDataWithBaseURL loadData = shadowOf(subject).getLastLoadDataWithBaseURL();
+        assertThat(loadData.data).contains("two-part creative");
+        assertThat(loadData.data).contains(MraidBridgeInjector.BRIDGE_SCRIPT);
+    }
+
+    @Test
+    public void loadUrl_whenCancelledBeforeTheBodyArrives_shouldNotRender() throws Exception {
+        Robolectric.addPendingHttpResponse(200, "<html><body>two-part creative</body></html>");
+        MraidView.MraidListener mraidListener = mock(MraidView.MraidListener.class);
+        subject.setMraidListener(mraidListener);
+        Robolectric.getBackgroundScheduler().pause();
+        subject.loadUrl("http://www.mopub.com/expanded");
+
+        subject.cancelUrlLoad();
+        runBackgroundTasks();
+
+        assertThat(subject.isLoadingUrl()).isFalse();
+        assertThat(shadowOf(subject).getLastLoadDataWithBaseURL()).isNull();
+        verify(mraidListener, never()).onFailure(any(MraidView.class));
+    }
+
+    @Test
+    public void loadUrl_withMalformedUrl_shouldNotifyTheListenerOfFailure() throws Exception {
+        MraidView.MraidListener mraidListener = mock(MraidView.MraidListener.class);
+        subject.setMraidListener(mraidListener);
+
+        subject.loadUrl("not a url");
+        runBackgroundTasks();
+
+        verify(mraidListener).onFailure(subject);
+        assertThat(shadowOf(subject).getLastLoadDataWithBaseURL()).isNull();
+    }
+
+    private void runBackgroundTasks() {
+        Robolectric.runBackgroundTasks();
+        Robolectric.runUiThreadTasks();
+    }
 }
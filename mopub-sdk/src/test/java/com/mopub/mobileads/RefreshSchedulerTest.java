@@ -0,0 +1,205 @@
+package com.mopub.mobileads;
+
+import android.os.Handler;
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import com.mopub.mobileads.test.support.TestDateAndTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import java.util.Date;
+import java.util.Random;
+
+import static com.mopub.mobileads.RefreshScheduler.MAXIMUM_REFRESH_TIME_MILLISECONDS;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SdkTestRunner.class)
+public class RefreshSchedulerTest {
+    private static final long START_TIME = 1365553573L;
+
+    private RefreshScheduler subject;
+    private Runnable refreshRunnable;
+    private Runnable prefetchRunnable;
+    private TestDateAndTime dateAndTime;
+    private double randomValue;
+
+    @Before
+    public void setUp() throws Exception {
+        refreshRunnable = mock(Runnable.class);
+        prefetchRunnable = mock(Runnable.class);
+        subject = new RefreshScheduler(new Handler(), refreshRunnable, prefetchRunnable, 5000);
+
+        randomValue = 0.5;
+        subject.setRandom(new Random() {
+            @Override
+            public double nextDouble() {
+                return randomValue;
+            }
+        });
+
+        dateAndTime = TestDateAndTime.getInstance();
+        dateAndTime.setNow(new Date(START_TIME));
+        Robolectric.pauseMainLooper();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Robolectric.unPauseMainLooper();
+    }
+
+    @Test
+    public void schedule_shouldRefreshAfterTheRefreshTime() throws Exception {
+        subject.schedule(30000, false);
+
+        advanceBy(29999);
+        verify(refreshRunnable, never()).run();
+
+        advanceBy(1);
+        verify(refreshRunnable).run();
+        assertThat(subject.isScheduled()).isFalse();
+    }
+
+    @Test
+    public void schedule_withPrefetch_shouldPrefetchBeforeRefreshing() throws Exception {
+        subject.schedule(30000, true);
+
+        advanceBy(25000);
+        verify(prefetchRunnable).run();
+        verify(refreshRunnable, never()).run();
+
+        advanceBy(5000);
+        verify(refreshRunnable).run();
+    }
+
+    @Test
+    public void computeDelayMilliseconds_shouldBackOffExponentiallyAfterFailures() throws Exception {
+        assertThat(subject.computeDelayMilliseconds(10000)).isEqualTo(10000);
+
+        subject.onFailure();
+        assertThat(subject.computeDelayMilliseconds(10000)).isEqualTo(15000);
+
+        subject.onFailure();
+        assertThat(subject.computeDelayMilliseconds(10000)).isEqualTo(22500);
+
+        subject.onSuccess();
+        assertThat(subject.computeDelayMilliseconds(10000)).isEqualTo(10000);
+    }
+
+    @Test
+    public void computeDelayMilliseconds_shouldAddJitterToBackedOffDelays() throws Exception {
+        subject.onFailure();
+
+        randomValue = 0;
+        assertThat(subject.computeDelayMilliseconds(10000)).isEqualTo(12000);
+
+        randomValue = 0.999999;
+        assertThat(subject.computeDelayMilliseconds(10000)).isEqualTo(17999);
+    }
+
+    @Test
+    public void computeDelayMilliseconds_shouldNotExceedTheMaximumRefreshTime() throws Exception {
+        randomValue = 0.999999;
+        for (int i = 0; i < 20; i++) {
+            subject.onFailure();
+        }
+
+        assertThat(subject.computeDelayMilliseconds(60000)).isEqualTo(MAXIMUM_REFRESH_TIME_MILLISECONDS);
+    }
+
+    @Test
+    public void pause_shouldHoldTheRefreshUntilResumed() throws Exception {
+        subject.schedule(30000, false);
+        advanceBy(10000);
+
+        subject.pause();
+        advanceBy(60000);
+        verify(refreshRunnable, never()).run();
+        assertThat(subject.isScheduled()).isTrue();
+
+        subject.resume();
+        advanceBy(0);
+        verify(refreshRunnable).run();
+    }
+
+    @Test
+    public void resume_beforeTheDeadline_shouldOnlyWaitForTheRemainingTime() throws Exception {
+        subject.schedule(30000, false);
+        advanceBy(10000);
+        subject.pause();
+        advanceBy(5000);
+
+        subject.resume();
+
+        advanceBy(14999);
+        verify(refreshRunnable, never()).run();
+        advanceBy(1);
+        verify(refreshRunnable).run();
+    }
+
+    @Test
+    public void schedule_whilePaused_shouldWaitForResume() throws Exception {
+        subject.pause();
+        subject.schedule(30000, false);
+
+        advanceBy(30000);
+        verify(refreshRunnable, never()).run();
+
+        subject.resume();
+        advanceBy(0);
+        verify(refreshRunnable).run();
+    }
+
+    @Test
+    public void resume_afterTheRefreshHasRun_shouldNotRefreshAgain() throws Exception {
+        subject.schedule(30000, false);
+        advanceBy(30000);
+        verify(refreshRunnable).run();
+
+        subject.pause();
+        subject.resume();
+        advanceBy(30000);
+
+        verify(refreshRunnable).run();
+    }
+
+    @Test
+    public void cancel_shouldDropTheScheduledRefresh() throws Exception {
+        subject.schedule(30000, true);
+
+        subject.cancel();
+        advanceBy(30000);
+
+        verify(refreshRunnable, never()).run();
+        verify(prefetchRunnable, never()).run();
+        assertThat(subject.isScheduled()).isFalse();
+    }
+
+    @Test
+    public void expedite_shouldRefreshRightAwayWithoutPrefetching() throws Exception {
+        subject.schedule(30000, true);
+
+        subject.expedite();
+        advanceBy(0);
+
+        verify(refreshRunnable).run();
+        verify(prefetchRunnable, never()).run();
+    }
+
+    @Test
+    public void expedite_withNothingScheduled_shouldDoNothing() throws Exception {
+        subject.expedite();
+        advanceBy(0);
+
+        verify(refreshRunnable, never()).run();
+    }
+
+    private void advanceBy(long milliseconds) {
+        dateAndTime.setNow(new Date(dateAndTime.internalNow().getTime() + milliseconds));
+        Robolectric.getUiThreadScheduler().advanceBy(milliseconds);
+    }
+}
@@ -0,0 +1,97 @@
+package com.mopub.mobileads;
+
+import android.app.Activity;
+import android.content.Intent;
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import static com.mopub.mobileads.SystemBroadcastHub.BroadcastListener;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SdkTestRunner.class)
+public class SystemBroadcastHubTest {
+    private SystemBroadcastHub subject;
+    private BroadcastListener listener1;
+    private BroadcastListener listener2;
+
+    @Before
+    public void setUp() throws Exception {
+        subject = SystemBroadcastHub.getInstance(new Activity());
+        listener1 = mock(BroadcastListener.class);
+        listener2 = mock(BroadcastListener.class);
+    }
+
+    @Test
+    public void getInstance_shouldReturnTheSameHub() throws Exception {
+        assertThat(SystemBroadcastHub.getInstance(new Activity())).isSameAs(subject);
+    }
+
+    @Test
+    public void subscribe_shouldRegisterOneReceiverPerAction() throws Exception {
+        subject.subscribe(Intent.ACTION_SCREEN_OFF, listener1);
+        subject.subscribe(Intent.ACTION_SCREEN_OFF, listener2);
+
+        assertThat(subject.isRegistered(Intent.ACTION_SCREEN_OFF)).isTrue();
+        assertThat(Robolectric.getShadowApplication()
+                .getReceiversForIntent(new Intent(Intent.ACTION_SCREEN_OFF))).hasSize(1);
+    }
+
+    @Test
+    public void broadcast_shouldBeHandedToEveryListenerForThatAction() throws Exception {
+        subject.subscribe(Intent.ACTION_SCREEN_OFF, listener1);
+        subject.subscribe(Intent.ACTION_SCREEN_OFF, listener2);
+        subject.subscribe(Intent.ACTION_USER_PRESENT, listener2);
+
+        Intent intent = new Intent(Intent.ACTION_SCREEN_OFF);
+        Robolectric.application.sendBroadcast(intent);
+
+        verify(listener1).onBroadcast(intent);
+        verify(listener2).onBroadcast(any(Intent.class));
+    }
+
+    @Test
+    public void unsubscribe_shouldStopTheListenerFromBeingCalled() throws Exception {
+        subject.subscribe(Intent.ACTION_SCREEN_OFF, listener1);
+        subject.subscribe(Intent.ACTION_SCREEN_OFF, listener2);
+
+        subject.unsubscribe(Intent.ACTION_SCREEN_OFF, listener1);
+        Robolectric.application.sendBroadcast(new Intent(Intent.ACTION_SCREEN_OFF));
+
+        verify(listener1, never()).onBroadcast(any(Intent.class));
+        verify(listener2).onBroadcast(any(Intent.class));
+        assertThat(subject.isRegistered(Intent.ACTION_SCREEN_OFF)).isTrue();
+    }
+
+    @Test
+    public void unsubscribe_withTheLastListener_shouldUnregisterTheReceiver() throws Exception {
+        subject.subscribe(Intent.ACTION_SCREEN_OFF, listener1);
+
+        subject.unsubscribe(Intent.ACTION_SCREEN_OFF, listener1);
+
+        assertThat(subject.isRegistered(Intent.ACTION_SCREEN_OFF)).isFalse();
+        assertThat(Robolectric.getShadowApplication()
+                .getReceiversForIntent(new Intent(Intent.ACTION_SCREEN_OFF))).isEmpty();
+    }
+
+    @Test
+    public void listener_shouldBeAbleToUnsubscribeWhileBeingCalled() throws Exception {
+        BroadcastListener selfRemovingListener = new BroadcastListener() {
+            public void onBroadcast(Intent intent) {
+                subject.unsubscribe(Intent.ACTION_SCREEN_OFF, this);
+            }
+        };
+        subject.subscribe(Intent.ACTION_SCREEN_OFF, selfRemovingListener);
+        subject.subscribe(Intent.ACTION_SCREEN_OFF, listener1);
+
+        Robolectric.application.sendBroadcast(new Intent(Intent.ACTION_SCREEN_OFF));
+
+        verify(listener1).onBroadcast(any(Intent.class));
+    }
+}
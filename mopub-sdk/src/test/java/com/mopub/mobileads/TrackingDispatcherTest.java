@@ -0,0 +1,114 @@
+package com.mopub.mobileads;
+
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SdkTestRunner.class)
+public class TrackingDispatcherTest {
+    private TrackingDispatcher subject;
+    private CountDownLatch releaseLatch;
+    private CountDownLatch finishedLatch;
+
+    @Before
+    public void setUp() throws Exception {
+        subject = new TrackingDispatcher(1, 1);
+        releaseLatch = new CountDownLatch(1);
+    }
+
+    @Test
+    public void internalDispatch_shouldRunTheBeaconInTheBackground() throws Exception {
+        finishedLatch = new CountDownLatch(1);
+        Runnable beacon = mock(Runnable.class);
+
+        subject.internalDispatch(beacon);
+        subject.internalDispatch(new CountingBeacon());
+
+        assertThat(finishedLatch.await(1, TimeUnit.SECONDS)).isTrue();
+        verify(beacon).run();
+        assertThat(subject.getDispatchedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void internalDispatch_whenQueueIsFull_shouldRejectTheBeacon() throws Exception {
+        finishedLatch = new CountDownLatch(2);
+
+        assertThat(subject.internalDispatch(new BlockingBeacon())).isTrue();
+        assertThat(subject.internalDispatch(new CountingBeacon())).isTrue();
+        assertThat(subject.internalDispatch(new CountingBeacon())).isFalse();
+
+        assertThat(subject.getQueueDepth()).isEqualTo(1);
+        assertThat(subject.getDroppedCount()).isEqualTo(1);
+
+        releaseLatch.countDown();
+
+        assertThat(finishedLatch.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void internalDispatch_whenQueueIsFull_shouldNotCountTheRejectedBeaconAsDispatched() throws Exception {
+        finishedLatch = new CountDownLatch(2);
+
+        subject.internalDispatch(new BlockingBeacon());
+        subject.internalDispatch(new CountingBeacon());
+        subject.internalDispatch(new CountingBeacon());
+
+        assertThat(subject.getDispatchedCount()).isEqualTo(2);
+        assertThat(subject.getDroppedCount()).isEqualTo(1);
+
+        releaseLatch.countDown();
+        assertThat(finishedLatch.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void internalDispatch_whenBeaconThrows_shouldKeepRunningLaterBeacons() throws Exception {
+        finishedLatch = new CountDownLatch(1);
+
+        subject.internalDispatch(new Runnable() {
+            public void run() {
+                throw new RuntimeException("tracking failed");
+            }
+        });
+        subject.internalDispatch(new CountingBeacon());
+
+        assertThat(finishedLatch.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void internalDispatch_withNullBeacon_shouldDoNothing() throws Exception {
+        assertThat(subject.internalDispatch(null)).isFalse();
+
+        assertThat(subject.getDispatchedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void getAverageLatencyMilliseconds_withNoCompletedBeacons_shouldReturnZero() throws Exception {
+        assertThat(subject.getAverageLatencyMilliseconds()).isEqualTo(0);
+        assertThat(subject.getMaximumLatencyMilliseconds()).isEqualTo(0);
+    }
+
+    private class BlockingBeacon implements Runnable {
+        public void run() {
+            try {
+                releaseLatch.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // Ignore interrupts on this Thread.
+            }
+            finishedLatch.countDown();
+        }
+    }
+
+    private class CountingBeacon implements Runnable {
+        public void run() {
+            finishedLatch.countDown();
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.mopub.mobileads;
+
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import com.mopub.mobileads.test.support.TestDateAndTime;
+import org.apache.http.HttpRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.tester.org.apache.http.FakeHttpLayer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.mopub.mobileads.TrackingJournal.INITIAL_RETRY_DELAY_MILLISECONDS;
+import static com.mopub.mobileads.TrackingJournal.PendingBeacon;
+import static com.mopub.mobileads.TrackingJournal.TIME_TO_LIVE_MILLISECONDS;
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class TrackingJournalTest {
+    private static final long START_TIME = 1365553573L;
+
+    private TrackingJournal subject;
+    private File journalFile;
+
+    @Before
+    public void setUp() throws Exception {
+        subject = new TrackingJournal(Robolectric.application);
+        journalFile = subject.getJournalFile();
+        journalFile.delete();
+        setNow(START_TIME);
+    }
+
+    @Test
+    public void add_shouldPersistTheBeaconAcrossInstances() throws Exception {
+        subject.add("http://impression", "user agent");
+
+        TrackingJournal reloaded = new TrackingJournal(Robolectric.application);
+
+        assertThat(reloaded.getPendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void add_withNullUrl_shouldDoNothing() throws Exception {
+        subject.add(null, "user agent");
+
+        assertThat(subject.getPendingCount()).isEqualTo(0);
+        assertThat(journalFile.exists()).isFalse();
+    }
+
+    @Test
+    public void takeDueBatch_shouldWaitForTheInitialRetryDelay() throws Exception {
+        subject.add("http://impression", "user agent");
+
+        assertThat(subject.takeDueBatch()).isEmpty();
+
+        setNow(START_TIME + INITIAL_RETRY_DELAY_MILLISECONDS);
+        List<PendingBeacon> batch = subject.takeDueBatch();
+
+        assertThat(batch).hasSize(1);
+        assertThat(batch.get(0).mUrl).isEqualTo("http://impression");
+        assertThat(batch.get(0).mUserAgent).isEqualTo("user agent");
+    }
+
+    @Test
+    public void takeDueBatch_shouldReturnAtMostOneBatch() throws Exception {
+        for (int i = 0; i < TrackingJournal.BATCH_SIZE + 5; i++) {
+            subject.add("http://impression/" + i, "user agent");
+        }
+        setNow(START_TIME + INITIAL_RETRY_DELAY_MILLISECONDS);
+
+        assertThat(subject.takeDueBatch()).hasSize(TrackingJournal.BATCH_SIZE);
+    }
+
+    @Test
+    public void takeDueBatch_whenBeaconHasExpired_shouldDropIt() throws Exception {
+        subject.add("http://impression", "user agent");
+        setNow(START_TIME + TIME_TO_LIVE_MILLISECONDS + 1);
+
+        assertThat(subject.takeDueBatch()).isEmpty();
+        assertThat(subject.getPendingCount()).isEqualTo(0);
+        assertThat(new TrackingJournal(Robolectric.application).getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void markDelivered_shouldRemoveTheBeaconFromTheJournal() throws Exception {
+        subject.add("http://impression", "user agent");
+        setNow(START_TIME + INITIAL_RETRY_DELAY_MILLISECONDS);
+
+        subject.markDelivered(subject.takeDueBatch().get(0));
+
+        assertThat(subject.getPendingCount()).isEqualTo(0);
+        assertThat(new TrackingJournal(Robolectric.application).getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void markFailed_shouldScheduleTheNextAttemptAfterTheRetryDelay() throws Exception {
+        subject.add("http://impression", "user agent");
+        long now = START_TIME + INITIAL_RETRY_DELAY_MILLISECONDS;
+        setNow(now);
+        PendingBeacon beacon = subject.takeDueBatch().get(0);
+
+        subject.markFailed(beacon);
+        subject.markFailed(beacon);
+
+        setNow(now + TrackingJournal.getRetryDelay(2) - 1);
+        assertThat(subject.takeDueBatch()).isEmpty();
+
+        setNow(now + TrackingJournal.getRetryDelay(2));
+        assertThat(subject.takeDueBatch()).hasSize(1);
+
+        TrackingJournal reloaded = new TrackingJournal(Robolectric.application);
+        assertThat(reloaded.takeDueBatch().get(0).mAttempts).isEqualTo(2);
+    }
+
+    @Test
+    public void markFailed_afterMaximumAttempts_shouldGiveUp() throws Exception {
+        subject.add("http://impression", "user agent");
+        setNow(START_TIME + INITIAL_RETRY_DELAY_MILLISECONDS);
+        PendingBeacon beacon = subject.takeDueBatch().get(0);
+
+        for (int i = 0; i < TrackingJournal.MAXIMUM_ATTEMPTS - 1; i++) {
+            subject.markFailed(beacon);
+        }
+        assertThat(subject.getPendingCount()).isEqualTo(1);
+
+        subject.markFailed(beacon);
+
+        assertThat(subject.getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void getRetryDelay_shouldDoubleUpToTheMaximum() throws Exception {
+        assertThat(TrackingJournal.getRetryDelay(1)).isEqualTo(INITIAL_RETRY_DELAY_MILLISECONDS);
+        assertThat(TrackingJournal.getRetryDelay(2)).isEqualTo(2 * INITIAL_RETRY_DELAY_MILLISECONDS);
+        assertThat(TrackingJournal.getRetryDelay(3)).isEqualTo(4 * INITIAL_RETRY_DELAY_MILLISECONDS);
+        assertThat(TrackingJournal.getRetryDelay(30)).isEqualTo(TrackingJournal.MAXIMUM_RETRY_DELAY_MILLISECONDS);
+    }
+
+    @Test
+    public void load_shouldSkipATornRecord() throws Exception {
+        subject.add("http://impression", "user agent");
+        FileWriter writer = new FileWriter(journalFile, true);
+        writer.write("R\t0\t3\t12");
+        writer.close();
+
+        TrackingJournal reloaded = new TrackingJournal(Robolectric.application);
+        assertThat(reloaded.getPendingCount()).isEqualTo(1);
+
+        writer = new FileWriter(journalFile, true);
+        writer.write("x\nA\t1\tnot a number\tuser agent\thttp://click\n");
+        writer.close();
+
+        reloaded = new TrackingJournal(Robolectric.application);
+        assertThat(reloaded.getPendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void compaction_shouldDropRecordsOfDeliveredBeacons() throws Exception {
+        int beaconCount = TrackingJournal.COMPACTION_THRESHOLD;
+        for (int i = 0; i < beaconCount; i++) {
+            subject.add("http://impression/" + i, "user agent");
+        }
+        setNow(START_TIME + INITIAL_RETRY_DELAY_MILLISECONDS);
+
+        List<PendingBeacon> batch;
+        while (!(batch = subject.takeDueBatch()).isEmpty()) {
+            for (PendingBeacon beacon : batch) {
+                subject.markDelivered(beacon);
+            }
+        }
+        subject.add("http://click", "user agent");
+
+        assertThat(countLines(journalFile)).isLessThan(beaconCount);
+        assertThat(new TrackingJournal(Robolectric.application).getPendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void compaction_withManyBeaconsQueuedOffline_shouldRewriteTheJournalOnce() throws Exception {
+        int beaconCount = 2 * TrackingJournal.COMPACTION_THRESHOLD;
+        for (int i = 0; i < beaconCount; i++) {
+            subject.add("http://impression/" + i, "user agent");
+        }
+
+        // The first retries supersede nothing; the second ones make every first retry stale.
+        setNow(START_TIME + INITIAL_RETRY_DELAY_MILLISECONDS);
+        failDueBeacons();
+        setNow(START_TIME + 4 * INITIAL_RETRY_DELAY_MILLISECONDS);
+        failDueBeacons();
+        subject.add("http://click", "user agent");
+
+        assertThat(subject.getCompactionCount()).isEqualTo(1);
+        assertThat(countLines(journalFile)).isEqualTo(2 * beaconCount + 1);
+
+        TrackingJournal reloaded = new TrackingJournal(Robolectric.application);
+        reloaded.add("http://click", "user agent");
+
+        assertThat(reloaded.getPendingCount()).isEqualTo(beaconCount + 2);
+        assertThat(reloaded.getCompactionCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void flushDueBeacons_shouldDeliverDueBeaconsWithTheirUserAgent() throws Exception {
+        subject.add("http://impression", "user agent");
+        setNow(START_TIME + INITIAL_RETRY_DELAY_MILLISECONDS);
+        FakeHttpLayer fakeHttpLayer = Robolectric.getFakeHttpLayer();
+        fakeHttpLayer.addPendingHttpResponse(200, "");
+
+        subject.flushDueBeacons();
+
+        HttpRequest request = fakeHttpLayer.getLastSentHttpRequestInfo().getHttpRequest();
+        assertThat(request.getRequestLine().getUri()).isEqualTo("http://impression");
+        assertThat(request.getFirstHeader("User-Agent").getValue()).isEqualTo("user agent");
+        assertThat(subject.getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void flushDueBeacons_whenServerErrors_shouldKeepTheBeaconForLater() throws Exception {
+        subject.add("http://impression", "user agent");
+        subject.add("http://click", "user agent");
+        setNow(START_TIME + INITIAL_RETRY_DELAY_MILLISECONDS);
+        Robolectric.addPendingHttpResponse(500, "");
+
+        subject.flushDueBeacons();
+
+        assertThat(Robolectric.getFakeHttpLayer().getSentHttpRequestInfos()).hasSize(1);
+        assertThat(subject.getPendingCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void flush_whenTrackingQueueIsFull_shouldFlushOnTheNextCall() throws Exception {
+        TrackingDispatcher dispatcher = new TrackingDispatcher(1, 1);
+        TrackingDispatcher.setInstance(dispatcher);
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+        dispatcher.internalDispatch(new BlockingBeacon(releaseLatch));
+        dispatcher.internalDispatch(new BlockingBeacon(releaseLatch));
+
+        subject.flush();
+
+        assertThat(dispatcher.getDroppedCount()).isEqualTo(1);
+
+        releaseLatch.countDown();
+        while (dispatcher.getQueueDepth() > 0) {
+            Thread.sleep(10);
+        }
+        subject.add("http://impression", "user agent");
+        setNow(START_TIME + INITIAL_RETRY_DELAY_MILLISECONDS);
+        Robolectric.addPendingHttpResponse(200, "");
+
+        subject.flush();
+
+        assertThat(waitForPendingCount(0)).isTrue();
+    }
+
+    @Test
+    public void addInBackground_shouldPersistTheBeacon() throws Exception {
+        subject.addInBackground("http://impression", "user agent");
+
+        assertThat(waitForPendingCount(1)).isTrue();
+        assertThat(new TrackingJournal(Robolectric.application).getPendingCount()).isEqualTo(1);
+    }
+
+    private boolean waitForPendingCount(int expectedCount) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            if (subject.getPendingCount() == expectedCount) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    private void failDueBeacons() {
+        List<PendingBeacon> batch;
+        while (!(batch = subject.takeDueBatch()).isEmpty()) {
+            for (PendingBeacon beacon : batch) {
+                subject.markFailed(beacon);
+            }
+        }
+    }
+
+    private void setNow(long millis) {
+        TestDateAndTime.getInstance().setNow(new Date(millis));
+    }
+
+    private static int countLines(File file) throws Exception {
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        int count = 0;
+        while (reader.readLine() != null) {
+            count++;
+        }
+        reader.close();
+        return count;
+    }
+
+    private static class BlockingBeacon implements Runnable {
+        private final CountDownLatch mReleaseLatch;
+
+        BlockingBeacon(CountDownLatch releaseLatch) {
+            mReleaseLatch = releaseLatch;
+        }
+
+        public void run() {
+            try {
+                mReleaseLatch.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // Ignore interrupts on this Thread.
+            }
+        }
+    }
+}
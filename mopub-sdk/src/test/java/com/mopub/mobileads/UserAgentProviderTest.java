@@ -0,0 +1,88 @@
+package com.mopub.mobileads;
+
+import android.app.Activity;
+import android.content.SharedPreferences;
+import android.webkit.WebView;
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static android.content.Context.MODE_PRIVATE;
+import static com.mopub.mobileads.UserAgentProvider.PREFERENCE_NAME;
+import static com.mopub.mobileads.UserAgentProvider.USER_AGENT_KEY;
+import static com.mopub.mobileads.UserAgentProvider.USER_AGENT_VERSION_KEY;
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class UserAgentProviderTest {
+    private Activity context;
+    private SharedPreferences preferences;
+    private String webViewUserAgent;
+
+    @Before
+    public void setUp() throws Exception {
+        context = new Activity();
+        preferences = context.getSharedPreferences(PREFERENCE_NAME, MODE_PRIVATE);
+        webViewUserAgent = new WebView(context).getSettings().getUserAgentString();
+    }
+
+    @Test
+    public void getUserAgent_shouldReturnTheWebViewUserAgent() throws Exception {
+        assertThat(webViewUserAgent).isNotNull();
+        assertThat(UserAgentProvider.getUserAgent(context)).isEqualTo(webViewUserAgent);
+    }
+
+    @Test
+    public void getUserAgent_shouldPersistTheUserAgentWithTheCurrentVersion() throws Exception {
+        UserAgentProvider.getUserAgent(context);
+
+        assertThat(preferences.getString(USER_AGENT_KEY, null)).isEqualTo(webViewUserAgent);
+        assertThat(preferences.getString(USER_AGENT_VERSION_KEY, null)).isEqualTo(UserAgentProvider.getVersionKey(context));
+    }
+
+    @Test
+    public void getUserAgent_shouldKeepTheUserAgentInMemory() throws Exception {
+        UserAgentProvider.getUserAgent(context);
+        preferences.edit().putString(USER_AGENT_KEY, "changed").commit();
+
+        assertThat(UserAgentProvider.getUserAgent(context)).isEqualTo(webViewUserAgent);
+    }
+
+    @Test
+    public void getUserAgent_whenAUserAgentWasStoredForThisVersion_shouldUseIt() throws Exception {
+        preferences.edit()
+                .putString(USER_AGENT_KEY, "stored user agent")
+                .putString(USER_AGENT_VERSION_KEY, UserAgentProvider.getVersionKey(context))
+                .commit();
+
+        assertThat(UserAgentProvider.getUserAgent(context)).isEqualTo("stored user agent");
+    }
+
+    @Test
+    public void getUserAgent_whenAUserAgentWasStoredForAnotherVersion_shouldReadItAgain() throws Exception {
+        preferences.edit()
+                .putString(USER_AGENT_KEY, "stored user agent")
+                .putString(USER_AGENT_VERSION_KEY, "another version")
+                .commit();
+
+        assertThat(UserAgentProvider.getUserAgent(context)).isEqualTo(webViewUserAgent);
+        assertThat(preferences.getString(USER_AGENT_VERSION_KEY, null)).isEqualTo(UserAgentProvider.getVersionKey(context));
+    }
+
+    @Test
+    public void getUserAgent_offTheMainThreadBeforeTheUserAgentIsKnown_shouldNotCacheTheDefault() throws Exception {
+        final String[] userAgent = new String[1];
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                userAgent[0] = UserAgentProvider.getUserAgent(context);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertThat(userAgent[0]).isNotNull();
+        assertThat(preferences.getString(USER_AGENT_KEY, null)).isNull();
+        assertThat(UserAgentProvider.getUserAgent(context)).isEqualTo(webViewUserAgent);
+    }
+}
@@ -0,0 +1,231 @@
+package com.mopub.mobileads;
+
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.IBinder;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import com.mopub.mobileads.test.support.TestDateAndTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.Robolectric;
+
+import java.lang.reflect.Method;
+import java.util.Date;
+
+import static com.mopub.mobileads.ViewabilityTracker.CHECK_INTERVAL_MILLISECONDS;
+import static com.mopub.mobileads.ViewabilityTracker.ViewabilityListener;
+import static com.mopub.mobileads.util.VersionCode.HONEYCOMB;
+import static com.mopub.mobileads.util.VersionCode.JELLY_BEAN;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.stub;
+import static org.mockito.Mockito.verify;
+import static org.robolectric.Robolectric.shadowOf;
+
+@RunWith(SdkTestRunner.class)
+public class ViewabilityTrackerTest {
+    private ViewabilityTracker subject;
+    private View view;
+    private ViewabilityListener listener;
+    private Rect visibleRect;
+    private int sdkInt;
+
+    @Before
+    public void setUp() throws Exception {
+        subject = new ViewabilityTracker();
+        listener = mock(ViewabilityListener.class);
+        view = mock(View.class);
+        stub(view.isShown()).toReturn(true);
+        stub(view.getWidth()).toReturn(100);
+        stub(view.getHeight()).toReturn(50);
+        visibleRect = new Rect(0, 0, 100, 50);
+        stub(view.getGlobalVisibleRect(any(Rect.class))).toAnswer(new Answer<Boolean>() {
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                ((Rect) invocation.getArguments()[0]).set(visibleRect);
+                return !visibleRect.isEmpty();
+            }
+        });
+
+        sdkInt = Build.VERSION.SDK_INT;
+        Robolectric.pauseMainLooper();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Robolectric.unPauseMainLooper();
+        setSdkInt(sdkInt);
+    }
+
+    @Test
+    public void track_shouldScheduleACheckAndNotifyTheListenerWhenTheViewIsOnScreen() throws Exception {
+        subject.track(view, listener);
+        verify(listener, never()).onViewabilityChanged(anyBoolean(), anyInt());
+
+        Robolectric.unPauseMainLooper();
+
+        verify(listener).onViewabilityChanged(true, 100);
+        assertThat(subject.isViewable(view)).isTrue();
+    }
+
+    @Test
+    public void checkViewability_shouldReportThePercentOfTheViewThatIsVisible() throws Exception {
+        visibleRect.set(0, 0, 100, 10);
+        subject.track(view, listener);
+
+        subject.checkViewability();
+
+        verify(listener).onViewabilityChanged(true, 20);
+        assertThat(subject.getVisiblePercent(view)).isEqualTo(20);
+    }
+
+    @Test
+    public void checkViewability_shouldOnlyNotifyTheListenerWhenViewabilityChanges() throws Exception {
+        subject.track(view, listener);
+        subject.checkViewability();
+        reset(listener);
+
+        visibleRect.set(0, 0, 50, 50);
+        subject.checkViewability();
+        verify(listener, never()).onViewabilityChanged(anyBoolean(), anyInt());
+
+        stub(view.isShown()).toReturn(false);
+        subject.checkViewability();
+        verify(listener).onViewabilityChanged(false, 0);
+        assertThat(subject.getVisiblePercent(view)).isEqualTo(0);
+    }
+
+    @Test
+    public void checkViewability_whenTheViewIsScrolledOffScreen_shouldNotBeViewable() throws Exception {
+        subject.track(view, listener);
+        subject.checkViewability();
+
+        visibleRect.setEmpty();
+        subject.checkViewability();
+
+        verify(listener).onViewabilityChanged(false, 0);
+        assertThat(subject.isViewable(view)).isFalse();
+    }
+
+    @Test
+    public void scheduleCheck_shouldThrottleChecks() throws Exception {
+        subject.track(view, listener);
+        subject.scheduleCheck();
+        subject.scheduleCheck();
+
+        assertThat(Robolectric.getUiThreadScheduler().enqueuedTaskCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void getTimeInViewMilliseconds_shouldAccumulateTimeSpentOnScreen() throws Exception {
+        TestDateAndTime dateAndTime = TestDateAndTime.getInstance();
+        subject.track(view, listener);
+
+        dateAndTime.setNow(new Date(1000));
+        subject.checkViewability();
+        dateAndTime.setNow(new Date(3000));
+        assertThat(subject.getTimeInViewMilliseconds(view)).isEqualTo(2000);
+
+        stub(view.isShown()).toReturn(false);
+        subject.checkViewability();
+        dateAndTime.setNow(new Date(10000));
+        assertThat(subject.getTimeInViewMilliseconds(view)).isEqualTo(2000);
+
+        stub(view.isShown()).toReturn(true);
+        subject.checkViewability();
+        dateAndTime.setNow(new Date(10500));
+        assertThat(subject.getTimeInViewMilliseconds(view)).isEqualTo(2500);
+    }
+
+    @Test
+    public void untrack_shouldStopNotifyingTheListener() throws Exception {
+        subject.track(view, listener);
+        subject.untrack(view);
+
+        subject.checkViewability();
+
+        verify(listener, never()).onViewabilityChanged(anyBoolean(), anyInt());
+        assertThat(subject.isViewable(view)).isFalse();
+        assertThat(subject.getTimeInViewMilliseconds(view)).isEqualTo(0);
+    }
+
+    @Test
+    public void track_whenTheViewIsNotAttached_shouldObserveItOnlyOnceItIsAttached() throws Exception {
+        setSdkInt(JELLY_BEAN.getApiLevel());
+        ViewTreeObserver observer = stubViewTreeObserver();
+        ArgumentCaptor<View.OnAttachStateChangeListener> captor = ArgumentCaptor.forClass(View.OnAttachStateChangeListener.class);
+
+        subject.track(view, listener);
+        Robolectric.unPauseMainLooper();
+
+        assertThat(shadowOf(observer).getOnGlobalLayoutListeners()).isEmpty();
+
+        verify(view).addOnAttachStateChangeListener(captor.capture());
+        stub(view.getWindowToken()).toReturn(mock(IBinder.class));
+        captor.getValue().onViewAttachedToWindow(view);
+        subject.checkViewability();
+
+        assertThat(shadowOf(observer).getOnGlobalLayoutListeners()).hasSize(1);
+    }
+
+    @Test
+    public void untrack_shouldStopObservingTheViewTreeObserver() throws Exception {
+        setSdkInt(JELLY_BEAN.getApiLevel());
+        ViewTreeObserver observer = stubViewTreeObserver();
+        stub(view.getWindowToken()).toReturn(mock(IBinder.class));
+        subject.track(view, listener);
+        Robolectric.unPauseMainLooper();
+
+        subject.untrack(view);
+        Robolectric.pauseMainLooper();
+        dispatchOnPreDraw(observer);
+
+        assertThat(Robolectric.getUiThreadScheduler().enqueuedTaskCount()).isEqualTo(0);
+        verify(view).removeOnAttachStateChangeListener(any(View.OnAttachStateChangeListener.class));
+    }
+
+    @Test
+    public void checkViewability_belowHoneycombMr1_shouldKeepCheckingUntilTheViewIsAttached() throws Exception {
+        setSdkInt(HONEYCOMB.getApiLevel());
+        ViewTreeObserver observer = stubViewTreeObserver();
+        subject.track(view, listener);
+
+        Robolectric.getUiThreadScheduler().advanceBy(CHECK_INTERVAL_MILLISECONDS);
+        assertThat(Robolectric.getUiThreadScheduler().enqueuedTaskCount()).isEqualTo(1);
+        assertThat(shadowOf(observer).getOnGlobalLayoutListeners()).isEmpty();
+
+        stub(view.getWindowToken()).toReturn(mock(IBinder.class));
+        Robolectric.getUiThreadScheduler().advanceBy(CHECK_INTERVAL_MILLISECONDS);
+
+        assertThat(Robolectric.getUiThreadScheduler().enqueuedTaskCount()).isEqualTo(0);
+        assertThat(shadowOf(observer).getOnGlobalLayoutListeners()).hasSize(1);
+    }
+
+    private ViewTreeObserver stubViewTreeObserver() {
+        ViewTreeObserver observer = Robolectric.newInstanceOf(ViewTreeObserver.class);
+        stub(view.getViewTreeObserver()).toReturn(observer);
+        return observer;
+    }
+
+    private static void setSdkInt(int sdkInt) {
+        Robolectric.Reflection.setFinalStaticField(Build.VERSION.class, "SDK_INT", sdkInt);
+    }
+
+    private static void dispatchOnPreDraw(ViewTreeObserver observer) throws Exception {
+        // Hidden from the SDK, but it is what the framework calls before each frame.
+        Method dispatchOnPreDraw = ViewTreeObserver.class.getDeclaredMethod("dispatchOnPreDraw");
+        dispatchOnPreDraw.setAccessible(true);
+        dispatchOnPreDraw.invoke(observer);
+    }
+}
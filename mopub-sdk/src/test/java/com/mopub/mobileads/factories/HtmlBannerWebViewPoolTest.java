@@ -54,4 +54,96 @@ public class HtmlBannerWebViewPoolTest {
 
         assertThat(htmlBannerWebViews.size()).isEqualTo(expectedNewHtmlWebViewCount);
     }
+
+    @Test
+    public void constructor_shouldNotCreateAnyHtmlWebViews() throws Exception {
+        assertThat(subject.getIdleCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void warmUp_shouldFillThePoolUpToItsTargetSize() throws Exception {
+        assertThat(subject.getTargetSize()).isEqualTo(BaseHtmlWebViewPool.MINIMUM_TARGET_SIZE);
+
+        assertThat(subject.warmUp()).isFalse();
+        assertThat(subject.getIdleCount()).isEqualTo(1);
+
+        assertThat(subject.warmUp()).isFalse();
+        assertThat(subject.getIdleCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void getNextHtmlWebView_whenThePoolIsWarm_shouldReturnThePooledHtmlWebView() throws Exception {
+        subject.warmUp();
+
+        subject.getNextHtmlWebView(customEventBannerListener, isScrollable, redirectUrl, clickthroughUrl);
+
+        assertThat(subject.getIdleCount()).isEqualTo(0);
+        assertThat(subject.getTargetSize()).isEqualTo(BaseHtmlWebViewPool.MINIMUM_TARGET_SIZE);
+    }
+
+    @Test
+    public void getNextHtmlWebView_whenThePoolIsEmpty_shouldGrowTheTargetSizeUpToTheMaximum() throws Exception {
+        for (int i = 0; i < BaseHtmlWebViewPool.POOL_SIZE + 1; i++) {
+            subject.getNextHtmlWebView(customEventBannerListener, isScrollable, redirectUrl, clickthroughUrl);
+        }
+
+        assertThat(subject.getTargetSize()).isEqualTo(subject.getMaximumSize());
+        assertThat(subject.getMaximumSize()).isGreaterThanOrEqualTo(BaseHtmlWebViewPool.MINIMUM_TARGET_SIZE);
+        assertThat(subject.getMaximumSize()).isLessThanOrEqualTo(BaseHtmlWebViewPool.POOL_SIZE);
+    }
+
+    @Test
+    public void trimMemory_shouldReleaseIdleHtmlWebViewsAndResetTheTargetSize() throws Exception {
+        subject.getNextHtmlWebView(customEventBannerListener, isScrollable, redirectUrl, clickthroughUrl);
+        while (subject.warmUp());
+
+        subject.trimMemory();
+
+        assertThat(subject.getIdleCount()).isEqualTo(0);
+        assertThat(subject.getTargetSize()).isEqualTo(BaseHtmlWebViewPool.MINIMUM_TARGET_SIZE);
+    }
+
+    @Test
+    public void cleanup_shouldStopWarmingUp() throws Exception {
+        subject.cleanup();
+
+        assertThat(subject.warmUp()).isFalse();
+        assertThat(subject.getIdleCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void recycle_shouldResetTheHtmlWebViewAndReuseIt() throws Exception {
+        HtmlBannerWebView htmlBannerWebView = subject.getNextHtmlWebView(customEventBannerListener, isScrollable, redirectUrl, clickthroughUrl);
+
+        subject.recycle(htmlBannerWebView);
+
+        assertThat(subject.getIdleCount()).isEqualTo(1);
+        assertThat(shadowOf(htmlBannerWebView).getLastLoadedUrl()).isEqualTo("about:blank");
+        assertThat(subject.getNextHtmlWebView(customEventBannerListener, true, redirectUrl, clickthroughUrl)).isSameAs(htmlBannerWebView);
+        assertThat(shadowOf(htmlBannerWebView).getOnTouchListener()).isNull();
+    }
+
+    @Test
+    public void recycle_whenThePoolIsFull_shouldDestroyTheHtmlWebView() throws Exception {
+        for (int i = 0; i < subject.getMaximumSize(); i++) {
+            subject.recycle(new HtmlBannerWebView(context));
+        }
+        HtmlBannerWebView htmlBannerWebView = new HtmlBannerWebView(context);
+
+        subject.recycle(htmlBannerWebView);
+
+        assertThat(subject.getIdleCount()).isEqualTo(subject.getMaximumSize());
+        assertThat(shadowOf(htmlBannerWebView).wasDestroyCalled()).isTrue();
+    }
+
+    @Test
+    public void recycle_afterCleanup_shouldDestroyTheHtmlWebView() throws Exception {
+        HtmlBannerWebView htmlBannerWebView = subject.getNextHtmlWebView(customEventBannerListener, isScrollable, redirectUrl, clickthroughUrl);
+        subject.cleanup();
+
+        subject.recycle(htmlBannerWebView);
+
+        assertThat(subject.getIdleCount()).isEqualTo(0);
+        assertThat(shadowOf(htmlBannerWebView).wasDestroyCalled()).isTrue();
+    }
 }
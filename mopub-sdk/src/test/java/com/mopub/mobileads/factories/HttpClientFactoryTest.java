@@ -0,0 +1,55 @@
+package com.mopub.mobileads.factories;
+
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.cookie.BasicClientCookie;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.HttpConnectionParams;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class HttpClientFactoryTest {
+    private HttpClientFactory subject;
+
+    @Before
+    public void setUp() throws Exception {
+        subject = new HttpClientFactory();
+    }
+
+    @Test
+    public void internalCreate_shouldReturnTheSameSharedClient() throws Exception {
+        DefaultHttpClient firstClient = subject.internalCreate();
+        DefaultHttpClient secondClient = subject.internalCreate();
+
+        assertThat(firstClient).isNotNull();
+        assertThat(secondClient).isSameAs(firstClient);
+    }
+
+    @Test
+    public void internalCreate_shouldUseAThreadSafePooledConnectionManager() throws Exception {
+        DefaultHttpClient httpClient = subject.internalCreate();
+
+        assertThat(httpClient.getConnectionManager()).isInstanceOf(ThreadSafeClientConnManager.class);
+    }
+
+    @Test
+    public void internalCreate_shouldSetSocketBufferSize() throws Exception {
+        DefaultHttpClient httpClient = subject.internalCreate();
+
+        assertThat(HttpConnectionParams.getSocketBufferSize(httpClient.getParams()))
+                .isEqualTo(HttpClientFactory.SOCKET_SIZE);
+    }
+
+    @Test
+    public void internalCreate_shouldIgnoreCookies() throws Exception {
+        DefaultHttpClient httpClient = subject.internalCreate();
+
+        httpClient.getCookieStore().addCookie(new BasicClientCookie("tracker", "value"));
+
+        assertThat(httpClient.getCookieStore().getCookies()).isEmpty();
+    }
+}
@@ -1,6 +1,18 @@
 package com.mopub.mobileads.test.support;
 
+import com.mopub.mobileads.AdFetchExecutor;
+import com.mopub.mobileads.AdPrefetchCache;
+import com.mopub.mobileads.AdFetchTask;
+import com.mopub.mobileads.AdUrlGenerator;
+import com.mopub.mobileads.ConnectivityMonitor;
+import com.mopub.mobileads.SystemBroadcastHub;
+import com.mopub.mobileads.InterstitialCreativeStore;
+import com.mopub.mobileads.TrackingDispatcher;
+import com.mopub.mobileads.TrackingJournal;
+import com.mopub.mobileads.UserAgentProvider;
+import com.mopub.mobileads.ViewabilityTracker;
 import com.mopub.mobileads.factories.*;
+import com.mopub.mobileads.util.AsyncTasks;
 import com.mopub.mobileads.util.DateAndTime;
 import org.junit.runners.model.InitializationError;
 import org.mockito.MockitoAnnotations;
@@ -34,6 +46,19 @@ public class SdkTestRunner extends RobolectricTestRunner {
             HtmlBannerWebViewFactory.setInstance(new TestHtmlBannerWebViewFactory());
             HtmlInterstitialWebViewFactory.setInstance(new TestHtmlInterstitialWebViewFactory());
             AdViewControllerFactory.setInstance(new TestAdViewControllerFactory());
+            AdFetchTaskFactory.setInstance(new AdFetchTaskFactory());
+            TrackingDispatcher.setInstance(new TrackingDispatcher());
+            TrackingJournal.setInstance(null);
+            ConnectivityMonitor.setInstance(null);
+            SystemBroadcastHub.setInstance(null);
+            AdFetchTask.resetAbortMetrics();
+            ViewabilityTracker.setInstance(null);
+            UserAgentProvider.clearCache();
+            AdUrlGenerator.clearDeviceInfo();
+            AdPrefetchCache.clear();
+            InterstitialCreativeStore.clear();
+            AsyncTasks.reset();
+            AdFetchExecutor.setExecutor(null);
 
             MockitoAnnotations.initMocks(test);
         }
@@ -4,6 +4,8 @@ import com.mopub.mobileads.CustomEventBannerAdapter;
 import com.mopub.mobileads.MoPubView;
 import com.mopub.mobileads.factories.CustomEventBannerAdapterFactory;
 
+import java.util.Map;
+
 import static org.mockito.Mockito.mock;
 
 public class TestCustomEventBannerAdapterFactory extends CustomEventBannerAdapterFactory {
@@ -11,6 +13,7 @@ public class TestCustomEventBannerAdapterFactory extends CustomEventBannerAdapte
     private MoPubView moPubView;
     private String className;
     private String classData;
+    private Map<String, String> paramsMap;
 
     public static CustomEventBannerAdapter getSingletonMock() {
         return getTestFactory().mockCustomEventBannerAdapter;
@@ -21,10 +24,11 @@ public class TestCustomEventBannerAdapterFactory extends CustomEventBannerAdapte
     }
 
     @Override
-    protected CustomEventBannerAdapter internalCreate(MoPubView moPubView, String className, String classData) {
+    protected CustomEventBannerAdapter internalCreate(MoPubView moPubView, String className, String classData, Map<String, String> paramsMap) {
         this.moPubView = moPubView;
         this.className = className;
         this.classData = classData;
+        this.paramsMap = paramsMap;
         return mockCustomEventBannerAdapter;
     }
 
@@ -39,4 +43,8 @@ public class TestCustomEventBannerAdapterFactory extends CustomEventBannerAdapte
     public static String getLatestClassData() {
         return getTestFactory().classData;
     }
+
+    public static Map<String, String> getLatestParamsMap() {
+        return getTestFactory().paramsMap;
+    }
 }
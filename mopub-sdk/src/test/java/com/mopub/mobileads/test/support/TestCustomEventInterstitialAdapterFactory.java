@@ -4,6 +4,8 @@ import com.mopub.mobileads.CustomEventInterstitialAdapter;
 import com.mopub.mobileads.MoPubInterstitial;
 import com.mopub.mobileads.factories.CustomEventInterstitialAdapterFactory;
 
+import java.util.Map;
+
 import static org.mockito.Mockito.mock;
 
 public class TestCustomEventInterstitialAdapterFactory extends CustomEventInterstitialAdapterFactory{
@@ -11,6 +13,7 @@ public class TestCustomEventInterstitialAdapterFactory extends CustomEventInters
     private MoPubInterstitial latestMoPubInterstitial;
     private String latestClassName;
     private String latestClassData;
+    private Map<String, String> latestParamsMap;
 
     public static CustomEventInterstitialAdapter getSingletonMock() {
         return getTestFactory().mockCustomEventInterstitalAdapter;
@@ -32,11 +35,16 @@ public class TestCustomEventInterstitialAdapterFactory extends CustomEventInters
         return getTestFactory().latestClassData;
     }
 
+    public static Map<String, String> getLatestParamsMap() {
+        return getTestFactory().latestParamsMap;
+    }
+
     @Override
-    protected CustomEventInterstitialAdapter internalCreate(MoPubInterstitial moPubInterstitial, String className, String classData) {
+    protected CustomEventInterstitialAdapter internalCreate(MoPubInterstitial moPubInterstitial, String className, String classData, Map<String, String> paramsMap) {
         latestMoPubInterstitial = moPubInterstitial;
         latestClassName = className;
         latestClassData = classData;
+        latestParamsMap = paramsMap;
         return mockCustomEventInterstitalAdapter;
     }
 }
@@ -15,6 +15,7 @@ public class TestHtmlBannerWebViewFactory extends HtmlBannerWebViewFactory {
     private boolean latestIsScrollable;
     private String latestRedirectUrl;
     private String latestClickthroughUrl;
+    private HtmlBannerWebView latestRecycledWebView;
 
     public TestHtmlBannerWebViewFactory() {
         WebSettings webSettings = mock(WebSettings.class);
@@ -39,6 +40,15 @@ public class TestHtmlBannerWebViewFactory extends HtmlBannerWebViewFactory {
         return mockHtmlBannerWebView;
     }
 
+    @Override
+    public void internalRecycle(HtmlBannerWebView htmlBannerWebView) {
+        latestRecycledWebView = htmlBannerWebView;
+    }
+
+    public static HtmlBannerWebView getLatestRecycledWebView() {
+        return getTestFactory().latestRecycledWebView;
+    }
+
     public static CustomEventBannerListener getLatestListener() {
         return getTestFactory().latestListener;
     }
@@ -24,4 +24,14 @@ public class TestHttpResponseWithHeaders extends TestHttpResponse {
     public Header getFirstHeader(String name) {
         return headers.get(name);
     }
+
+    @Override
+    public Header[] getAllHeaders() {
+        return headers.values().toArray(new Header[headers.size()]);
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return headers.containsKey(name);
+    }
 }
@@ -1,9 +1,16 @@
 package com.mopub.mobileads.util;
 
 import com.mopub.mobileads.test.support.TestHttpResponseWithHeaders;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.fest.assertions.api.Assertions.assertThat;
 
 public class HttpResponsesTest {
@@ -40,4 +47,41 @@ public class HttpResponsesTest {
         assertThat(HttpResponses.extractBooleanHeader(response, "name", false)).isFalse();
         assertThat(HttpResponses.extractBooleanHeader(response, "name", true)).isTrue();
     }
+
+    @Test
+    public void asResponseString_shouldUseTheCharsetFromTheContentType() throws Exception {
+        ByteArrayEntity entity = new ByteArrayEntity("caf\u00e9".getBytes("ISO-8859-1"));
+        entity.setContentType("text/html; charset=ISO-8859-1");
+
+        assertThat(HttpResponses.asResponseString(createResponse(entity))).isEqualTo("caf\u00e9");
+    }
+
+    @Test
+    public void asResponseString_withoutACharset_shouldDecodeAsUtf8() throws Exception {
+        ByteArrayEntity entity = new ByteArrayEntity("caf\u00e9".getBytes("UTF-8"));
+        entity.setContentType("text/html");
+
+        assertThat(HttpResponses.asResponseString(createResponse(entity))).isEqualTo("caf\u00e9");
+    }
+
+    @Test
+    public void asResponseString_withBytesRead_shouldCountTheBodyBytes() throws Exception {
+        ByteArrayEntity entity = new ByteArrayEntity("caf\u00e9".getBytes("UTF-8"));
+        AtomicLong bytesRead = new AtomicLong();
+
+        HttpResponses.asResponseString(createResponse(entity), bytesRead);
+
+        assertThat(bytesRead.get()).isEqualTo(5);
+    }
+
+    @Test
+    public void asResponseString_withoutAnEntity_shouldReturnEmptyString() throws Exception {
+        assertThat(HttpResponses.asResponseString(createResponse(null))).isEmpty();
+    }
+
+    private HttpResponse createResponse(HttpEntity entity) {
+        HttpResponse httpResponse = new BasicHttpResponse(new ProtocolVersion("HTTP", 1, 1), 200, "OK");
+        httpResponse.setEntity(entity);
+        return httpResponse;
+    }
 }
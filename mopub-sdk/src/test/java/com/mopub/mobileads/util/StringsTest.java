@@ -4,6 +4,9 @@ import com.mopub.mobileads.test.support.SdkTestRunner;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
 import static org.fest.assertions.api.Assertions.assertThat;
 
 @RunWith(SdkTestRunner.class)
@@ -16,4 +19,34 @@ public class StringsTest {
 
         assertThat(Strings.isEmpty(null)).isFalse();
     }
+
+    @Test
+    public void fromStream_shouldDecodeMultibyteCharactersAcrossBufferBoundaries() throws Exception {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            expected.append("\u00e9\u4e2d");
+        }
+
+        InputStream inputStream = new ByteArrayInputStream(expected.toString().getBytes("UTF-8"));
+
+        assertThat(Strings.fromStream(inputStream)).isEqualTo(expected.toString());
+    }
+
+    @Test
+    public void fromStream_withCharset_shouldDecodeUsingThatCharset() throws Exception {
+        byte[] bytes = "caf\u00e9".getBytes("ISO-8859-1");
+
+        String result = Strings.fromStream(new ByteArrayInputStream(bytes), "ISO-8859-1", bytes.length);
+
+        assertThat(result).isEqualTo("caf\u00e9");
+    }
+
+    @Test
+    public void fromStream_withUnsupportedCharset_shouldFallBackToUtf8() throws Exception {
+        byte[] bytes = "caf\u00e9".getBytes("UTF-8");
+
+        String result = Strings.fromStream(new ByteArrayInputStream(bytes), "not-a-charset", -1);
+
+        assertThat(result).isEqualTo("caf\u00e9");
+    }
 }
@@ -0,0 +1,52 @@
+package com.mopub.mobileads.util;
+
+import android.net.Uri;
+import com.mopub.mobileads.test.support.SdkTestRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class UrisTest {
+    @Test
+    public void appendEncoded_shouldMatchUriEncode() throws Exception {
+        String[] values = {
+                "",
+                "1.2.3",
+                "-0700",
+                "adUnitId_-!.~'()*",
+                "keyword:value,other:thing",
+                "37.7749,-122.4194",
+                "sha:0123456789abcdef",
+                "a b&c=d/e?f#g%h+i",
+                "café 中文",
+                "😀 emoji",
+        };
+
+        for (String value : values) {
+            StringBuilder out = new StringBuilder();
+            Uris.appendEncoded(out, value);
+
+            assertThat(out.toString()).isEqualTo(Uri.encode(value));
+        }
+    }
+
+    @Test
+    public void appendEncoded_shouldAppendToWhatIsAlreadyThere() throws Exception {
+        StringBuilder out = new StringBuilder("id=");
+
+        Uris.appendEncoded(out, "a b");
+
+        assertThat(out.toString()).isEqualTo("id=a%20b");
+    }
+
+    @Test
+    public void appendEncoded_withUnpairedSurrogate_shouldEncodeAQuestionMark() throws Exception {
+        StringBuilder out = new StringBuilder();
+
+        Uris.appendEncoded(out, "a\ud83db");
+
+        assertThat(out.toString()).isEqualTo("a%3Fb");
+    }
+}